@@ -3,16 +3,27 @@ package com.dinosauriojuego;
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.dinosauriojuego.network.ClienteRed;
+import com.dinosauriojuego.network.ConexionPar;
 import com.dinosauriojuego.pantallas.DinosaurioGameScreen;
 import com.dinosauriojuego.pantallas.MenuScreen;
+import com.dinosauriojuego.pantallas.PantallaJuegoRed;
+import com.dinosauriojuego.pantallas.PantallaRollback;
 
 /**
  * Clase principal de la aplicación
  */
 public class DinosaurioChromePrincipal extends Game {
+    // Servidor del modo en red; se puede cambiar con -Ddino.servidor=host
+    private static final String HOST_SERVIDOR = System.getProperty("dino.servidor", "localhost");
+    // Rival del duelo P2P (-Ddino.par=host); sin la propiedad este par es el anfitrión y espera
+    private static final String HOST_PAR = System.getProperty("dino.par");
+
     private Skin skin;
     private MenuScreen menuScreen;
     private DinosaurioGameScreen gameScreen;
+    private PantallaJuegoRed pantallaRed;
+    private PantallaRollback pantallaDuelo;
 
     @Override
     public void create() {
@@ -29,8 +40,33 @@ public class DinosaurioChromePrincipal extends Game {
         setScreen(gameScreen);
     }
 
+    public void iniciarJuegoEnRed() {
+        if (pantallaRed != null) {
+            pantallaRed.dispose();
+        }
+        pantallaRed = new PantallaJuegoRed(this, skin, HOST_SERVIDOR, ClienteRed.PUERTO_POR_DEFECTO);
+        setScreen(pantallaRed);
+    }
+
+    public void iniciarDuelo() {
+        if (pantallaDuelo != null) {
+            pantallaDuelo.dispose();
+        }
+        pantallaDuelo = new PantallaRollback(this, skin, HOST_PAR, ConexionPar.PUERTO_POR_DEFECTO);
+        setScreen(pantallaDuelo);
+    }
+
     public void volverAlMenu() {
         setScreen(menuScreen);
+        // La partida en red no puede quedar en pausa: al volver al menú se cierra la conexión
+        if (pantallaRed != null) {
+            pantallaRed.dispose();
+            pantallaRed = null;
+        }
+        if (pantallaDuelo != null) {
+            pantallaDuelo.dispose();
+            pantallaDuelo = null;
+        }
     }
 
     @Override
@@ -44,5 +80,11 @@ public class DinosaurioChromePrincipal extends Game {
         if (gameScreen != null) {
             gameScreen.dispose();
         }
+        if (pantallaRed != null) {
+            pantallaRed.dispose();
+        }
+        if (pantallaDuelo != null) {
+            pantallaDuelo.dispose();
+        }
     }
 }
@@ -1,6 +1,7 @@
 package com.dinosauriojuego.logica;
 
 import com.badlogic.gdx.math.Rectangle;
+import com.dinosauriojuego.servidor.logica.ColisionContinua;
 
 /**
  * Clase que representa al dinosaurio jugador
@@ -111,6 +112,17 @@ public class Dinosaurio {
         return bounds.overlaps(obstaculo.getBounds());
     }
 
+    /**
+     * Colisión continua: también detecta el obstáculo que cruzó al dinosaurio entre dos frames
+     * @param yAnterior y del dinosaurio al empezar el frame
+     * @param desplazamiento cuánto avanzó el obstáculo hacia la izquierda en el frame
+     */
+    public boolean colisiona(Obstaculo obstaculo, float yAnterior, float desplazamiento) {
+        Rectangle obs = obstaculo.getBounds();
+        return ColisionContinua.choca(bounds.x, bounds.width, yAnterior, bounds.y, bounds.height,
+                obs.x, obs.y, obs.width, obs.height, desplazamiento);
+    }
+
     public void reset() {
         y = alturaSuelo;
         velocidadY = 0;
@@ -1,6 +1,6 @@
 package com.dinosauriojuego.logica;
 
-import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -35,7 +35,18 @@ public class DinosaurioGame {
     private float alturaPantalla;
     private float anchoPantalla;
 
+    // Alturas de vuelo de los pájaros
+    private static final float[] ALTURAS_PAJARO = {80f, 110f, 140f};
+
+    // Generador propio: dos partidas con la misma semilla y los mismos frames ven los mismos obstáculos
+    private final RandomXS128 random;
+
     public DinosaurioGame(float anchoPantalla, float alturaPantalla) {
+        this(anchoPantalla, alturaPantalla, new RandomXS128().nextLong());
+    }
+
+    public DinosaurioGame(float anchoPantalla, float alturaPantalla, long semilla) {
+        this.random = new RandomXS128(semilla);
         this.anchoPantalla = anchoPantalla;
         this.alturaPantalla = alturaPantalla;
         this.dinosaurio = new Dinosaurio(50, 60);
@@ -56,7 +67,8 @@ public class DinosaurioGame {
             return;
         }
 
-        // Actualizar dinosaurio
+        // Actualizar dinosaurio (la y anterior sirve para la colisión continua)
+        float yAnterior = dinosaurio.getY();
         dinosaurio.update(deltaTime, alturaPantalla);
 
         if (saltando && !dinosaurio.estaSaltando() && !dinosaurio.estaAgachado()) {
@@ -69,12 +81,13 @@ public class DinosaurioGame {
         velocidadJuego += VELOCIDAD_INCREMENTO * deltaTime;
 
         // Actualizar obstáculos
+        float desplazamiento = velocidadJuego * deltaTime;
         for (int i = obstaculos.size() - 1; i >= 0; i--) {
             Obstaculo obs = obstaculos.get(i);
             obs.update(deltaTime, velocidadJuego);
 
-            // Detectar colisión
-            if (dinosaurio.colisiona(obs)) {
+            // Detectar colisión en todo el recorrido del frame, no solo en la posición final
+            if (dinosaurio.colisiona(obs, yAnterior, desplazamiento)) {
                 gameOver = true;
             }
 
@@ -110,19 +123,28 @@ public class DinosaurioGame {
      * Genera un nuevo obstáculo aleatorio
      */
     private void spawnObstaculo() {
-        float tipoRandom = MathUtils.random(1f);
+        float tipoRandom = random.nextFloat();
         if (tipoRandom < 0.7f) {
-            // Cactus con altura variable
-            float alturaObstaculo = MathUtils.random(30f, 50f);
-            obstaculos.add(new Obstaculo(anchoPantalla, alturaObstaculo, 30, Obstaculo.TIPO_CACTUS));
+            // Cactus con altura variable, siempre en el suelo
+            float alturaObstaculo = 30f + random.nextFloat() * 20f;
+            obstaculos.add(new Obstaculo(anchoPantalla, 60, alturaObstaculo, 30, Obstaculo.TIPO_CACTUS));
         } else {
-            // Pterodáctilo
-            obstaculos.add(new Obstaculo(anchoPantalla, 25, 50, Obstaculo.TIPO_PAJARO));
+            // Pterodáctilo a una de las alturas de vuelo
+            float y = ALTURAS_PAJARO[random.nextInt(ALTURAS_PAJARO.length)];
+            obstaculos.add(new Obstaculo(anchoPantalla, y, 25, 50, Obstaculo.TIPO_PAJARO));
         }
     }
 
     /**
-     * Reinicia el juego a su estado inicial
+     * Reinicia el juego y vuelve a sembrar el generador
+     */
+    public void reset(long semilla) {
+        reset();
+        random.setSeed(semilla);
+    }
+
+    /**
+     * Reinicia el juego a su estado inicial (el generador sigue donde estaba)
      */
     public void reset() {
         dinosaurio.reset();
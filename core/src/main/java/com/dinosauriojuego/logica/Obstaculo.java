@@ -29,24 +29,19 @@ public class Obstaculo {
     private static final float TIEMPO_CAMBIO_SPRITE = 0.15f; // Cambiar alas cada 0.15 segundos
     private int spriteActual; // 0 = alas arriba, 1 = alas abajo
 
-    public Obstaculo(float x, float alto, float ancho, int tipo) {
+    /**
+     * @param y altura del obstáculo (los cactus en el suelo, los pájaros a su altura de vuelo);
+     *          la sortea el juego con su propio generador
+     */
+    public Obstaculo(float x, float y, float alto, float ancho, int tipo) {
         this.x = x;
+        this.y = y;
         this.ancho = ancho;
         this.alto = alto;
         this.tipo = tipo;
         this.tiempoAnimacion = 0;
         this.spriteActual = 0;
 
-        // Los pájaros vuelan más alto y a diferentes alturas
-        if (tipo == TIPO_PAJARO) {
-            float[] alturasVuelo = {80f, 110f, 140f};
-            int indiceAleatorio = (int)(Math.random() * alturasVuelo.length);
-            this.y = alturasVuelo[indiceAleatorio];
-        } else {
-            // Cactus siempre en el suelo
-            this.y = 60;
-        }
-
         this.bounds = new Rectangle();
         actualizarHitbox();
     }
@@ -0,0 +1,226 @@
+package com.dinosauriojuego.logica;
+
+import com.dinosauriojuego.network.EstadoSnapshot;
+import com.dinosauriojuego.network.PaqueteInput;
+import com.dinosauriojuego.servidor.logica.EstadoJugadores;
+import com.dinosauriojuego.servidor.logica.GameSimulacion;
+
+/**
+ * Predicción del dinosaurio propio en el cliente de red
+ *
+ * Cada tick del cliente se simula enseguida con el input local, usando la misma física que el
+ * servidor ({@link GameSimulacion#actualizarDino}), así el salto se ve en el mismo frame en que se
+ * aprieta la tecla. Los inputs quedan guardados por tick: al llegar un snapshot se parte del
+ * estado autoritativo y se vuelven a simular los inputs que el servidor todavía no aplicó.
+ *
+ * Si la reconciliación mueve al dinosaurio, la diferencia se guarda como error visual y se
+ * desvanece en unos frames en lugar de verse como un salto de posición.
+ */
+public class PrediccionDino {
+
+    // Inputs recordados; a 60 ticks por segundo alcanza para más de dos segundos de RTT
+    public static final int CAPACIDAD = 128;
+    private static final int MASCARA = CAPACIDAD - 1;
+
+    // Diferencias menores son redondeo del protocolo (1/16 px), no una predicción errada
+    private static final float UMBRAL_CORRECCION = 1f;
+    // Velocidad con la que se desvanece el error visual (por segundo)
+    private static final float AMORTIGUACION_ERROR = 15f;
+
+    private final int[] ticks = new int[CAPACIDAD];
+    private final int[] bits = new int[CAPACIDAD];
+    // El dinosaurio propio, único lugar de un estado de jugadores
+    private final EstadoJugadores dino = new EstadoJugadores(1);
+
+    // Próximo tick del cliente a simular (-1 hasta iniciar)
+    private int tickCliente = -1;
+    // Paso fijo del servidor, el que anuncia al conectarse
+    private int ticksPorSegundo;
+    private float deltaTick;
+    private float errorVisual;
+
+    // Con la partida terminada el servidor deja de simular, así que la predicción también se detiene
+    private boolean detenida;
+
+    // Estadísticas
+    private long reconciliaciones;
+    private long correcciones;
+    private long inputsRepetidos;
+    private float correccionMaxima;
+
+    public PrediccionDino() {
+        limpiar();
+    }
+
+    /**
+     * Arranca la predicción desde el estado inicial
+     * @param tick primer tick del cliente a simular
+     * @param ticksPorSegundo tasa de simulación del servidor: cada tick del cliente es uno del servidor
+     */
+    public void iniciar(int tick, int ticksPorSegundo) {
+        if (ticksPorSegundo <= 0) {
+            throw new IllegalArgumentException("Tasa de simulación inválida: " + ticksPorSegundo);
+        }
+        limpiar();
+        tickCliente = tick;
+        this.ticksPorSegundo = ticksPorSegundo;
+        // Mismo paso fijo que el servidor, calculado igual
+        this.deltaTick = 1f / ticksPorSegundo;
+    }
+
+    /**
+     * Olvida los inputs y vuelve a esperar el primer snapshot
+     */
+    public void limpiar() {
+        for (int i = 0; i < CAPACIDAD; i++) {
+            ticks[i] = -1;
+            bits[i] = 0;
+        }
+        dino.reset();
+        tickCliente = -1;
+        errorVisual = 0;
+        detenida = false;
+    }
+
+    public boolean estaIniciada() {
+        return tickCliente >= 0;
+    }
+
+    /**
+     * Simula un tick con el input local y lo recuerda para reconciliar
+     * @return el tick del cliente al que corresponde el input (el que hay que enviar)
+     */
+    public int avanzar(int bitsInput) {
+        int i = tickCliente & MASCARA;
+        ticks[i] = tickCliente;
+        bits[i] = bitsInput;
+        aplicar(bitsInput);
+        return tickCliente++;
+    }
+
+    private void aplicar(int bitsInput) {
+        if (detenida) {
+            return;
+        }
+        GameSimulacion.actualizarDino(dino, 0, deltaTick,
+                (bitsInput & PaqueteInput.SALTAR) != 0, (bitsInput & PaqueteInput.AGACHAR) != 0);
+    }
+
+    /**
+     * Corrige la predicción con un snapshot autoritativo
+     * @param jugador índice del jugador propio dentro del snapshot
+     */
+    public void reconciliar(EstadoSnapshot snapshot, int jugador) {
+        int aplicado = snapshot.inputAplicado;
+        if (tickCliente < 0 || aplicado < 0 || jugador >= snapshot.cantidadJugadores) {
+            // El servidor todavía no aplicó ningún input nuestro: no hay nada contra qué comparar
+            return;
+        }
+        if (aplicado >= tickCliente) {
+            // El reloj del cliente quedó atrás del servidor: se adelanta para que los inputs no lleguen tarde
+            tickCliente = aplicado + 2;
+        }
+
+        float yPredicha = dino.y[0];
+        float yVisual = getYVisual();
+
+        dino.y[0] = snapshot.jugadorY[jugador];
+        dino.velocidadY[0] = snapshot.jugadorVelocidadY[jugador];
+        dino.enSuelo[0] = snapshot.jugadorEnSuelo[jugador];
+        dino.agachado[0] = snapshot.jugadorAgachado[jugador];
+        dino.vivo[0] = snapshot.jugadorVivo[jugador];
+
+        // Con la partida terminada el servidor no aplica inputs, así que no hay nada que repetir
+        detenida = snapshot.terminado;
+        if (!detenida) {
+            int desde = Math.max(aplicado + 1, tickCliente - CAPACIDAD + 1);
+            for (int t = desde; t < tickCliente; t++) {
+                int i = t & MASCARA;
+                aplicar(ticks[i] == t ? bits[i] : 0);
+                inputsRepetidos++;
+            }
+        }
+
+        reconciliaciones++;
+        float correccion = Math.abs(dino.y[0] - yPredicha);
+        if (correccion > UMBRAL_CORRECCION) {
+            correcciones++;
+            correccionMaxima = Math.max(correccionMaxima, correccion);
+        }
+        errorVisual = yVisual - dino.y[0];
+    }
+
+    /**
+     * Desvanece el error visual de la última corrección
+     */
+    public void actualizarError(float delta) {
+        errorVisual *= (float) Math.exp(-AMORTIGUACION_ERROR * delta);
+        if (Math.abs(errorVisual) < 0.01f) {
+            errorVisual = 0;
+        }
+    }
+
+    /**
+     * Altura a dibujar: la predicha más lo que queda del error visual
+     */
+    public float getYVisual() {
+        return dino.y[0] + errorVisual;
+    }
+
+    /**
+     * Resumen de una línea para la pantalla
+     */
+    public String getResumen() {
+        return "correcciones: " + correcciones + "/" + reconciliaciones +
+                " | máx: " + String.format("%.1f", correccionMaxima) + " px" +
+                " | repetidos: " + inputsRepetidos;
+    }
+
+    // Getters
+    public boolean isVivo() {
+        return dino.vivo[0];
+    }
+
+    public boolean isEnSuelo() {
+        return dino.enSuelo[0];
+    }
+
+    public boolean isAgachado() {
+        return dino.agachado[0];
+    }
+
+    public int getTickCliente() {
+        return tickCliente;
+    }
+
+    public int getTicksPorSegundo() {
+        return ticksPorSegundo;
+    }
+
+    /**
+     * Duración de un tick en segundos; el tiempo que la pantalla acumula para avanzar uno
+     */
+    public float getDeltaTick() {
+        return deltaTick;
+    }
+
+    public float getErrorVisual() {
+        return errorVisual;
+    }
+
+    public long getReconciliaciones() {
+        return reconciliaciones;
+    }
+
+    public long getCorrecciones() {
+        return correcciones;
+    }
+
+    public long getInputsRepetidos() {
+        return inputsRepetidos;
+    }
+
+    public float getCorreccionMaxima() {
+        return correccionMaxima;
+    }
+}
@@ -0,0 +1,256 @@
+package com.dinosauriojuego.logica;
+
+import com.dinosauriojuego.network.PaqueteInput;
+import com.dinosauriojuego.servidor.logica.EstadoGuardado;
+import com.dinosauriojuego.servidor.logica.GameSimulacion;
+
+/**
+ * Duelo 1v1 entre pares con rollback, al estilo GGPO
+ *
+ * Los dos pares simulan la misma {@link GameSimulacion}, con la misma semilla y el mismo paso fijo.
+ * El input propio se aplica en el tick en que se aprieta; el del rival llega con la latencia de la
+ * red, así que se predice repitiendo el último confirmado. Cuando llega el real y no coincide con lo
+ * predicho, se vuelve al estado guardado de ese tick y se resimulan los siguientes con lo que ya se
+ * sabe, todo antes de dibujar: la pantalla siempre muestra el resultado corregido.
+ *
+ * El estado se guarda al empezar cada tick, en un anillo que cubre la ventana de predicción. Si el
+ * rival deja de confirmar inputs por más de ROLLBACK_MAXIMO ticks la sesión lo espera en lugar de
+ * predecir más lejos, así que nunca se resimulan más de esos ticks por frame.
+ *
+ * Las revanchas también viajan como inputs: con la partida terminada, saltar pide otra, y cuando los
+ * dos la pidieron las dos simulaciones se reinician en el mismo tick con la semilla siguiente.
+ */
+public class SesionRollback {
+
+    public static final int JUGADORES = 2;
+
+    // Paso fijo de los dos pares; no hay servidor que lo anuncie
+    public static final int TICKS_POR_SEGUNDO = 60;
+    public static final float DELTA_TICK = 1f / TICKS_POR_SEGUNDO;
+
+    // Ticks que se predicen como máximo antes de esperar al rival
+    public static final int ROLLBACK_MAXIMO = 8;
+
+    // Potencia de dos: cubre la ventana de predicción y los inputs del rival que llegan adelantados
+    private static final int CAPACIDAD = 32;
+    private static final int MASCARA = CAPACIDAD - 1;
+
+    // El rival nunca se adelanta más que su propia ventana de predicción; el resto del anillo queda
+    // para los estados guardados
+    private static final int ADELANTO_REMOTO_MAXIMO = ROLLBACK_MAXIMO + 1;
+
+    private final GameSimulacion simulacion;
+    private final int jugadorLocal;
+    private final int jugadorRemoto;
+
+    // Estado al empezar cada tick, con los pedidos de revancha: lugar (tick & MASCARA)
+    private final EstadoGuardado[] guardados = new EstadoGuardado[CAPACIDAD];
+    private final boolean[] revanchaGuardada = new boolean[CAPACIDAD * JUGADORES];
+
+    // Inputs por tick; los del rival son los que se usaron al simular, confirmados o predichos
+    private final int[] inputsLocales = new int[CAPACIDAD];
+    private final int[] inputsRemotos = new int[CAPACIDAD];
+
+    private int tick = 0;               // próximo tick a simular
+    private int remotoConfirmado = -1;  // último tick con el input del rival confirmado
+    private int primerError = -1;       // tick más viejo simulado con una predicción errada (-1 si ninguno)
+
+    // Pedido de revancha de cada jugador mientras la partida está terminada
+    private final boolean[] revancha = new boolean[JUGADORES];
+
+    // Input del tick en curso, indexado por jugador
+    private final boolean[] saltar = new boolean[JUGADORES];
+    private final boolean[] agachar = new boolean[JUGADORES];
+
+    // Estadísticas
+    private long rollbacks;
+    private long ticksResimulados;
+    private int rollbackMasLargo;
+    private long esperas;
+
+    /**
+     * @param jugadorLocal 0 para el anfitrión, 1 para el invitado
+     * @param semilla semilla de la primera partida, la misma en los dos pares
+     */
+    public SesionRollback(int jugadorLocal, long semilla) {
+        if (jugadorLocal < 0 || jugadorLocal >= JUGADORES) {
+            throw new IllegalArgumentException("Jugador inválido: " + jugadorLocal);
+        }
+        this.jugadorLocal = jugadorLocal;
+        this.jugadorRemoto = 1 - jugadorLocal;
+        this.simulacion = new GameSimulacion(JUGADORES, semilla);
+        for (int i = 0; i < CAPACIDAD; i++) {
+            guardados[i] = new EstadoGuardado(JUGADORES);
+        }
+    }
+
+    /**
+     * Confirma el input del rival para un tick; tienen que llegar en orden, sin huecos
+     * Si ese tick ya se simuló con otra predicción, el próximo avance lo corrige
+     * @return false si no es el siguiente o está más adelante de lo que el anillo puede guardar
+     */
+    public boolean confirmarRemoto(int tickRemoto, int bits) {
+        if (tickRemoto != remotoConfirmado + 1 || tickRemoto - tick > ADELANTO_REMOTO_MAXIMO) {
+            return false;
+        }
+        int lugar = tickRemoto & MASCARA;
+        if (tickRemoto < tick && inputsRemotos[lugar] != bits && (primerError < 0 || tickRemoto < primerError)) {
+            primerError = tickRemoto;
+        }
+        inputsRemotos[lugar] = bits;
+        remotoConfirmado = tickRemoto;
+        return true;
+    }
+
+    /**
+     * Corrige las predicciones erradas y simula el próximo tick con el input local
+     * @return false si el rival está demasiado atrás y hay que esperarlo (el input no se usó)
+     */
+    public boolean avanzar(int bitsLocal) {
+        corregir();
+        if (tick - remotoConfirmado > ROLLBACK_MAXIMO) {
+            esperas++;
+            return false;
+        }
+
+        inputsLocales[tick & MASCARA] = bitsLocal;
+        if (tick > remotoConfirmado) {
+            inputsRemotos[tick & MASCARA] = prediccionRemota();
+        }
+        simularTick(tick);
+        tick++;
+        return true;
+    }
+
+    /**
+     * Vuelve al tick más viejo mal predicho y resimula hasta el presente
+     * Avanzar ya lo hace; se llama aparte en los frames en que no se avanza, para no dibujar algo viejo
+     */
+    public void corregir() {
+        if (primerError < 0) {
+            return;
+        }
+        int desde = primerError;
+        primerError = -1;
+
+        restaurar(desde);
+        int prediccion = prediccionRemota();
+        for (int t = desde; t < tick; t++) {
+            if (t > remotoConfirmado) {
+                inputsRemotos[t & MASCARA] = prediccion;
+            }
+            simularTick(t);
+        }
+
+        rollbacks++;
+        ticksResimulados += tick - desde;
+        rollbackMasLargo = Math.max(rollbackMasLargo, tick - desde);
+    }
+
+    /**
+     * El rival repite lo último que se le confirmó
+     */
+    private int prediccionRemota() {
+        return remotoConfirmado >= 0 ? inputsRemotos[remotoConfirmado & MASCARA] : 0;
+    }
+
+    private void simularTick(int t) {
+        int lugar = t & MASCARA;
+        simulacion.guardar(guardados[lugar]);
+        revanchaGuardada[lugar * JUGADORES] = revancha[0];
+        revanchaGuardada[lugar * JUGADORES + 1] = revancha[1];
+
+        int local = inputsLocales[lugar];
+        int remoto = inputsRemotos[lugar];
+        saltar[jugadorLocal] = (local & PaqueteInput.SALTAR) != 0;
+        agachar[jugadorLocal] = (local & PaqueteInput.AGACHAR) != 0;
+        saltar[jugadorRemoto] = (remoto & PaqueteInput.SALTAR) != 0;
+        agachar[jugadorRemoto] = (remoto & PaqueteInput.AGACHAR) != 0;
+
+        if (!simulacion.terminado) {
+            simulacion.actualizar(DELTA_TICK, saltar, agachar);
+            return;
+        }
+
+        // Partida terminada: saltar pide la revancha, y con los dos pedidos se reinicia
+        revancha[0] |= saltar[0];
+        revancha[1] |= saltar[1];
+        if (revancha[0] && revancha[1]) {
+            simulacion.reset(siguienteSemilla(simulacion.getSemilla()));
+            revancha[0] = false;
+            revancha[1] = false;
+        }
+    }
+
+    private void restaurar(int t) {
+        int lugar = t & MASCARA;
+        simulacion.restaurar(guardados[lugar]);
+        revancha[0] = revanchaGuardada[lugar * JUGADORES];
+        revancha[1] = revanchaGuardada[lugar * JUGADORES + 1];
+    }
+
+    /**
+     * Semilla de la revancha, calculada igual en los dos pares (un paso de SplitMix64)
+     */
+    private static long siguienteSemilla(long semilla) {
+        long z = semilla + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Ticks que este par va por delante del rival, según lo que cada uno confirmó del otro
+     * Si es positivo conviene esperar algún frame para que las dos ventanas de predicción se igualen
+     * @param ackRemoto último tick propio que el rival confirmó
+     */
+    public int ticksAdelantado(int ackRemoto) {
+        int ventajaLocal = tick - remotoConfirmado;
+        int ventajaRemota = remotoConfirmado - ackRemoto;
+        return (ventajaLocal - ventajaRemota) / 2;
+    }
+
+    /**
+     * Simulación ya corregida, para dibujar
+     */
+    public GameSimulacion getSimulacion() {
+        return simulacion;
+    }
+
+    public int getJugadorLocal() {
+        return jugadorLocal;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public int getRemotoConfirmado() {
+        return remotoConfirmado;
+    }
+
+    public boolean isRevanchaPedida(int jugador) {
+        return revancha[jugador];
+    }
+
+    public long getRollbacks() {
+        return rollbacks;
+    }
+
+    public long getTicksResimulados() {
+        return ticksResimulados;
+    }
+
+    public int getRollbackMasLargo() {
+        return rollbackMasLargo;
+    }
+
+    public long getEsperas() {
+        return esperas;
+    }
+
+    public String getResumen() {
+        return "Tick " + tick + " | rival confirmado " + remotoConfirmado + " | rollbacks: " + rollbacks +
+                " (" + ticksResimulados + " ticks, máx " + rollbackMasLargo + ") | esperas: " + esperas;
+    }
+}
@@ -0,0 +1,355 @@
+package com.dinosauriojuego.network;
+
+import com.dinosauriojuego.servidor.logica.EstadoJugadores;
+import com.dinosauriojuego.servidor.logica.GameSimulacion;
+
+/**
+ * Buffer de snapshots del cliente para dibujar al rival y a los obstáculos sin saltos
+ *
+ * Las entidades remotas se dibujan un poco en el pasado (tick de render = tick estimado del
+ * servidor - retardo), interpolando entre los dos snapshots que rodean ese tick. El retardo se
+ * adapta a la llegada medida: intervalo medio entre snapshots (que depende de la tasa pedida
+ * al servidor) + un margen + FACTOR_DESVIO * desvío del momento de llegada, así un snapshot
+ * tarde o perdido no deja al render sin su par. Si aun así falta el siguiente, se extrapola
+ * hasta EXTRAPOLACION_MAXIMA segundos y después se espera.
+ *
+ * El reloj de render avanza con el tiempo local y se corrige de a poco hacia su objetivo; solo
+ * salta si quedó muy lejos (por ejemplo al volver de una pausa).
+ *
+ * Todo se mide en ticks del servidor, así que hace falta su tasa de simulación (la que anuncia al
+ * conectarse); los topes se fijan en segundos y se pasan a ticks con ella.
+ */
+public class BufferInterpolacion {
+
+    public static final int CAPACIDAD = 32;
+
+    // Adaptación del retardo (en ticks del servidor, salvo el máximo, en segundos)
+    private static final float RETARDO_MINIMO = 1f;
+    public static final float RETARDO_MAXIMO = 1f / 3f;
+    private static final float FACTOR_DESVIO = 2.5f;
+    // Con exactamente un intervalo de retardo el render alcanza al último snapshot justo cuando
+    // llega el siguiente; este margen evita extrapolar con tasas de snapshots bajas
+    private static final float MARGEN_RETARDO = 0.5f;
+    private static final float PESO_MEDIA = 1f / 16f;
+    private static final float PESO_DESVIO = 1f / 8f;
+
+    // Reloj de render
+    private static final float CORRECCION_POR_SEGUNDO = 2f;
+    private static final float CORRECCION_MAXIMA = 0.1f;
+    private static final float ERROR_PARA_SALTAR = 0.25f; // segundos
+
+    public static final float EXTRAPOLACION_MAXIMA = 0.1f; // segundos
+
+    // Tasa de simulación del servidor y los topes pasados a ticks
+    private int ticksPorSegundo;
+    private float deltaTick;
+    private float retardoMaximo;
+    private float errorParaSaltar;
+    private float extrapolacionMaxima;
+
+    // Snapshots en orden de tick; el más viejo en primero
+    private final EstadoSnapshot[] estados = new EstadoSnapshot[CAPACIDAD];
+    private int primero = 0;
+    private int cantidad = 0;
+
+    // Llegada: desfase = tick - tiempo local en ticks, con su media y desvío medio
+    private boolean hayLlegadas = false;
+    private float desfaseMedio;
+    private float desfaseDesvio;
+    private float intervaloMedio = 1f;
+    private float retardo = 2f;
+
+    // Reloj de render (en ticks del servidor, con fracción)
+    private double tickRender = -1;
+    private long ultimoAvance;
+
+    // Auxiliares para extrapolar al rival con la física del servidor
+    private final EstadoJugadores dinoExtrapolado = new EstadoJugadores(1);
+
+    // Estadísticas
+    private long recibidos;
+    private long descartados;
+    private long framesInterpolados;
+    private long framesExtrapolados;
+    private long framesDetenidos;
+    private long saltosReloj;
+
+    /**
+     * @param ticksPorSegundo tasa de simulación del servidor
+     */
+    public BufferInterpolacion(int ticksPorSegundo) {
+        for (int i = 0; i < CAPACIDAD; i++) {
+            estados[i] = new EstadoSnapshot();
+        }
+        limpiar(ticksPorSegundo);
+    }
+
+    /**
+     * Incorpora un snapshot nuevo; tienen que llegar en orden de tick (como los entrega ClienteRed)
+     */
+    public void agregar(EstadoSnapshot snapshot) {
+        if (cantidad > 0 && snapshot.tick <= ultimo().tick) {
+            descartados++;
+            return;
+        }
+        medirLlegada(snapshot);
+
+        if (cantidad == CAPACIDAD) {
+            primero = (primero + 1) % CAPACIDAD;
+            cantidad--;
+        }
+        estados[(primero + cantidad) % CAPACIDAD].copiarDe(snapshot);
+        cantidad++;
+        recibidos++;
+
+        if (tickRender < 0) {
+            tickRender = snapshot.tick - retardo;
+            ultimoAvance = snapshot.llegada;
+        }
+    }
+
+    /**
+     * Actualiza media y desvío de la llegada y, con ellos, el retardo
+     */
+    private void medirLlegada(EstadoSnapshot snapshot) {
+        float desfase = (float) (snapshot.tick - aTicks(snapshot.llegada));
+        if (!hayLlegadas) {
+            desfaseMedio = desfase;
+            desfaseDesvio = 0;
+            hayLlegadas = true;
+        } else {
+            intervaloMedio += (Math.min(snapshot.tick - ultimo().tick, retardoMaximo) - intervaloMedio) * PESO_MEDIA;
+
+            float error = desfase - desfaseMedio;
+            desfaseMedio += error * PESO_MEDIA;
+            desfaseDesvio += (Math.abs(error) - desfaseDesvio) * PESO_DESVIO;
+        }
+
+        retardo = Math.max(RETARDO_MINIMO, Math.min(retardoMaximo, intervaloMedio + MARGEN_RETARDO + FACTOR_DESVIO * desfaseDesvio));
+    }
+
+    /**
+     * Avanza el reloj de render hasta el momento indicado
+     * @param ahora System.nanoTime() del frame
+     */
+    public void avanzar(long ahora) {
+        if (tickRender < 0) {
+            return;
+        }
+
+        double transcurrido = aTicks(ahora) - aTicks(ultimoAvance);
+        ultimoAvance = ahora;
+        if (transcurrido < 0) {
+            transcurrido = 0;
+        }
+
+        // Objetivo: el tick más nuevo que debería haber llegado, menos el retardo
+        double objetivo = aTicks(ahora) + desfaseMedio - retardo;
+        double error = objetivo - (tickRender + transcurrido);
+        if (Math.abs(error) > errorParaSaltar) {
+            tickRender = objetivo;
+            saltosReloj++;
+            return;
+        }
+
+        // Corrección proporcional, limitada a ±10% de la velocidad normal
+        double correccion = error * CORRECCION_POR_SEGUNDO * transcurrido / ticksPorSegundo;
+        double limite = transcurrido * CORRECCION_MAXIMA;
+        correccion = Math.max(-limite, Math.min(limite, correccion));
+        tickRender += transcurrido + correccion;
+    }
+
+    /**
+     * Llena destino con el estado de las entidades remotas en el tick de render
+     * @return false si todavía no hay snapshots
+     */
+    public boolean muestrear(EstadoSnapshot destino) {
+        if (cantidad == 0) {
+            return false;
+        }
+
+        // Se busca el par (a, b) con a.tick <= tickRender < b.tick
+        EstadoSnapshot a = null;
+        EstadoSnapshot b = null;
+        for (int k = 0; k < cantidad; k++) {
+            EstadoSnapshot estado = estados[(primero + k) % CAPACIDAD];
+            if (estado.tick <= tickRender) {
+                a = estado;
+            } else {
+                b = estado;
+                break;
+            }
+        }
+
+        if (a == null) {
+            // El render está antes del snapshot más viejo: se muestra ese tal cual
+            framesDetenidos++;
+            destino.copiarDe(b);
+            return true;
+        }
+        if (b == null) {
+            extrapolar(a, (float) Math.min(tickRender - a.tick, extrapolacionMaxima), destino);
+            return true;
+        }
+
+        framesInterpolados++;
+        interpolar(a, b, (float) ((tickRender - a.tick) / (b.tick - a.tick)), destino);
+        return true;
+    }
+
+    private void interpolar(EstadoSnapshot a, EstadoSnapshot b, float alfa, EstadoSnapshot destino) {
+        // Entre dos partidas distintas no hay nada que interpolar
+        if (a.terminado != b.terminado || b.puntuacion < a.puntuacion) {
+            destino.copiarDe(alfa < 0.5f ? a : b);
+            return;
+        }
+
+        destino.copiarDe(alfa < 0.5f ? a : b);
+        destino.velocidad = a.velocidad + (b.velocidad - a.velocidad) * alfa;
+
+        for (int i = 0; i < Math.min(a.cantidadJugadores, b.cantidadJugadores); i++) {
+            destino.jugadorY[i] = a.jugadorY[i] + (b.jugadorY[i] - a.jugadorY[i]) * alfa;
+        }
+
+        // Cada obstáculo de b se busca en a por id (los ids son consecutivos)
+        destino.cantidadObstaculos = b.cantidadObstaculos;
+        float tiempoHastaB = (b.tick - a.tick) * (1f - alfa) / ticksPorSegundo;
+        for (int i = 0; i < b.cantidadObstaculos; i++) {
+            destino.obstaculoId[i] = b.obstaculoId[i];
+            destino.obstaculoTipo[i] = b.obstaculoTipo[i];
+            destino.obstaculoVariante[i] = b.obstaculoVariante[i];
+            destino.obstaculoY[i] = b.obstaculoY[i];
+
+            int j = a.cantidadObstaculos > 0 ? b.obstaculoId[i] - a.obstaculoId[0] : -1;
+            if (j >= 0 && j < a.cantidadObstaculos && a.obstaculoId[j] == b.obstaculoId[i]) {
+                destino.obstaculoX[i] = a.obstaculoX[j] + (b.obstaculoX[i] - a.obstaculoX[j]) * alfa;
+            } else {
+                // Apareció entre a y b: se lo ubica hacia atrás con la velocidad del mundo
+                destino.obstaculoX[i] = b.obstaculoX[i] + b.velocidad * tiempoHastaB;
+            }
+        }
+    }
+
+    private void extrapolar(EstadoSnapshot base, float ticks, EstadoSnapshot destino) {
+        destino.copiarDe(base);
+        if (ticks <= 0 || base.terminado || !base.juegoIniciado) {
+            framesDetenidos++;
+            return;
+        }
+        framesExtrapolados++;
+
+        // Los obstáculos se mueven en línea recta con la velocidad del mundo
+        float desplazamiento = base.velocidad * ticks / ticksPorSegundo;
+        for (int i = 0; i < destino.cantidadObstaculos; i++) {
+            destino.obstaculoX[i] -= desplazamiento;
+        }
+
+        // El rival sigue su salto con la física del servidor, sin inputs nuevos
+        int enteros = (int) ticks;
+        float fraccion = ticks - enteros;
+        for (int i = 0; i < base.cantidadJugadores; i++) {
+            if (base.jugadorEnSuelo[i] || !base.jugadorVivo[i]) {
+                continue;
+            }
+            dinoExtrapolado.y[0] = base.jugadorY[i];
+            dinoExtrapolado.velocidadY[0] = base.jugadorVelocidadY[i];
+            dinoExtrapolado.enSuelo[0] = false;
+            dinoExtrapolado.agachado[0] = false;
+            dinoExtrapolado.vivo[0] = true;
+            for (int k = 0; k < enteros; k++) {
+                GameSimulacion.actualizarDino(dinoExtrapolado, 0, deltaTick, false, false);
+            }
+            float y = dinoExtrapolado.y[0];
+            GameSimulacion.actualizarDino(dinoExtrapolado, 0, deltaTick, false, false);
+            destino.jugadorY[i] = y + (dinoExtrapolado.y[0] - y) * fraccion;
+            destino.jugadorEnSuelo[i] = dinoExtrapolado.enSuelo[0];
+        }
+    }
+
+    private EstadoSnapshot ultimo() {
+        return estados[(primero + cantidad - 1) % CAPACIDAD];
+    }
+
+    private double aTicks(long nanos) {
+        return nanos * (ticksPorSegundo / 1e9);
+    }
+
+    /**
+     * Olvida los snapshots y la adaptación
+     * @param ticksPorSegundo tasa de simulación del servidor, la que anuncia al conectarse
+     */
+    public void limpiar(int ticksPorSegundo) {
+        if (ticksPorSegundo <= 0) {
+            throw new IllegalArgumentException("Tasa de simulación inválida: " + ticksPorSegundo);
+        }
+        this.ticksPorSegundo = ticksPorSegundo;
+        // Mismo paso fijo que el servidor, calculado igual
+        this.deltaTick = 1f / ticksPorSegundo;
+        // Con un snapshot por tick el retardo necesita un intervalo más el margen, aunque la tasa sea baja
+        this.retardoMaximo = Math.max(RETARDO_MINIMO + 1f + MARGEN_RETARDO, RETARDO_MAXIMO * ticksPorSegundo);
+        this.errorParaSaltar = ERROR_PARA_SALTAR * ticksPorSegundo;
+        this.extrapolacionMaxima = EXTRAPOLACION_MAXIMA * ticksPorSegundo;
+
+        primero = 0;
+        cantidad = 0;
+        hayLlegadas = false;
+        intervaloMedio = 1f;
+        retardo = 2f;
+        tickRender = -1;
+    }
+
+    /**
+     * Resumen de una línea para la pantalla
+     */
+    public String getResumen() {
+        return "retardo: " + String.format("%.1f", retardo) +
+                " | jitter: " + String.format("%.2f", desfaseDesvio) +
+                " | extrapolados: " + framesExtrapolados +
+                " | detenidos: " + framesDetenidos;
+    }
+
+    // Getters
+    public int getTicksPorSegundo() {
+        return ticksPorSegundo;
+    }
+
+    public double getTickRender() {
+        return tickRender;
+    }
+
+    public float getRetardo() {
+        return retardo;
+    }
+
+    public float getIntervaloMedio() {
+        return intervaloMedio;
+    }
+
+    public float getDesfaseDesvio() {
+        return desfaseDesvio;
+    }
+
+    public long getRecibidos() {
+        return recibidos;
+    }
+
+    public long getDescartados() {
+        return descartados;
+    }
+
+    public long getFramesInterpolados() {
+        return framesInterpolados;
+    }
+
+    public long getFramesExtrapolados() {
+        return framesExtrapolados;
+    }
+
+    public long getFramesDetenidos() {
+        return framesDetenidos;
+    }
+
+    public long getSaltosReloj() {
+        return saltosReloj;
+    }
+}
@@ -0,0 +1,549 @@
+package com.dinosauriojuego.network;
+
+import com.dinosauriojuego.servidor.logica.GameSimulacion;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Conexión del cliente con el servidor autoritativo
+ *
+ * Un hilo recibe: contesta el handshake de texto ("Conexion" -> "OK;sesion;jugador;ticksPorSegundo" ->
+ * "Listo" -> "Empieza") reintentando mientras no haya respuesta, y decodifica los snapshots en su propio
+ * historial para poder leer los deltas. La pantalla toma los snapshots nuevos desde el hilo de
+ * render y envía por acá un paquete de input por tick, con el último snapshot decodificado como ack.
+ * La tasa de snapshots se puede pedir en cualquier momento; se repite al empezar la partida por si se perdió.
+ * Si el servidor da el lugar a un bot antes de recibir el "Listo" contesta "Expulsado" y se vuelve a conectar.
+ *
+ * En modo lockstep (pedido antes de empezar) el servidor no manda el estado sino los inputs que aplicó
+ * en cada tick: este hilo los pasa por una {@link GameSimulacion} propia sembrada igual y entrega el
+ * estado resultante como si fuera un snapshot, así la pantalla no distingue los modos. Cada tanto
+ * llega un hash del estado del servidor; si no coincide con el local se vuelve a pedir snapshots.
+ *
+ * Con el mundo por semilla los snapshots traen solo el estado de la sala y los dinosaurios: este hilo
+ * completa puntuación, velocidad y obstáculos con una simulación propia de un solo jugador que avanza
+ * únicamente el mundo, sembrada con la semilla de la partida, hasta los ticks que indica el servidor.
+ * Si para eso hay que simular más de AVANCE_MUNDO_MAXIMO segundos de una vez (entrar en una partida
+ * muy larga, o un paquete corrupto) se vuelve a pedir snapshots, que traen el mundo completo.
+ */
+public class ClienteRed extends Thread {
+
+    public static final int PUERTO_POR_DEFECTO = 8999;
+
+    // Estados de la conexión
+    public static final int ESTADO_CONECTANDO = 0;
+    public static final int ESTADO_ESPERANDO = 1;
+    public static final int ESTADO_JUGANDO = 2;
+    public static final int ESTADO_LLENO = 3;
+    public static final int ESTADO_CERRADO = 4;
+
+    // Tasa de simulación que se supone si el servidor no la anuncia en el "OK"
+    public static final int TICKS_POR_SEGUNDO_POR_DEFECTO = 60;
+
+    private static final int REINTENTO_MS = 500;
+    private static final int TAMANO_RECEPCION = 1500;
+
+    // Inputs enviados, indexados por secuencia; potencia de dos mayor que la redundancia
+    private static final int CAPACIDAD_INPUTS = 64;
+
+    // Snapshots decodificados que la pantalla todavía no tomó; si se llena se pisa el más viejo
+    private static final int CAPACIDAD_PENDIENTES = 16;
+
+    // Segundos de mundo que se simulan como máximo para completar un snapshot por semilla
+    private static final int AVANCE_MUNDO_MAXIMO = 180;
+
+    private final DatagramSocket socket;
+    private final InetSocketAddress servidor;
+    private volatile boolean running = true;
+    private volatile int estado = ESTADO_CONECTANDO;
+    private volatile int sesion = -1;
+    private volatile int jugador = -1;
+    private volatile int ticksPorSegundo = TICKS_POR_SEGUNDO_POR_DEFECTO;
+
+    // Snapshots por segundo pedidos al servidor (0 = los que él elija)
+    private volatile int snapshotsPorSegundo = 0;
+
+    // Recepción (solo la usa este hilo)
+    private final byte[] datosRecepcion = new byte[TAMANO_RECEPCION];
+    private final DatagramPacket paqueteRecepcion = new DatagramPacket(datosRecepcion, TAMANO_RECEPCION);
+    private final ByteBuffer bufferRecepcion = ByteBuffer.wrap(datosRecepcion);
+
+    // Snapshots: historial para decodificar deltas (solo lo usa este hilo) y los nuevos sin entregar,
+    // en orden (protegidos por this)
+    private final HistorialSnapshots historial = new HistorialSnapshots();
+    private final EstadoSnapshot[] pendientes = new EstadoSnapshot[CAPACIDAD_PENDIENTES];
+    private int primerPendiente = 0;
+    private int cantidadPendientes = 0;
+    private volatile int ultimoTickRecibido = -1;
+
+    // Envío de inputs (solo lo usa el hilo de render)
+    private final int[] inputs = new int[CAPACIDAD_INPUTS];
+    private int secuencia = -1;
+    private final ByteBuffer bufferEnvio = ByteBuffer.allocate(CodificadorInput.TAMANO_MAXIMO);
+    private final DatagramPacket paqueteEnvio;
+
+    // Modo de recepción pedido (CodificadorSnapshot.MODO_*)
+    private volatile int modo = CodificadorSnapshot.MODO_SNAPSHOTS;
+
+    // Lockstep: la simulación local y lo que necesita para avanzarla (solo las toca este hilo)
+    private final PaqueteLockstep paqueteLockstep = new PaqueteLockstep();
+    private final EstadoSnapshot capturaLockstep = new EstadoSnapshot();
+    private GameSimulacion simulacionLocal;
+    private int tickInicioLockstep = -1;
+    private int siguienteTickLockstep;
+    private float deltaLockstep;
+    private boolean[] saltarLockstep;
+    private boolean[] agacharLockstep;
+    private int[] rebobinadoLockstep;
+
+    // Mundo por semilla: solo avanza el mundo, sin jugadores, y el snapshot que completa (solo los toca este hilo)
+    private GameSimulacion mundoLocal;
+    private final EstadoSnapshot snapshotConMundo = new EstadoSnapshot();
+
+    // Estadísticas
+    private volatile long snapshotsRecibidos;
+    private volatile long snapshotsInvalidos;
+    private volatile long desincronizaciones;
+
+    public ClienteRed(String host, int puerto) throws SocketException {
+        super("ClienteRed");
+        setDaemon(true);
+        this.socket = new DatagramSocket();
+        this.servidor = new InetSocketAddress(host, puerto);
+        this.paqueteEnvio = new DatagramPacket(bufferEnvio.array(), 0, servidor);
+        for (int i = 0; i < CAPACIDAD_PENDIENTES; i++) {
+            pendientes[i] = new EstadoSnapshot();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            socket.setSoTimeout(REINTENTO_MS);
+        } catch (SocketException e) {
+            System.err.println("❌ Error al configurar el socket: " + e.getMessage());
+        }
+
+        enviarTexto("Conexion");
+        while (running) {
+            try {
+                paqueteRecepcion.setLength(TAMANO_RECEPCION);
+                socket.receive(paqueteRecepcion);
+                // Solo cuenta lo que manda el servidor: cualquier otro datagrama se descarta
+                if (servidor.equals(paqueteRecepcion.getSocketAddress())) {
+                    procesar(paqueteRecepcion.getLength());
+                }
+            } catch (SocketTimeoutException e) {
+                reintentar();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("❌ Error al recibir: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Repite el último mensaje del handshake si el servidor no contestó
+     */
+    private void reintentar() {
+        if (estado == ESTADO_CONECTANDO) {
+            enviarTexto("Conexion");
+        } else if (estado == ESTADO_ESPERANDO) {
+            if (modo != CodificadorSnapshot.MODO_SNAPSHOTS) {
+                enviarModo();
+            }
+            enviarTexto("Listo;" + sesion);
+        }
+    }
+
+    private void procesar(int longitud) {
+        if (CodificadorSnapshot.esSnapshot(datosRecepcion, 0, longitud)) {
+            procesarSnapshot(longitud);
+            return;
+        }
+        if (CodificadorLockstep.esLockstep(datosRecepcion, 0, longitud)) {
+            procesarLockstep(longitud);
+            return;
+        }
+
+        String mensaje = new String(datosRecepcion, 0, longitud, StandardCharsets.US_ASCII).trim();
+        if (mensaje.startsWith("OK;")) {
+            if (estado == ESTADO_CONECTANDO) {
+                String[] partes = mensaje.split(";");
+                if (partes.length < 3) {
+                    return;
+                }
+                try {
+                    int tasa = partes.length > 3 ? Integer.parseInt(partes[3]) : TICKS_POR_SEGUNDO_POR_DEFECTO;
+                    if (tasa <= 0) {
+                        return;
+                    }
+                    ticksPorSegundo = tasa;
+                    jugador = Integer.parseInt(partes[2]);
+                    sesion = Integer.parseInt(partes[1]);
+                } catch (NumberFormatException e) {
+                    return;
+                }
+                estado = ESTADO_ESPERANDO;
+                System.out.println("✅ Conectado al servidor (sesión " + sesion + ", jugador " + (jugador + 1) +
+                        ", " + ticksPorSegundo + " ticks/s)");
+                enviarTasa();
+                // El modo va antes del "Listo": el servidor solo acepta lockstep si la partida no empezó
+                if (modo != CodificadorSnapshot.MODO_SNAPSHOTS) {
+                    enviarModo();
+                }
+                enviarTexto("Listo;" + sesion);
+            }
+        } else if (mensaje.equals("Full")) {
+            estado = ESTADO_LLENO;
+            System.out.println("⚠️ Servidor lleno");
+        } else if (mensaje.equals("Expulsado")) {
+            if (estado == ESTADO_ESPERANDO) {
+                // La sesión ya no existe: se pide otra, reintentando como al arrancar
+                sesion = -1;
+                jugador = -1;
+                estado = ESTADO_CONECTANDO;
+                System.out.println("⏱️ El servidor dio el lugar a un bot, reconectando");
+                enviarTexto("Conexion");
+            }
+        } else if (mensaje.equals("Empieza")) {
+            estado = ESTADO_JUGANDO;
+            enviarTasa();
+        }
+    }
+
+    private void procesarSnapshot(int longitud) {
+        // Si llegan snapshots es que el servidor no aceptó el lockstep o nos sacó de él
+        if (modo == CodificadorSnapshot.MODO_LOCKSTEP) {
+            modo = CodificadorSnapshot.MODO_SNAPSHOTS;
+            System.out.println("📦 El servidor envía snapshots: se deja el modo lockstep");
+        }
+
+        long llegada = System.nanoTime();
+        bufferRecepcion.clear();
+        bufferRecepcion.limit(longitud);
+
+        EstadoSnapshot estadoRecibido = CodificadorSnapshot.decodificar(bufferRecepcion, historial);
+        if (estadoRecibido == null) {
+            snapshotsInvalidos++;
+            return;
+        }
+        snapshotsRecibidos++;
+
+        // Uno atrasado sirve como base de deltas, pero no se entrega: llegaría fuera de orden
+        if (estadoRecibido.tick > ultimoTickRecibido) {
+            EstadoSnapshot entregado = estadoRecibido;
+            if (estadoRecibido.mundoPorSemilla) {
+                // El mundo se completa en una copia, así el historial queda como llegó, y fuera del
+                // lock para no frenar a la pantalla
+                snapshotConMundo.copiarDe(estadoRecibido);
+                if (!regenerarMundo(snapshotConMundo)) {
+                    snapshotsInvalidos++;
+                    modo = CodificadorSnapshot.MODO_SNAPSHOTS;
+                    enviarModo();
+                    return;
+                }
+                entregado = snapshotConMundo;
+            }
+            entregado.llegada = llegada;
+            synchronized (this) {
+                encolar(entregado);
+            }
+            ultimoTickRecibido = estadoRecibido.tick;
+        }
+
+        // Si se perdió "Empieza", el primer snapshot alcanza para saber que la partida arrancó
+        if (estado == ESTADO_ESPERANDO) {
+            estado = ESTADO_JUGANDO;
+        }
+    }
+
+    private void procesarLockstep(int longitud) {
+        long llegada = System.nanoTime();
+        bufferRecepcion.clear();
+        bufferRecepcion.limit(longitud);
+        if (!CodificadorLockstep.decodificar(bufferRecepcion, paqueteLockstep)) {
+            snapshotsInvalidos++;
+            return;
+        }
+        // Uno atrasado, de antes de volver a snapshots
+        if (modo != CodificadorSnapshot.MODO_LOCKSTEP) {
+            return;
+        }
+        snapshotsRecibidos++;
+
+        synchronized (this) {
+            if (aplicarLockstep(paqueteLockstep)) {
+                // El snapshot de tick t es el estado después de simular los inputs de t - 1, como en el servidor
+                capturaLockstep.capturar(simulacionLocal, siguienteTickLockstep, true, paqueteLockstep.resetListos);
+                capturaLockstep.inputAplicado = paqueteLockstep.inputAplicado;
+                CodificadorSnapshot.normalizar(capturaLockstep);
+                capturaLockstep.llegada = llegada;
+                encolar(capturaLockstep);
+                ultimoTickRecibido = siguienteTickLockstep - 1;
+            }
+        }
+
+        if (estado == ESTADO_ESPERANDO) {
+            estado = ESTADO_JUGANDO;
+        }
+    }
+
+    /**
+     * Simula los ticks del paquete que todavía no se simularon
+     * @return true si la simulación local avanzó
+     */
+    private boolean aplicarLockstep(PaqueteLockstep paquete) {
+        if (paquete.inicio && paquete.desde != tickInicioLockstep) {
+            iniciarLockstep(paquete);
+        }
+        // Sin el comienzo de la partida, o con un hueco antes del rango, se espera al próximo:
+        // el servidor reenvía desde el último tick confirmado
+        if (simulacionLocal == null || paquete.desde > siguienteTickLockstep
+                || paquete.jugadores != simulacionLocal.jugadores.cantidad) {
+            return false;
+        }
+
+        int anterior = siguienteTickLockstep;
+        for (int k = siguienteTickLockstep - paquete.desde; k < paquete.cantidad; k++) {
+            int tick = paquete.desde + k;
+            for (int i = 0; i < paquete.jugadores; i++) {
+                int entrada = paquete.getInput(k, i);
+                int bits = HistorialInputs.bitsDeInput(entrada);
+                saltarLockstep[i] = (bits & PaqueteInput.SALTAR) != 0;
+                agacharLockstep[i] = (bits & PaqueteInput.AGACHAR) != 0;
+                rebobinadoLockstep[i] = HistorialInputs.rebobinadoDeInput(entrada);
+            }
+            simulacionLocal.actualizar(deltaLockstep, saltarLockstep, agacharLockstep, rebobinadoLockstep);
+            if (paquete.reinicio && k == paquete.cantidad - 1) {
+                simulacionLocal.reset(paquete.semillaReinicio);
+            }
+            siguienteTickLockstep = tick + 1;
+
+            if (paquete.conHash && tick == paquete.tickHash && simulacionLocal.calcularHash() != paquete.hash) {
+                desincronizaciones++;
+                System.out.println("⚠️ Lockstep desincronizado en el tick " + tick + ": se vuelve a snapshots");
+                modo = CodificadorSnapshot.MODO_SNAPSHOTS;
+                enviarModo();
+                break;
+            }
+        }
+        return siguienteTickLockstep > anterior;
+    }
+
+    private void iniciarLockstep(PaqueteLockstep paquete) {
+        int n = paquete.jugadores;
+        if (simulacionLocal == null || simulacionLocal.jugadores.cantidad != n) {
+            simulacionLocal = new GameSimulacion(n, paquete.semilla);
+            saltarLockstep = new boolean[n];
+            agacharLockstep = new boolean[n];
+            rebobinadoLockstep = new int[n];
+        } else {
+            simulacionLocal.reset(paquete.semilla);
+        }
+        // Mismo paso fijo que el servidor, calculado igual
+        deltaLockstep = 1f / paquete.ticksPorSegundo;
+        tickInicioLockstep = paquete.desde;
+        siguienteTickLockstep = paquete.desde;
+        System.out.println("🔗 Lockstep: partida de " + n + " jugadores desde el tick " + paquete.desde);
+    }
+
+    /**
+     * Completa un snapshot que llegó sin mundo con el que se genera acá a partir de la semilla
+     * Los snapshots llegan en orden, así que casi siempre alcanza con avanzar unos pocos ticks;
+     * solo una semilla nueva (o un reinicio) hace volver a empezar
+     * @return false si habría que simular más de AVANCE_MUNDO_MAXIMO segundos (el snapshot queda sin completar)
+     */
+    private boolean regenerarMundo(EstadoSnapshot destino) {
+        boolean reiniciar = mundoLocal == null || mundoLocal.getSemilla() != destino.semilla
+                || mundoLocal.getTickSimulacion() > destino.tickMundo;
+        int faltan = destino.tickMundo - (reiniciar ? 0 : mundoLocal.getTickSimulacion());
+        if (faltan > AVANCE_MUNDO_MAXIMO * ticksPorSegundo) {
+            System.out.println("⚠️ El mundo por semilla pide simular " + faltan + " ticks: se vuelve a snapshots");
+            return false;
+        }
+
+        if (mundoLocal == null) {
+            mundoLocal = new GameSimulacion(1, destino.semilla);
+        } else if (reiniciar) {
+            mundoLocal.reset(destino.semilla);
+        }
+        // Mismo paso fijo que el servidor, calculado igual
+        float deltaTime = 1f / destino.ticksPorSegundo;
+        while (mundoLocal.getTickSimulacion() < destino.tickMundo) {
+            mundoLocal.actualizarMundo(deltaTime);
+        }
+        destino.capturarMundo(mundoLocal);
+        CodificadorSnapshot.normalizar(destino);
+        return true;
+    }
+
+    /**
+     * @return la copia encolada
+     */
+    private EstadoSnapshot encolar(EstadoSnapshot estadoRecibido) {
+        if (cantidadPendientes == CAPACIDAD_PENDIENTES) {
+            primerPendiente = (primerPendiente + 1) % CAPACIDAD_PENDIENTES;
+            cantidadPendientes--;
+        }
+        int i = (primerPendiente + cantidadPendientes) % CAPACIDAD_PENDIENTES;
+        pendientes[i].copiarDe(estadoRecibido);
+        cantidadPendientes++;
+        return pendientes[i];
+    }
+
+    /**
+     * Copia en destino el snapshot pendiente más viejo; llamándolo hasta que devuelva false
+     * se reciben todos en orden de tick
+     * @return false si no hay nada nuevo
+     */
+    public synchronized boolean tomarSnapshot(EstadoSnapshot destino) {
+        if (cantidadPendientes == 0) {
+            return false;
+        }
+        destino.copiarDe(pendientes[primerPendiente]);
+        primerPendiente = (primerPendiente + 1) % CAPACIDAD_PENDIENTES;
+        cantidadPendientes--;
+        return true;
+    }
+
+    /**
+     * Envía el input de un tick junto con los anteriores, por si se perdió algún paquete
+     * @param retrasoVista ticks entre este input y el mundo que se estaba dibujando, para que el
+     *                     servidor juzgue las colisiones contra lo que vio el jugador
+     */
+    public void enviarInput(int tick, int bits, int retrasoVista) {
+        if (sesion < 0) {
+            return;
+        }
+        secuencia++;
+        inputs[secuencia & (CAPACIDAD_INPUTS - 1)] = bits;
+
+        bufferEnvio.clear();
+        CodificadorInput.codificar(bufferEnvio, sesion, ultimoTickRecibido, secuencia, tick,
+                retrasoVista, inputs, CodificadorInput.REDUNDANCIA);
+        paqueteEnvio.setLength(bufferEnvio.position());
+        try {
+            socket.send(paqueteEnvio);
+        } catch (IOException e) {
+            System.err.println("❌ Error al enviar input: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Pide al servidor otra cantidad de snapshots por segundo (la limita a su tasa de simulación)
+     * Menos snapshots ahorran ancho de banda a cambio de un retardo de interpolación mayor
+     */
+    public void pedirSnapshotsPorSegundo(int tasa) {
+        snapshotsPorSegundo = tasa;
+        enviarTasa();
+    }
+
+    /**
+     * Pide otro modo de recepción (CodificadorSnapshot.MODO_*)
+     * El lockstep tiene que pedirse antes de que empiece; si el servidor no lo acepta se siguen
+     * recibiendo snapshots. El mundo por semilla se puede pedir en cualquier momento
+     */
+    public void pedirModo(int nuevo) {
+        modo = nuevo;
+        enviarModo();
+    }
+
+    private void enviarModo() {
+        if (sesion >= 0) {
+            enviarTexto("MODO;" + sesion + ";" + modo);
+        }
+    }
+
+    private void enviarTasa() {
+        if (sesion >= 0 && snapshotsPorSegundo > 0) {
+            enviarTexto("TASA;" + sesion + ";" + snapshotsPorSegundo);
+        }
+    }
+
+    /**
+     * Pide jugar otra vez cuando terminó la partida
+     */
+    public void enviarReset() {
+        if (sesion >= 0) {
+            enviarTexto("RESET;" + sesion);
+        }
+    }
+
+    private void enviarTexto(String mensaje) {
+        byte[] datos = mensaje.getBytes(StandardCharsets.US_ASCII);
+        try {
+            socket.send(new DatagramPacket(datos, datos.length, servidor));
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("❌ Error al enviar: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Avisa al servidor que se va y cierra el socket
+     */
+    public void cerrar() {
+        if (sesion >= 0) {
+            enviarTexto("Salir;" + sesion);
+        }
+        running = false;
+        estado = ESTADO_CERRADO;
+        socket.close();
+    }
+
+    // Getters
+    public int getEstado() {
+        return estado;
+    }
+
+    public int getSesion() {
+        return sesion;
+    }
+
+    /**
+     * Índice del jugador propio dentro de los snapshots
+     */
+    public int getJugador() {
+        return jugador;
+    }
+
+    /**
+     * Tasa de simulación del servidor: los inputs se numeran y se predicen con este paso fijo
+     */
+    public int getTicksPorSegundo() {
+        return ticksPorSegundo;
+    }
+
+    public int getSnapshotsPorSegundo() {
+        return snapshotsPorSegundo;
+    }
+
+    public int getUltimoTickRecibido() {
+        return ultimoTickRecibido;
+    }
+
+    public long getSnapshotsRecibidos() {
+        return snapshotsRecibidos;
+    }
+
+    public long getSnapshotsInvalidos() {
+        return snapshotsInvalidos;
+    }
+
+    public int getModo() {
+        return modo;
+    }
+
+    public long getDesincronizaciones() {
+        return desincronizaciones;
+    }
+}
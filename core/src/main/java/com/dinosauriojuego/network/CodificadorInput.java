@@ -0,0 +1,107 @@
+package com.dinosauriojuego.network;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Codificador/decodificador binario de los paquetes de input cliente -> servidor
+ *
+ * Cada input lleva número de secuencia y tick objetivo, y cada paquete repite los últimos
+ * inputs empaquetados a 2 bits, así que perder un paquete no pierde un salto: el siguiente
+ * lo vuelve a traer. Formato (big-endian):
+ * <pre>
+ *  byte   MAGIA (0xD6, nunca es un carácter ASCII de los mensajes de texto)
+ *  int    sesión
+ *  int    último snapshot decodificado por el cliente (-1 si ninguno)
+ *  int    secuencia del input más nuevo
+ *  int    tick objetivo del input más nuevo
+ *  byte   retraso de lo que ve el cliente: tick objetivo - tick que estaba dibujando (0..255)
+ *  byte   cantidad de inputs (1..32)
+ *  2 bits por input (saltar | agachar), del más nuevo al más viejo, 4 por byte
+ * </pre>
+ */
+public final class CodificadorInput {
+
+    public static final byte MAGIA = (byte) 0xD6;
+
+    // Con 16 inputs repetidos el paquete pesa 23 bytes y un salto sobrevive a 15 pérdidas seguidas
+    public static final int REDUNDANCIA = 16;
+
+    public static final int RETRASO_VISTA_MAXIMO = 255;
+
+    private static final int TAMANO_CABECERA = 1 + 4 + 4 + 4 + 4 + 1 + 1;
+    public static final int TAMANO_MAXIMO = TAMANO_CABECERA + (PaqueteInput.MAX_INPUTS + 3) / 4;
+
+    private CodificadorInput() {
+    }
+
+    /**
+     * Escribe el paquete en el buffer a partir de su posición actual
+     * @param anillo inputs del cliente, el de secuencia s en anillo[s & (anillo.length - 1)];
+     *               su largo tiene que ser potencia de dos y no menor que cantidad
+     * @param retrasoVista ticks entre el input más nuevo y el mundo que el cliente estaba dibujando
+     */
+    public static void codificar(ByteBuffer buffer, int sesion, int ackSnapshot, int secuencia, int tick,
+                                 int retrasoVista, int[] anillo, int cantidad) {
+        cantidad = Math.max(1, Math.min(cantidad, Math.min(PaqueteInput.MAX_INPUTS, secuencia + 1)));
+        int mascara = anillo.length - 1;
+
+        buffer.put(MAGIA);
+        buffer.putInt(sesion);
+        buffer.putInt(ackSnapshot);
+        buffer.putInt(secuencia);
+        buffer.putInt(tick);
+        buffer.put((byte) Math.max(0, Math.min(RETRASO_VISTA_MAXIMO, retrasoVista)));
+        buffer.put((byte) cantidad);
+
+        int acumulado = 0;
+        for (int k = 0; k < cantidad; k++) {
+            acumulado |= (anillo[(secuencia - k) & mascara] & 3) << ((k & 3) * 2);
+            if ((k & 3) == 3) {
+                buffer.put((byte) acumulado);
+                acumulado = 0;
+            }
+        }
+        if ((cantidad & 3) != 0) {
+            buffer.put((byte) acumulado);
+        }
+    }
+
+    /**
+     * Lee un paquete desde el inicio del buffer (sin mover su posición) y lo deja en destino
+     * @return false si no es un paquete de input válido
+     */
+    public static boolean decodificar(ByteBuffer buffer, PaqueteInput destino) {
+        int limite = buffer.limit();
+        if (limite < TAMANO_CABECERA || buffer.get(0) != MAGIA) {
+            return false;
+        }
+
+        int cantidad = buffer.get(18) & 0xFF;
+        if (cantidad < 1 || cantidad > PaqueteInput.MAX_INPUTS || limite < TAMANO_CABECERA + (cantidad + 3) / 4) {
+            return false;
+        }
+
+        destino.sesion = buffer.getInt(1);
+        destino.ackSnapshot = buffer.getInt(5);
+        destino.secuencia = buffer.getInt(9);
+        destino.tick = buffer.getInt(13);
+        destino.retrasoVista = buffer.get(17) & 0xFF;
+        destino.cantidad = cantidad;
+        if (destino.secuencia < 0) {
+            return false;
+        }
+
+        for (int k = 0; k < cantidad; k++) {
+            int b = buffer.get(TAMANO_CABECERA + (k >> 2)) & 0xFF;
+            destino.inputs[k] = (b >> ((k & 3) * 2)) & 3;
+        }
+        return true;
+    }
+
+    /**
+     * Indica si los datos recibidos son un paquete de input y no un mensaje de texto
+     */
+    public static boolean esInput(ByteBuffer buffer) {
+        return buffer.limit() > 0 && buffer.get(0) == MAGIA;
+    }
+}
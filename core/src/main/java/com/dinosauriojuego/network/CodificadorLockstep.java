@@ -0,0 +1,205 @@
+package com.dinosauriojuego.network;
+
+import com.dinosauriojuego.servidor.logica.GameSimulacion;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Codificador/decodificador binario de los paquetes del modo lockstep servidor -> cliente
+ *
+ * En lugar del estado, el servidor envía los inputs que aplicó en cada tick desde el último que el
+ * cliente confirmó; el cliente los pasa por su propia {@link GameSimulacion}, sembrada igual, y
+ * llega al mismo mundo. Un jugador que no toca nada repite su input, así que cada tick solo lleva
+ * una máscara de los jugadores cuyo input cambió respecto del tick anterior y un byte por cada uno.
+ * Formato (big-endian):
+ * <pre>
+ *  byte   MAGIA (0xD7, nunca es un carácter ASCII de los mensajes de texto)
+ *  byte   flags: bit0 inicio, bit1 reinicio, bit2 hash
+ *  int    primer tick del rango
+ *  byte   cantidad de ticks (0..128)
+ *  byte   jugadores
+ *  byte   jugadores que pidieron otra partida
+ *  int    último tick de input del destinatario ya aplicado (-1 si ninguno)
+ *  (inicio)  long semilla, short ticks por segundo: el rango empieza en el primer tick de la partida
+ *  (hash)    byte tick del hash - primer tick, int hash del estado al terminar ese tick
+ *  (reinicio) long semilla de la partida siguiente
+ *  por tick: máscara de jugadores cambiados, un bit por jugador, y un byte por cambiado
+ *            (saltar | agachar | rebobinado << 2); el primero del paquete se compara contra 0
+ * </pre>
+ * Si el flag de reinicio está, la partida se reinició después de simular el último tick del rango;
+ * un paquete nunca lleva más de un reinicio.
+ *
+ * Cada paquete se decodifica solo, sin base: perder uno no rompe nada, porque el siguiente vuelve a
+ * empezar desde el último tick confirmado.
+ */
+public final class CodificadorLockstep {
+
+    public static final byte MAGIA = (byte) 0xD7;
+
+    private static final int FLAG_INICIO = 1;
+    private static final int FLAG_REINICIO = 1 << 1;
+    private static final int FLAG_HASH = 1 << 2;
+
+    public static final int TAMANO_CABECERA = 1 + 1 + 4 + 1 + 1 + 1 + 4;
+    private static final int TAMANO_INICIO = 8 + 2;
+    private static final int TAMANO_HASH = 1 + 4;
+    private static final int TAMANO_REINICIO = 8;
+
+    private CodificadorLockstep() {
+    }
+
+    /**
+     * Escribe los inputs de [desde, hasta) a partir de la posición actual del buffer
+     * Si no entran todos (o hay un reinicio en el medio) el rango se corta antes; el resto va en el próximo
+     * @param inputAplicado último tick de input del destinatario que ya aplicó el servidor
+     * @return el tick siguiente al último incluido
+     */
+    public static int codificar(HistorialInputs historial, int desde, int hasta, int resetListos,
+                                int inputAplicado, ByteBuffer buffer) {
+        int n = historial.getJugadores();
+        int bytesMascara = (n + 7) / 8;
+        boolean inicio = desde == historial.getTickInicio();
+
+        // Ticks que entran, cortando después del primer reinicio
+        int espacio = buffer.remaining() - TAMANO_CABECERA - TAMANO_INICIO - TAMANO_HASH - TAMANO_REINICIO;
+        int fin = desde;
+        while (fin < hasta && fin - desde < PaqueteLockstep.MAX_TICKS) {
+            int tamano = bytesMascara + contarCambiados(historial, fin, fin == desde);
+            if (tamano > espacio) {
+                break;
+            }
+            espacio -= tamano;
+            fin++;
+            if (historial.esReinicio(fin - 1)) {
+                break;
+            }
+        }
+        boolean reinicio = fin > desde && historial.esReinicio(fin - 1);
+
+        // El hash más nuevo dentro del rango
+        int tickHash = fin - 1;
+        while (tickHash >= desde && !historial.tieneHash(tickHash)) {
+            tickHash--;
+        }
+        boolean conHash = tickHash >= desde;
+
+        int flags = (inicio ? FLAG_INICIO : 0) | (reinicio ? FLAG_REINICIO : 0) | (conHash ? FLAG_HASH : 0);
+        buffer.put(MAGIA);
+        buffer.put((byte) flags);
+        buffer.putInt(desde);
+        buffer.put((byte) (fin - desde));
+        buffer.put((byte) n);
+        buffer.put((byte) resetListos);
+        buffer.putInt(inputAplicado);
+        if (inicio) {
+            buffer.putLong(historial.getSemilla());
+            buffer.putShort((short) historial.getTicksPorSegundo());
+        }
+        if (conHash) {
+            buffer.put((byte) (tickHash - desde));
+            buffer.putInt(historial.getHash(tickHash));
+        }
+        if (reinicio) {
+            buffer.putLong(historial.getSemillaReinicio(fin - 1));
+        }
+
+        for (int tick = desde; tick < fin; tick++) {
+            boolean primero = tick == desde;
+            for (int byteMascara = 0; byteMascara < bytesMascara; byteMascara++) {
+                int bits = 0;
+                for (int j = 0; j < 8; j++) {
+                    int i = byteMascara * 8 + j;
+                    if (i < n && cambio(historial, tick, i, primero)) bits |= 1 << j;
+                }
+                buffer.put((byte) bits);
+            }
+            for (int i = 0; i < n; i++) {
+                if (cambio(historial, tick, i, primero)) {
+                    buffer.put((byte) historial.getInput(tick, i));
+                }
+            }
+        }
+        return fin;
+    }
+
+    private static int contarCambiados(HistorialInputs historial, int tick, boolean primero) {
+        int cambiados = 0;
+        for (int i = 0; i < historial.getJugadores(); i++) {
+            if (cambio(historial, tick, i, primero)) {
+                cambiados++;
+            }
+        }
+        return cambiados;
+    }
+
+    private static boolean cambio(HistorialInputs historial, int tick, int jugador, boolean primero) {
+        int anterior = primero ? 0 : historial.getInput(tick - 1, jugador);
+        return historial.getInput(tick, jugador) != anterior;
+    }
+
+    /**
+     * Lee un paquete desde la posición actual del buffer y lo deja en destino
+     * @return false si no es un paquete lockstep válido
+     */
+    public static boolean decodificar(ByteBuffer buffer, PaqueteLockstep destino) {
+        if (buffer.remaining() < TAMANO_CABECERA || buffer.get() != MAGIA) {
+            return false;
+        }
+
+        try {
+            int flags = buffer.get();
+            destino.desde = buffer.getInt();
+            destino.cantidad = buffer.get() & 0xFF;
+            destino.jugadores = buffer.get() & 0xFF;
+            destino.resetListos = buffer.get() & 0xFF;
+            destino.inputAplicado = buffer.getInt();
+            int n = destino.jugadores;
+            if (destino.cantidad > PaqueteLockstep.MAX_TICKS || n < 1 || n > GameSimulacion.MAX_JUGADORES) {
+                return false;
+            }
+
+            destino.inicio = (flags & FLAG_INICIO) != 0;
+            if (destino.inicio) {
+                destino.semilla = buffer.getLong();
+                destino.ticksPorSegundo = buffer.getShort() & 0xFFFF;
+                if (destino.ticksPorSegundo == 0) {
+                    return false;
+                }
+            }
+            destino.conHash = (flags & FLAG_HASH) != 0;
+            if (destino.conHash) {
+                destino.tickHash = destino.desde + (buffer.get() & 0xFF);
+                destino.hash = buffer.getInt();
+            }
+            destino.reinicio = (flags & FLAG_REINICIO) != 0;
+            if (destino.reinicio) {
+                destino.semillaReinicio = buffer.getLong();
+            }
+
+            int bytesMascara = (n + 7) / 8;
+            for (int k = 0; k < destino.cantidad; k++) {
+                if (buffer.remaining() < bytesMascara) {
+                    return false;
+                }
+                int posicionMascara = buffer.position();
+                buffer.position(posicionMascara + bytesMascara);
+                for (int i = 0; i < n; i++) {
+                    int bits = buffer.get(posicionMascara + i / 8);
+                    byte anterior = k == 0 ? 0 : destino.inputs[(k - 1) * n + i];
+                    destino.inputs[k * n + i] = (bits & (1 << (i & 7))) != 0 ? buffer.get() : anterior;
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Indica si los datos recibidos son un paquete lockstep
+     */
+    public static boolean esLockstep(byte[] datos, int offset, int longitud) {
+        return longitud > 0 && datos[offset] == MAGIA;
+    }
+}
@@ -0,0 +1,658 @@
+package com.dinosauriojuego.network;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Codificador/decodificador binario de snapshots compartido por servidor y clientes
+ *
+ * Un snapshot es completo (keyframe) o un delta contra una base que el cliente ya confirmó.
+ * Formato (versión 5, big-endian):
+ * <pre>
+ *  byte   MAGIA (0xD5, nunca es un carácter ASCII de los mensajes de texto)
+ *  byte   VERSION
+ *  byte   tipo: 0 completo, 1 delta; bit7 mundo por semilla
+ *  int    tick
+ *  int    último tick de input del destinatario ya aplicado (-1 si ninguno)
+ *  byte   (solo delta) antigüedad de la base en ticks
+ *  byte   máscara de bloques presentes (en un completo van todos)
+ *
+ *  ESTADO      byte flags (bit0 iniciado, bit1 terminado), byte resultado, byte reset listos
+ *  PUNTUACION  int
+ *  VELOCIDAD   en 1/1024; completo: int; delta: short con la diferencia
+ *  JUGADORES   byte cantidad; (delta) máscara de jugadores cambiados, un bit por jugador;
+ *              short por jugador (en un delta solo los cambiados): y en 1/16 px (12 bits) | enSuelo | agachado | vivo,
+ *              seguido, solo si está en el aire, de un short con su velocidad vertical en 1/16 px/s
+ *  OBSTACULOS  completo: int primer id, byte cantidad, y por obstáculo
+ *                        byte tipo (bit7) | variante (bits 0-6), short x, short y en 1/16 px
+ *              delta: short desplazamiento del mundo en 1/16 px, byte descartados del frente,
+ *                     byte conocidos, byte nuevos, 2 bits de residuo por conocido
+ *                     (0, +1, -1 o escape), un short x por cada escape, y los nuevos completos
+ *  MUNDO       long semilla de la partida, int ticks del mundo desde el reinicio, short ticks por segundo
+ * </pre>
+ * Un jugador corriendo en el suelo no cambia entre ticks, así que en una sala grande el delta
+ * solo lleva a los que están saltando o acaban de caer: crece con la actividad, no con la cantidad.
+ * Los obstáculos conocidos por la base se predicen desplazándolos lo que avanzó el mundo,
+ * así que en estado estable solo viajan sus residuos de redondeo.
+ *
+ * Todo valor decodificado coincide con el estado normalizado (ver {@link #normalizar}), sin
+ * importar contra qué base se armó el delta. Por eso el servidor puede guardar un único
+ * historial por sala y usarlo como base para cualquiera de sus clientes. El input aplicado es lo
+ * único propio de cada destinatario y no forma parte del estado compartido.
+ *
+ * La velocidad vertical y el input aplicado le permiten al cliente reconciliar su predicción:
+ * parte del estado autoritativo y vuelve a simular los inputs que el servidor todavía no aplicó.
+ *
+ * Con el mundo por semilla ({@link #MODO_SEMILLA}) no viajan puntuación, velocidad ni obstáculos:
+ * el mundo no depende de los jugadores, así que el cliente lo rehace con la semilla y los ticks
+ * del bloque MUNDO. Ese bloque va en los completos y en un delta solo si cambió la semilla o los
+ * ticks no son los que se predicen desde la base (reinicio o fin de partida); en una partida en
+ * curso no se repite. Los dinosaurios, las muertes y el resultado siguen viniendo del servidor.
+ */
+public final class CodificadorSnapshot {
+
+    public static final byte MAGIA = (byte) 0xD5;
+    public static final byte VERSION = 5;
+
+    private static final byte TIPO_COMPLETO = 0;
+    private static final byte TIPO_DELTA = 1;
+    private static final int TIPO_POR_SEMILLA = 0x80;
+
+    // Modos de recepción que puede pedir un cliente con "MODO;sesion;modo"
+    public static final int MODO_SNAPSHOTS = 0;
+    public static final int MODO_LOCKSTEP = 1;
+    public static final int MODO_SEMILLA = 2;
+
+    // Tamaño máximo de un snapshot codificado con la mayor cantidad de jugadores posible
+    public static final int TAMANO_MAXIMO = tamanoMaximo(EstadoSnapshot.MAX_JUGADORES);
+
+    // Punto fijo: las posiciones viajan en dieciseisavos de píxel
+    private static final float ESCALA = 16f;
+    private static final float ESCALA_VELOCIDAD = 1024f;
+    private static final int MASCARA_Y_JUGADOR = 0x0FFF;
+
+    // Bloques de la máscara
+    private static final int BLOQUE_ESTADO = 1;
+    private static final int BLOQUE_PUNTUACION = 1 << 1;
+    private static final int BLOQUE_VELOCIDAD = 1 << 2;
+    private static final int BLOQUE_JUGADORES = 1 << 3;
+    private static final int BLOQUE_OBSTACULOS = 1 << 4;
+    private static final int BLOQUE_MUNDO = 1 << 5;
+    private static final int TODOS_LOS_BLOQUES = 0x1F;
+    private static final int BLOQUES_POR_SEMILLA = BLOQUE_ESTADO | BLOQUE_JUGADORES | BLOQUE_MUNDO;
+
+    private static final int FLAG_INICIADO = 1;
+    private static final int FLAG_TERMINADO = 1 << 1;
+
+    private static final int BIT_EN_SUELO = 1 << 12;
+    private static final int BIT_AGACHADO = 1 << 13;
+    private static final int BIT_VIVO = 1 << 14;
+
+    // Residuos de 2 bits de los obstáculos conocidos
+    private static final int RESIDUO_CERO = 0;
+    private static final int RESIDUO_MAS_UNO = 1;
+    private static final int RESIDUO_MENOS_UNO = 2;
+    private static final int RESIDUO_ESCAPE = 3;
+
+    private CodificadorSnapshot() {
+    }
+
+    /**
+     * Cota del tamaño codificado (completo o delta) de un snapshot con esa cantidad de jugadores
+     * Con el mundo por semilla el bloque MUNDO reemplaza a otros más grandes, así que también la respeta
+     */
+    public static int tamanoMaximo(int jugadores) {
+        return 13                                           // cabecera
+                + 3 + 4 + 4                                 // estado, puntuación, velocidad
+                + 1 + (jugadores + 7) / 8 + jugadores * 4   // jugadores con su máscara
+                + 9 + EstadoSnapshot.MAX_OBSTACULOS * 5;    // obstáculos con sus residuos
+    }
+
+    /**
+     * Escribe el estado en el buffer a partir de su posición actual
+     * @param base estado confirmado por el cliente, o null para enviar un completo
+     * @param inputAplicado último tick de input del destinatario que ya aplicó el servidor
+     */
+    public static void codificar(EstadoSnapshot estado, EstadoSnapshot base, int inputAplicado, ByteBuffer buffer) {
+        codificar(estado, base, inputAplicado, false, buffer);
+    }
+
+    /**
+     * @param porSemilla si el destinatario rehace el mundo con la semilla (sin puntuación, velocidad ni obstáculos)
+     */
+    public static void codificar(EstadoSnapshot estado, EstadoSnapshot base, int inputAplicado,
+                                 boolean porSemilla, ByteBuffer buffer) {
+        if (base == null || !sePuedeCodificarDelta(estado, base, porSemilla)) {
+            codificarCompleto(estado, inputAplicado, porSemilla, buffer);
+        } else {
+            codificarDelta(estado, base, inputAplicado, porSemilla, buffer);
+        }
+    }
+
+    private static void codificarCompleto(EstadoSnapshot estado, int inputAplicado, boolean porSemilla,
+                                          ByteBuffer buffer) {
+        buffer.put(MAGIA);
+        buffer.put(VERSION);
+        buffer.put((byte) (TIPO_COMPLETO | (porSemilla ? TIPO_POR_SEMILLA : 0)));
+        buffer.putInt(estado.tick);
+        buffer.putInt(inputAplicado);
+        buffer.put((byte) (porSemilla ? BLOQUES_POR_SEMILLA : TODOS_LOS_BLOQUES));
+
+        escribirEstado(estado, buffer);
+        if (!porSemilla) {
+            buffer.putInt(estado.puntuacion);
+            buffer.putInt(cuantizarVelocidad(estado.velocidad));
+        }
+
+        buffer.put((byte) estado.cantidadJugadores);
+        for (int i = 0; i < estado.cantidadJugadores; i++) {
+            escribirJugador(estado, i, buffer);
+        }
+
+        if (porSemilla) {
+            escribirMundo(estado, buffer);
+            return;
+        }
+        buffer.putInt(estado.cantidadObstaculos > 0 ? estado.obstaculoId[0] : 0);
+        buffer.put((byte) estado.cantidadObstaculos);
+        for (int i = 0; i < estado.cantidadObstaculos; i++) {
+            escribirObstaculo(estado, i, buffer);
+        }
+    }
+
+    private static void codificarDelta(EstadoSnapshot estado, EstadoSnapshot base, int inputAplicado,
+                                       boolean porSemilla, ByteBuffer buffer) {
+        buffer.put(MAGIA);
+        buffer.put(VERSION);
+        buffer.put((byte) (TIPO_DELTA | (porSemilla ? TIPO_POR_SEMILLA : 0)));
+        buffer.putInt(estado.tick);
+        buffer.putInt(inputAplicado);
+        buffer.put((byte) (estado.tick - base.tick));
+
+        int mascara = 0;
+        if (estado.juegoIniciado != base.juegoIniciado || estado.terminado != base.terminado
+                || estado.resultado != base.resultado || estado.resetListos != base.resetListos) {
+            mascara |= BLOQUE_ESTADO;
+        }
+        if (jugadoresCambiados(estado, base)) mascara |= BLOQUE_JUGADORES;
+        if (porSemilla) {
+            if (mundoCambiado(estado, base)) mascara |= BLOQUE_MUNDO;
+        } else {
+            if (estado.puntuacion != base.puntuacion) mascara |= BLOQUE_PUNTUACION;
+            if (cuantizarVelocidad(estado.velocidad) != cuantizarVelocidad(base.velocidad)) mascara |= BLOQUE_VELOCIDAD;
+            if (obstaculosCambiados(estado, base)) mascara |= BLOQUE_OBSTACULOS;
+        }
+        buffer.put((byte) mascara);
+
+        if ((mascara & BLOQUE_ESTADO) != 0) {
+            escribirEstado(estado, buffer);
+        }
+        if ((mascara & BLOQUE_PUNTUACION) != 0) {
+            buffer.putInt(estado.puntuacion);
+        }
+        if ((mascara & BLOQUE_VELOCIDAD) != 0) {
+            buffer.putShort((short) diferenciaVelocidad(estado, base));
+        }
+
+        if ((mascara & BLOQUE_JUGADORES) != 0) {
+            int n = estado.cantidadJugadores;
+            buffer.put((byte) n);
+            for (int byteMascara = 0; byteMascara < (n + 7) / 8; byteMascara++) {
+                int bits = 0;
+                for (int j = 0; j < 8; j++) {
+                    int i = byteMascara * 8 + j;
+                    if (i < n && jugadorCambiado(estado, base, i)) bits |= 1 << j;
+                }
+                buffer.put((byte) bits);
+            }
+            for (int i = 0; i < n; i++) {
+                if (jugadorCambiado(estado, base, i)) {
+                    escribirJugador(estado, i, buffer);
+                }
+            }
+        }
+
+        if ((mascara & BLOQUE_OBSTACULOS) != 0) {
+            codificarObstaculosDelta(estado, base, buffer);
+        }
+        if ((mascara & BLOQUE_MUNDO) != 0) {
+            escribirMundo(estado, buffer);
+        }
+    }
+
+    private static void codificarObstaculosDelta(EstadoSnapshot estado, EstadoSnapshot base, ByteBuffer buffer) {
+        int desplazamiento = (int) (estado.distanciaCuantizada - base.distanciaCuantizada);
+        int descartados = descartados(estado, base);
+        int conocidos = conocidos(estado, base, descartados);
+        int nuevos = estado.cantidadObstaculos - conocidos;
+
+        buffer.putShort((short) desplazamiento);
+        buffer.put((byte) descartados);
+        buffer.put((byte) conocidos);
+        buffer.put((byte) nuevos);
+
+        // Residuos de 2 bits contra la posición predicha
+        int acumulado = 0;
+        for (int i = 0; i < conocidos; i++) {
+            int residuo = residuo(estado, base, descartados, i, desplazamiento);
+            int codigo;
+            if (residuo == 0) codigo = RESIDUO_CERO;
+            else if (residuo == 1) codigo = RESIDUO_MAS_UNO;
+            else if (residuo == -1) codigo = RESIDUO_MENOS_UNO;
+            else codigo = RESIDUO_ESCAPE;
+
+            acumulado |= codigo << ((i & 3) * 2);
+            if ((i & 3) == 3 || i == conocidos - 1) {
+                buffer.put((byte) acumulado);
+                acumulado = 0;
+            }
+        }
+        for (int i = 0; i < conocidos; i++) {
+            int residuo = residuo(estado, base, descartados, i, desplazamiento);
+            if (residuo < -1 || residuo > 1) {
+                buffer.putShort(cuantizar(estado.obstaculoX[i]));
+            }
+        }
+
+        for (int i = conocidos; i < estado.cantidadObstaculos; i++) {
+            escribirObstaculo(estado, i, buffer);
+        }
+    }
+
+    /**
+     * Lee un snapshot del buffer y lo guarda en el historial bajo su tick
+     * @return el estado decodificado, o null si el paquete es inválido o falta su base
+     */
+    public static EstadoSnapshot decodificar(ByteBuffer buffer, HistorialSnapshots historial) {
+        if (buffer.remaining() < 12 || buffer.get() != MAGIA || buffer.get() != VERSION) {
+            return null;
+        }
+
+        int tipo = buffer.get() & 0xFF;
+        boolean porSemilla = (tipo & TIPO_POR_SEMILLA) != 0;
+        tipo &= ~TIPO_POR_SEMILLA;
+        int tick = buffer.getInt();
+        int inputAplicado = buffer.getInt();
+        if (tick < 0) {
+            return null;
+        }
+        EstadoSnapshot base = null;
+        if (tipo == TIPO_DELTA) {
+            int antiguedad = buffer.get() & 0xFF;
+            // Una base a CAPACIDAD ticks o más comparte lugar con el destino: reservarlo la borraría
+            if (antiguedad == 0 || antiguedad >= HistorialSnapshots.CAPACIDAD) {
+                return null;
+            }
+            base = historial.buscar(tick - antiguedad);
+            // Una base del otro modo no tiene los campos que el delta da por sabidos
+            if (base == null || base.mundoPorSemilla != porSemilla) {
+                return null;
+            }
+        } else if (tipo != TIPO_COMPLETO) {
+            return null;
+        }
+
+        EstadoSnapshot destino = historial.reservar(tick);
+        destino.tick = tick;
+        destino.inputAplicado = inputAplicado;
+        destino.mundoPorSemilla = porSemilla;
+        try {
+            if (!leerBloques(buffer, base, destino)) {
+                return null;
+            }
+        } catch (java.nio.BufferUnderflowException e) {
+            return null;
+        }
+        historial.confirmar(destino);
+        return destino;
+    }
+
+    private static boolean leerBloques(ByteBuffer buffer, EstadoSnapshot base, EstadoSnapshot destino) {
+        int mascara = buffer.get() & 0xFF;
+        boolean delta = base != null;
+
+        if ((mascara & BLOQUE_ESTADO) != 0) {
+            int flags = buffer.get();
+            destino.juegoIniciado = (flags & FLAG_INICIADO) != 0;
+            destino.terminado = (flags & FLAG_TERMINADO) != 0;
+            destino.resultado = buffer.get() & 0xFF;
+            destino.resetListos = buffer.get() & 0xFF;
+        } else if (delta) {
+            destino.juegoIniciado = base.juegoIniciado;
+            destino.terminado = base.terminado;
+            destino.resultado = base.resultado;
+            destino.resetListos = base.resetListos;
+        }
+
+        if ((mascara & BLOQUE_PUNTUACION) != 0) {
+            destino.puntuacion = buffer.getInt();
+        } else if (delta) {
+            destino.puntuacion = base.puntuacion;
+        }
+
+        if ((mascara & BLOQUE_VELOCIDAD) != 0) {
+            int velocidad = delta
+                    ? cuantizarVelocidad(base.velocidad) + buffer.getShort()
+                    : buffer.getInt();
+            destino.velocidad = velocidad / ESCALA_VELOCIDAD;
+        } else if (delta) {
+            destino.velocidad = base.velocidad;
+        }
+
+        if ((mascara & BLOQUE_JUGADORES) != 0) {
+            int n = buffer.get() & 0xFF;
+            if (n > destino.getCapacidadJugadores()) {
+                return false;
+            }
+            // Un delta se arma contra una base con la misma cantidad de jugadores (ver sePuedeCodificarDelta)
+            if (delta && n != base.cantidadJugadores) {
+                return false;
+            }
+            destino.cantidadJugadores = n;
+            if (delta) {
+                int bytesMascara = (n + 7) / 8;
+                if (buffer.remaining() < bytesMascara) {
+                    return false;
+                }
+                int posicionMascara = buffer.position();
+                buffer.position(posicionMascara + bytesMascara);
+                for (int i = 0; i < n; i++) {
+                    int bits = buffer.get(posicionMascara + i / 8);
+                    if ((bits & (1 << (i & 7))) != 0) {
+                        leerJugador(buffer, destino, i);
+                    } else {
+                        copiarJugador(base, destino, i);
+                    }
+                }
+            } else {
+                for (int i = 0; i < n; i++) {
+                    leerJugador(buffer, destino, i);
+                }
+            }
+        } else if (delta) {
+            destino.cantidadJugadores = base.cantidadJugadores;
+            for (int i = 0; i < base.cantidadJugadores; i++) {
+                copiarJugador(base, destino, i);
+            }
+        }
+
+        destino.distanciaCuantizada = delta ? base.distanciaCuantizada : 0;
+        if ((mascara & BLOQUE_OBSTACULOS) != 0) {
+            return delta ? leerObstaculosDelta(buffer, base, destino) : leerObstaculosCompletos(buffer, destino);
+        } else if (delta) {
+            destino.cantidadObstaculos = base.cantidadObstaculos;
+            for (int i = 0; i < base.cantidadObstaculos; i++) {
+                copiarObstaculo(base, i, destino, i);
+            }
+        }
+
+        if ((mascara & BLOQUE_MUNDO) != 0) {
+            destino.semilla = buffer.getLong();
+            destino.tickMundo = buffer.getInt();
+            destino.ticksPorSegundo = buffer.getShort() & 0xFFFF;
+            return destino.tickMundo >= 0 && destino.ticksPorSegundo > 0;
+        } else if (destino.mundoPorSemilla) {
+            if (!delta) {
+                return false;
+            }
+            destino.semilla = base.semilla;
+            destino.tickMundo = tickMundoPredicho(destino, base);
+            destino.ticksPorSegundo = base.ticksPorSegundo;
+        }
+        return true;
+    }
+
+    private static boolean leerObstaculosCompletos(ByteBuffer buffer, EstadoSnapshot destino) {
+        int primerId = buffer.getInt();
+        int n = buffer.get() & 0xFF;
+        if (n > EstadoSnapshot.MAX_OBSTACULOS) {
+            return false;
+        }
+        destino.cantidadObstaculos = n;
+        for (int i = 0; i < n; i++) {
+            leerObstaculo(buffer, destino, i, primerId + i);
+        }
+        return true;
+    }
+
+    private static boolean leerObstaculosDelta(ByteBuffer buffer, EstadoSnapshot base, EstadoSnapshot destino) {
+        int desplazamiento = buffer.getShort();
+        int descartados = buffer.get() & 0xFF;
+        int conocidos = buffer.get() & 0xFF;
+        int nuevos = buffer.get() & 0xFF;
+        if (descartados + conocidos > base.cantidadObstaculos
+                || conocidos + nuevos > EstadoSnapshot.MAX_OBSTACULOS) {
+            return false;
+        }
+        destino.distanciaCuantizada = base.distanciaCuantizada + desplazamiento;
+        destino.cantidadObstaculos = conocidos + nuevos;
+
+        // Primero los residuos, después los escapes en el mismo orden
+        if (buffer.remaining() < (conocidos + 3) / 4) {
+            return false;
+        }
+        int posicionResiduos = buffer.position();
+        buffer.position(posicionResiduos + (conocidos + 3) / 4);
+        for (int i = 0; i < conocidos; i++) {
+            int codigo = (buffer.get(posicionResiduos + i / 4) >>> ((i & 3) * 2)) & 3;
+            copiarObstaculo(base, descartados + i, destino, i);
+            if (codigo == RESIDUO_ESCAPE) {
+                destino.obstaculoX[i] = buffer.getShort() / ESCALA;
+            } else {
+                int residuo = codigo == RESIDUO_MAS_UNO ? 1 : codigo == RESIDUO_MENOS_UNO ? -1 : 0;
+                int predicha = Math.round(base.obstaculoX[descartados + i] * ESCALA) - desplazamiento;
+                destino.obstaculoX[i] = (predicha + residuo) / ESCALA;
+            }
+        }
+
+        // Los nuevos continúan la numeración de la base
+        int siguienteId = base.cantidadObstaculos > 0 ? base.obstaculoId[0] + descartados + conocidos : 0;
+        for (int i = 0; i < nuevos; i++) {
+            leerObstaculo(buffer, destino, conocidos + i, siguienteId + i);
+        }
+        return true;
+    }
+
+    /**
+     * Redondea el estado a la precisión del protocolo, dejándolo igual a lo que decodifica un cliente
+     */
+    public static void normalizar(EstadoSnapshot estado) {
+        estado.velocidad = cuantizarVelocidad(estado.velocidad) / ESCALA_VELOCIDAD;
+        for (int i = 0; i < estado.cantidadJugadores; i++) {
+            estado.jugadorY[i] = cuantizarSinSigno(estado.jugadorY[i]) / ESCALA;
+            estado.jugadorVelocidadY[i] = estado.jugadorEnSuelo[i] ? 0 : cuantizar(estado.jugadorVelocidadY[i]) / ESCALA;
+        }
+        for (int i = 0; i < estado.cantidadObstaculos; i++) {
+            estado.obstaculoX[i] = cuantizar(estado.obstaculoX[i]) / ESCALA;
+            estado.obstaculoY[i] = cuantizar(estado.obstaculoY[i]) / ESCALA;
+        }
+    }
+
+    /**
+     * Indica si un datagrama recibido es un snapshot binario (y no un mensaje de texto)
+     */
+    public static boolean esSnapshot(byte[] datos, int offset, int longitud) {
+        return longitud > 0 && datos[offset] == MAGIA;
+    }
+
+    // ==================== Condiciones del delta ====================
+
+    private static boolean sePuedeCodificarDelta(EstadoSnapshot estado, EstadoSnapshot base, boolean porSemilla) {
+        int antiguedad = estado.tick - base.tick;
+        if (antiguedad <= 0 || antiguedad >= HistorialSnapshots.CAPACIDAD) {
+            return false;
+        }
+        if (estado.cantidadJugadores != base.cantidadJugadores) {
+            return false;
+        }
+        if (porSemilla) {
+            return true;
+        }
+        int diferencia = diferenciaVelocidad(estado, base);
+        if (diferencia < Short.MIN_VALUE || diferencia > Short.MAX_VALUE) {
+            return false;
+        }
+        long desplazamiento = estado.distanciaCuantizada - base.distanciaCuantizada;
+        if (desplazamiento < 0 || desplazamiento > Short.MAX_VALUE) {
+            return false;
+        }
+
+        // Los ids deben ser consecutivos y continuar los de la base
+        for (int i = 1; i < estado.cantidadObstaculos; i++) {
+            if (estado.obstaculoId[i] != estado.obstaculoId[0] + i) {
+                return false;
+            }
+        }
+        if (estado.cantidadObstaculos > 0 && base.cantidadObstaculos == 0) {
+            return false;
+        }
+        int descartados = descartados(estado, base);
+        return descartados >= 0 && descartados <= base.cantidadObstaculos;
+    }
+
+    private static int descartados(EstadoSnapshot estado, EstadoSnapshot base) {
+        if (estado.cantidadObstaculos == 0 || base.cantidadObstaculos == 0) {
+            return base.cantidadObstaculos;
+        }
+        return estado.obstaculoId[0] - base.obstaculoId[0];
+    }
+
+    private static int conocidos(EstadoSnapshot estado, EstadoSnapshot base, int descartados) {
+        return Math.min(base.cantidadObstaculos - descartados, estado.cantidadObstaculos);
+    }
+
+    private static int residuo(EstadoSnapshot estado, EstadoSnapshot base, int descartados, int i, int desplazamiento) {
+        int predicha = Math.round(base.obstaculoX[descartados + i] * ESCALA) - desplazamiento;
+        return cuantizar(estado.obstaculoX[i]) - predicha;
+    }
+
+    private static int diferenciaVelocidad(EstadoSnapshot estado, EstadoSnapshot base) {
+        return cuantizarVelocidad(estado.velocidad) - cuantizarVelocidad(base.velocidad);
+    }
+
+    private static boolean jugadoresCambiados(EstadoSnapshot estado, EstadoSnapshot base) {
+        for (int i = 0; i < estado.cantidadJugadores; i++) {
+            if (jugadorCambiado(estado, base, i)) return true;
+        }
+        return false;
+    }
+
+    private static boolean jugadorCambiado(EstadoSnapshot estado, EstadoSnapshot base, int i) {
+        return empaquetarJugador(estado, i) != empaquetarJugador(base, i)
+                || cuantizar(estado.jugadorVelocidadY[i]) != cuantizar(base.jugadorVelocidadY[i]);
+    }
+
+    private static boolean mundoCambiado(EstadoSnapshot estado, EstadoSnapshot base) {
+        return estado.semilla != base.semilla || estado.ticksPorSegundo != base.ticksPorSegundo
+                || estado.tickMundo != tickMundoPredicho(estado, base);
+    }
+
+    /**
+     * Ticks del mundo que se esperan en un estado sabiendo los de la base: una partida en curso
+     * avanza uno por tick y una terminada no se mueve
+     */
+    private static int tickMundoPredicho(EstadoSnapshot estado, EstadoSnapshot base) {
+        return base.terminado ? base.tickMundo : base.tickMundo + (estado.tick - base.tick);
+    }
+
+    private static boolean obstaculosCambiados(EstadoSnapshot estado, EstadoSnapshot base) {
+        if (estado.cantidadObstaculos != base.cantidadObstaculos
+                || estado.distanciaCuantizada != base.distanciaCuantizada) {
+            return true;
+        }
+        return estado.cantidadObstaculos > 0 && estado.obstaculoId[0] != base.obstaculoId[0];
+    }
+
+    // ==================== Campos ====================
+
+    private static void escribirEstado(EstadoSnapshot estado, ByteBuffer buffer) {
+        int flags = 0;
+        if (estado.juegoIniciado) flags |= FLAG_INICIADO;
+        if (estado.terminado) flags |= FLAG_TERMINADO;
+        buffer.put((byte) flags);
+        buffer.put((byte) estado.resultado);
+        buffer.put((byte) estado.resetListos);
+    }
+
+    private static void escribirMundo(EstadoSnapshot estado, ByteBuffer buffer) {
+        buffer.putLong(estado.semilla);
+        buffer.putInt(estado.tickMundo);
+        buffer.putShort((short) estado.ticksPorSegundo);
+    }
+
+    private static void escribirJugador(EstadoSnapshot estado, int i, ByteBuffer buffer) {
+        buffer.putShort(empaquetarJugador(estado, i));
+        if (!estado.jugadorEnSuelo[i]) {
+            buffer.putShort(cuantizar(estado.jugadorVelocidadY[i]));
+        }
+    }
+
+    private static void leerJugador(ByteBuffer buffer, EstadoSnapshot destino, int i) {
+        desempaquetarJugador(buffer.getShort(), destino, i);
+        destino.jugadorVelocidadY[i] = destino.jugadorEnSuelo[i] ? 0 : buffer.getShort() / ESCALA;
+    }
+
+    private static short empaquetarJugador(EstadoSnapshot estado, int i) {
+        int empaquetado = cuantizarSinSigno(estado.jugadorY[i]) & MASCARA_Y_JUGADOR;
+        if (estado.jugadorEnSuelo[i]) empaquetado |= BIT_EN_SUELO;
+        if (estado.jugadorAgachado[i]) empaquetado |= BIT_AGACHADO;
+        if (estado.jugadorVivo[i]) empaquetado |= BIT_VIVO;
+        return (short) empaquetado;
+    }
+
+    private static void desempaquetarJugador(short valor, EstadoSnapshot destino, int i) {
+        int empaquetado = valor & 0xFFFF;
+        destino.jugadorY[i] = (empaquetado & MASCARA_Y_JUGADOR) / ESCALA;
+        destino.jugadorEnSuelo[i] = (empaquetado & BIT_EN_SUELO) != 0;
+        destino.jugadorAgachado[i] = (empaquetado & BIT_AGACHADO) != 0;
+        destino.jugadorVivo[i] = (empaquetado & BIT_VIVO) != 0;
+    }
+
+    private static void copiarJugador(EstadoSnapshot origen, EstadoSnapshot destino, int i) {
+        destino.jugadorY[i] = origen.jugadorY[i];
+        destino.jugadorVelocidadY[i] = origen.jugadorVelocidadY[i];
+        destino.jugadorEnSuelo[i] = origen.jugadorEnSuelo[i];
+        destino.jugadorAgachado[i] = origen.jugadorAgachado[i];
+        destino.jugadorVivo[i] = origen.jugadorVivo[i];
+    }
+
+    private static void escribirObstaculo(EstadoSnapshot estado, int i, ByteBuffer buffer) {
+        buffer.put((byte) ((estado.obstaculoTipo[i] << 7) | (estado.obstaculoVariante[i] & 0x7F)));
+        buffer.putShort(cuantizar(estado.obstaculoX[i]));
+        buffer.putShort(cuantizar(estado.obstaculoY[i]));
+    }
+
+    private static void leerObstaculo(ByteBuffer buffer, EstadoSnapshot destino, int i, int id) {
+        int tipoYVariante = buffer.get() & 0xFF;
+        destino.obstaculoId[i] = id;
+        destino.obstaculoTipo[i] = tipoYVariante >>> 7;
+        destino.obstaculoVariante[i] = tipoYVariante & 0x7F;
+        destino.obstaculoX[i] = buffer.getShort() / ESCALA;
+        destino.obstaculoY[i] = buffer.getShort() / ESCALA;
+    }
+
+    private static void copiarObstaculo(EstadoSnapshot origen, int i, EstadoSnapshot destino, int j) {
+        destino.obstaculoId[j] = origen.obstaculoId[i];
+        destino.obstaculoTipo[j] = origen.obstaculoTipo[i];
+        destino.obstaculoVariante[j] = origen.obstaculoVariante[i];
+        destino.obstaculoX[j] = origen.obstaculoX[i];
+        destino.obstaculoY[j] = origen.obstaculoY[i];
+    }
+
+    private static int cuantizarVelocidad(float valor) {
+        return Math.round(valor * ESCALA_VELOCIDAD);
+    }
+
+    private static short cuantizar(float valor) {
+        int q = Math.round(valor * ESCALA);
+        if (q > Short.MAX_VALUE) q = Short.MAX_VALUE;
+        if (q < Short.MIN_VALUE) q = Short.MIN_VALUE;
+        return (short) q;
+    }
+
+    private static int cuantizarSinSigno(float valor) {
+        int q = Math.round(valor * ESCALA);
+        if (q < 0) q = 0;
+        if (q > MASCARA_Y_JUGADOR) q = MASCARA_Y_JUGADOR;
+        return q;
+    }
+}
@@ -0,0 +1,290 @@
+package com.dinosauriojuego.network;
+
+import com.badlogic.gdx.math.RandomXS128;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Conexión directa entre los dos pares de un duelo con rollback, sin pasar por el servidor
+ *
+ * El anfitrión (jugador 1) escucha en un puerto y el invitado (jugador 2) se conecta: repite "Par"
+ * hasta que el anfitrión le contesta "ParOK;semilla", y desde ahí cada uno arranca en el tick 0
+ * (el anfitrión, al recibir el primer input del invitado).
+ *
+ * Los inputs viajan con el mismo formato que los del servidor ({@link CodificadorInput}), uno por
+ * tick: la secuencia es el tick y el ack es el último tick del rival recibido sin huecos. Cada
+ * paquete repite todos los inputs que el rival todavía no confirmó, así que perder uno no obliga a
+ * esperar una retransmisión.
+ *
+ * Este hilo solo recibe: anota los inputs del rival y publica el último tick contiguo; la pantalla
+ * los pasa a la sesión desde el hilo de render.
+ */
+public class ConexionPar extends Thread {
+
+    public static final int PUERTO_POR_DEFECTO = 9000;
+
+    // Estados de la conexión
+    public static final int ESTADO_CONECTANDO = 0;
+    public static final int ESTADO_JUGANDO = 1;
+    public static final int ESTADO_CERRADO = 2;
+
+    private static final int REINTENTO_MS = 500;
+    private static final int TAMANO_RECEPCION = 1500;
+
+    // Inputs de cada lado, indexados por tick; potencia de dos mayor que la ventana de predicción
+    private static final int CAPACIDAD_INPUTS = 64;
+    private static final int MASCARA_INPUTS = CAPACIDAD_INPUTS - 1;
+
+    private static final String MENSAJE_PAR = "Par";
+    private static final String PREFIJO_OK = "ParOK;";
+
+    private final DatagramSocket socket;
+    private final boolean anfitrion;
+    private volatile SocketAddress par;
+    private volatile boolean running = true;
+    private volatile int estado = ESTADO_CONECTANDO;
+    private volatile long semilla;
+
+    // Recepción (solo la usa este hilo)
+    private final byte[] datosRecepcion = new byte[TAMANO_RECEPCION];
+    private final DatagramPacket paqueteRecepcion = new DatagramPacket(datosRecepcion, TAMANO_RECEPCION);
+    private final ByteBuffer bufferRecepcion = ByteBuffer.wrap(datosRecepcion);
+    private final PaqueteInput paqueteInput = new PaqueteInput();
+
+    // Inputs del rival: se escriben antes de publicar ultimoRemoto, que es lo que lee la pantalla
+    private final int[] inputsRemotos = new int[CAPACIDAD_INPUTS];
+    private final int[] ticksRemotos = new int[CAPACIDAD_INPUTS];
+    private volatile int ultimoRemoto = -1;
+    private volatile int ackRemoto = -1;
+
+    // Envío (solo lo usa el hilo de render)
+    private final int[] inputsLocales = new int[CAPACIDAD_INPUTS];
+    private final ByteBuffer bufferEnvio = ByteBuffer.allocate(CodificadorInput.TAMANO_MAXIMO);
+    private final DatagramPacket paqueteEnvio;
+
+    // Estadísticas
+    private volatile long paquetesRecibidos;
+    private volatile long paquetesInvalidos;
+
+    /**
+     * Anfitrión: escucha en el puerto y elige la semilla de la primera partida
+     */
+    public static ConexionPar escuchar(int puerto) throws SocketException {
+        return new ConexionPar(new DatagramSocket(puerto), null, new RandomXS128().nextLong());
+    }
+
+    /**
+     * Invitado: se conecta al anfitrión; la semilla llega en el handshake
+     */
+    public static ConexionPar conectar(String host, int puerto) throws SocketException {
+        return new ConexionPar(new DatagramSocket(), new InetSocketAddress(host, puerto), 0);
+    }
+
+    private ConexionPar(DatagramSocket socket, SocketAddress par, long semilla) {
+        super("ConexionPar");
+        setDaemon(true);
+        this.socket = socket;
+        this.anfitrion = par == null;
+        this.par = par;
+        this.semilla = semilla;
+        this.paqueteEnvio = new DatagramPacket(bufferEnvio.array(), 0);
+        for (int i = 0; i < CAPACIDAD_INPUTS; i++) {
+            ticksRemotos[i] = -1;
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            socket.setSoTimeout(REINTENTO_MS);
+        } catch (SocketException e) {
+            System.err.println("❌ Error al configurar el socket: " + e.getMessage());
+        }
+
+        if (!anfitrion) {
+            enviarTexto(MENSAJE_PAR);
+        }
+        while (running) {
+            try {
+                paqueteRecepcion.setLength(TAMANO_RECEPCION);
+                socket.receive(paqueteRecepcion);
+                procesar(paqueteRecepcion.getSocketAddress(), paqueteRecepcion.getLength());
+            } catch (SocketTimeoutException e) {
+                if (!anfitrion && estado == ESTADO_CONECTANDO) {
+                    enviarTexto(MENSAJE_PAR);
+                }
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("❌ Error al recibir: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void procesar(SocketAddress origen, int longitud) {
+        bufferRecepcion.clear();
+        bufferRecepcion.limit(longitud);
+        if (CodificadorInput.esInput(bufferRecepcion)) {
+            // El anfitrión solo acepta los del par con el que hizo el handshake
+            if (!anfitrion || origen.equals(par)) {
+                procesarInputs();
+            }
+            return;
+        }
+
+        String mensaje = new String(datosRecepcion, 0, longitud, StandardCharsets.US_ASCII).trim();
+        if (anfitrion && mensaje.equals(MENSAJE_PAR)) {
+            // El primero que llega es el rival; a él se le repite el OK si se perdió
+            if (par == null) {
+                par = origen;
+                System.out.println("🤝 Rival conectado desde " + origen);
+            }
+            if (origen.equals(par)) {
+                enviarTexto(PREFIJO_OK + semilla);
+            }
+        } else if (!anfitrion && mensaje.startsWith(PREFIJO_OK) && estado == ESTADO_CONECTANDO) {
+            try {
+                semilla = Long.parseLong(mensaje.substring(PREFIJO_OK.length()));
+            } catch (NumberFormatException e) {
+                return;
+            }
+            estado = ESTADO_JUGANDO;
+            System.out.println("🤝 Conectado al anfitrión, empieza el duelo");
+        }
+    }
+
+    private void procesarInputs() {
+        if (!CodificadorInput.decodificar(bufferRecepcion, paqueteInput)) {
+            paquetesInvalidos++;
+            return;
+        }
+        paquetesRecibidos++;
+        if (estado == ESTADO_CONECTANDO) {
+            estado = ESTADO_JUGANDO;
+            System.out.println("🤝 Llegó el primer input del rival, empieza el duelo");
+        }
+
+        // Solo se guardan los que el anillo puede tener sin pisar uno que la pantalla no leyó
+        int ultimo = ultimoRemoto;
+        for (int k = paqueteInput.cantidad - 1; k >= 0; k--) {
+            int tick = paqueteInput.tick - k;
+            if (tick > ultimo && tick - ultimo < CAPACIDAD_INPUTS) {
+                inputsRemotos[tick & MASCARA_INPUTS] = paqueteInput.inputs[k];
+                ticksRemotos[tick & MASCARA_INPUTS] = tick;
+            }
+        }
+        while (ticksRemotos[(ultimo + 1) & MASCARA_INPUTS] == ultimo + 1) {
+            ultimo++;
+        }
+        ultimoRemoto = ultimo;
+        ackRemoto = Math.max(ackRemoto, paqueteInput.ackSnapshot);
+    }
+
+    /**
+     * Anota el input propio de un tick para los próximos envíos
+     */
+    public void registrarInput(int tick, int bits) {
+        inputsLocales[tick & MASCARA_INPUTS] = bits;
+    }
+
+    /**
+     * Envía los inputs propios hasta ultimoTick que el rival todavía no confirmó
+     * Se llama una vez por frame, aunque la sesión esté esperando: así el rival siempre recibe lo último
+     */
+    public void enviarInputs(int ultimoTick) {
+        SocketAddress destino = par;
+        if (destino == null || estado != ESTADO_JUGANDO || ultimoTick < 0) {
+            return;
+        }
+        int pendientes = ultimoTick - ackRemoto;
+
+        bufferEnvio.clear();
+        CodificadorInput.codificar(bufferEnvio, 0, ultimoRemoto, ultimoTick, ultimoTick, 0,
+                inputsLocales, Math.min(pendientes, PaqueteInput.MAX_INPUTS));
+        paqueteEnvio.setLength(bufferEnvio.position());
+        paqueteEnvio.setSocketAddress(destino);
+        try {
+            socket.send(paqueteEnvio);
+        } catch (IOException e) {
+            System.err.println("❌ Error al enviar input: " + e.getMessage());
+        }
+    }
+
+    private void enviarTexto(String mensaje) {
+        SocketAddress destino = par;
+        if (destino == null) {
+            return;
+        }
+        byte[] datos = mensaje.getBytes(StandardCharsets.US_ASCII);
+        try {
+            socket.send(new DatagramPacket(datos, datos.length, destino));
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("❌ Error al enviar: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Input del rival en un tick ya publicado (no mayor que {@link #getUltimoRemoto})
+     */
+    public int getInputRemoto(int tick) {
+        return inputsRemotos[tick & MASCARA_INPUTS];
+    }
+
+    public void cerrar() {
+        running = false;
+        estado = ESTADO_CERRADO;
+        socket.close();
+    }
+
+    // Getters
+    public int getEstado() {
+        return estado;
+    }
+
+    public boolean isAnfitrion() {
+        return anfitrion;
+    }
+
+    /**
+     * Jugador propio: el anfitrión es el 0 y el invitado el 1
+     */
+    public int getJugador() {
+        return anfitrion ? 0 : 1;
+    }
+
+    public long getSemilla() {
+        return semilla;
+    }
+
+    /**
+     * Último tick del rival recibido sin huecos
+     */
+    public int getUltimoRemoto() {
+        return ultimoRemoto;
+    }
+
+    /**
+     * Último tick propio que el rival confirmó
+     */
+    public int getAckRemoto() {
+        return ackRemoto;
+    }
+
+    public long getPaquetesRecibidos() {
+        return paquetesRecibidos;
+    }
+
+    public long getPaquetesInvalidos() {
+        return paquetesInvalidos;
+    }
+}
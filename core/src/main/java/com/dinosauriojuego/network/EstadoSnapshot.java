@@ -0,0 +1,166 @@
+package com.dinosauriojuego.network;
+
+import com.dinosauriojuego.servidor.logica.AlmacenObstaculos;
+import com.dinosauriojuego.servidor.logica.EstadoJugadores;
+import com.dinosauriojuego.servidor.logica.GameSimulacion;
+
+/**
+ * Estado de la partida tal como viaja en un snapshot
+ * Solo usa arrays primitivos preasignados para que capturar y decodificar no generen basura
+ * El servidor los dimensiona para los jugadores de su sala; el cliente, para el máximo posible
+ *
+ * El sprite de cada dinosaurio no viaja: la animación es un reloj común a todos y el cliente la lleva solo
+ */
+public class EstadoSnapshot {
+
+    public static final int MAX_JUGADORES = GameSimulacion.MAX_JUGADORES;
+    public static final int MAX_OBSTACULOS = 16;
+
+    // Información general
+    public int tick;
+    public int puntuacion;
+    public float velocidad;
+    public boolean juegoIniciado;
+    public boolean terminado;
+    public int resultado;
+    public int resetListos;
+
+    // Último tick de input del destinatario que el servidor ya aplicó (-1 si ninguno)
+    // No es parte del estado de la sala: se escribe por cliente al codificar
+    public int inputAplicado = -1;
+
+    // Momento de llegada en nanosegundos (System.nanoTime); solo lo usa el cliente para interpolar
+    public long llegada;
+
+    // Distancia recorrida por el mundo en 1/16 px; solo se usa para calcular deltas
+    public long distanciaCuantizada;
+
+    // Lo necesario para rehacer el mundo en el cliente: semilla de la partida, ticks simulados desde
+    // el reinicio y tasa de simulación. Si mundoPorSemilla, el snapshot llegó sin puntuación,
+    // velocidad ni obstáculos y el cliente los completa
+    public long semilla;
+    public int tickMundo;
+    public int ticksPorSegundo;
+    public boolean mundoPorSemilla;
+
+    // Jugadores
+    public int cantidadJugadores;
+    public final float[] jugadorY;
+    public final float[] jugadorVelocidadY;
+    public final boolean[] jugadorEnSuelo;
+    public final boolean[] jugadorAgachado;
+    public final boolean[] jugadorVivo;
+
+    // Obstáculos
+    public int cantidadObstaculos;
+    public final int[] obstaculoId = new int[MAX_OBSTACULOS];
+    public final int[] obstaculoTipo = new int[MAX_OBSTACULOS];
+    public final int[] obstaculoVariante = new int[MAX_OBSTACULOS];
+    public final float[] obstaculoX = new float[MAX_OBSTACULOS];
+    public final float[] obstaculoY = new float[MAX_OBSTACULOS];
+
+    public EstadoSnapshot() {
+        this(MAX_JUGADORES);
+    }
+
+    /**
+     * @param capacidadJugadores jugadores que entran como máximo
+     */
+    public EstadoSnapshot(int capacidadJugadores) {
+        jugadorY = new float[capacidadJugadores];
+        jugadorVelocidadY = new float[capacidadJugadores];
+        jugadorEnSuelo = new boolean[capacidadJugadores];
+        jugadorAgachado = new boolean[capacidadJugadores];
+        jugadorVivo = new boolean[capacidadJugadores];
+    }
+
+    public int getCapacidadJugadores() {
+        return jugadorY.length;
+    }
+
+    /**
+     * Copia el estado actual de la simulación
+     */
+    public void capturar(GameSimulacion sim, int tick, boolean juegoIniciado, int resetListos) {
+        this.tick = tick;
+        this.juegoIniciado = juegoIniciado;
+        this.terminado = sim.terminado;
+        this.resultado = sim.resultado;
+        this.resetListos = resetListos;
+        this.semilla = sim.getSemilla();
+        this.tickMundo = sim.getTickSimulacion();
+
+        EstadoJugadores jugadores = sim.jugadores;
+        cantidadJugadores = Math.min(jugadores.cantidad, getCapacidadJugadores());
+        System.arraycopy(jugadores.y, 0, jugadorY, 0, cantidadJugadores);
+        System.arraycopy(jugadores.velocidadY, 0, jugadorVelocidadY, 0, cantidadJugadores);
+        System.arraycopy(jugadores.enSuelo, 0, jugadorEnSuelo, 0, cantidadJugadores);
+        System.arraycopy(jugadores.agachado, 0, jugadorAgachado, 0, cantidadJugadores);
+        System.arraycopy(jugadores.vivo, 0, jugadorVivo, 0, cantidadJugadores);
+
+        capturarMundo(sim);
+    }
+
+    /**
+     * Copia solo el mundo (puntuación, velocidad y obstáculos) de la simulación
+     */
+    public void capturarMundo(GameSimulacion sim) {
+        this.puntuacion = sim.puntuacion;
+        this.velocidad = sim.velocidad;
+        this.distanciaCuantizada = Math.round(sim.distanciaRecorrida * 16d);
+
+        AlmacenObstaculos obstaculos = sim.obstaculos;
+        int n = Math.min(obstaculos.getCantidad(), MAX_OBSTACULOS);
+        for (int k = 0; k < n; k++) {
+            int i = obstaculos.lugar(k);
+            obstaculoId[k] = obstaculos.id[i];
+            obstaculoTipo[k] = obstaculos.tipo[i];
+            obstaculoVariante[k] = obstaculos.variante[i];
+            obstaculoX[k] = obstaculos.x[i];
+            obstaculoY[k] = obstaculos.y[i];
+        }
+        cantidadObstaculos = n;
+    }
+
+    /**
+     * Copia otro snapshot ya decodificado, sin reservar memoria
+     * Si este tiene menos capacidad, se copian los primeros jugadores que entran
+     */
+    public void copiarDe(EstadoSnapshot otro) {
+        tick = otro.tick;
+        puntuacion = otro.puntuacion;
+        velocidad = otro.velocidad;
+        juegoIniciado = otro.juegoIniciado;
+        terminado = otro.terminado;
+        resultado = otro.resultado;
+        resetListos = otro.resetListos;
+        inputAplicado = otro.inputAplicado;
+        llegada = otro.llegada;
+        distanciaCuantizada = otro.distanciaCuantizada;
+        semilla = otro.semilla;
+        tickMundo = otro.tickMundo;
+        ticksPorSegundo = otro.ticksPorSegundo;
+        mundoPorSemilla = otro.mundoPorSemilla;
+
+        cantidadJugadores = Math.min(otro.cantidadJugadores, getCapacidadJugadores());
+        System.arraycopy(otro.jugadorY, 0, jugadorY, 0, cantidadJugadores);
+        System.arraycopy(otro.jugadorVelocidadY, 0, jugadorVelocidadY, 0, cantidadJugadores);
+        System.arraycopy(otro.jugadorEnSuelo, 0, jugadorEnSuelo, 0, cantidadJugadores);
+        System.arraycopy(otro.jugadorAgachado, 0, jugadorAgachado, 0, cantidadJugadores);
+        System.arraycopy(otro.jugadorVivo, 0, jugadorVivo, 0, cantidadJugadores);
+
+        cantidadObstaculos = otro.cantidadObstaculos;
+        System.arraycopy(otro.obstaculoId, 0, obstaculoId, 0, cantidadObstaculos);
+        System.arraycopy(otro.obstaculoTipo, 0, obstaculoTipo, 0, cantidadObstaculos);
+        System.arraycopy(otro.obstaculoVariante, 0, obstaculoVariante, 0, cantidadObstaculos);
+        System.arraycopy(otro.obstaculoX, 0, obstaculoX, 0, cantidadObstaculos);
+        System.arraycopy(otro.obstaculoY, 0, obstaculoY, 0, cantidadObstaculos);
+    }
+
+    /**
+     * Texto de fin de partida correspondiente al resultado
+     */
+    public String getMensajeFin() {
+        return GameSimulacion.mensajeParaResultado(resultado);
+    }
+}
@@ -0,0 +1,165 @@
+package com.dinosauriojuego.network;
+
+import com.dinosauriojuego.servidor.logica.HistorialMundo;
+
+/**
+ * Anillo con los inputs que el servidor aplicó en cada tick de una partida, para el modo lockstep
+ *
+ * Con la semilla de la partida y estos inputs un cliente rehace la simulación del servidor tick por
+ * tick, así que es todo lo que hace falta enviarle. Cada tick guarda un byte por jugador
+ * (saltar | agachar | rebobinado << 2), si después de simularlo la partida se reinició (y con
+ * qué semilla), y cada tanto un hash del estado para que el cliente compruebe que sigue sincronizado.
+ *
+ * Todo vive en arrays primitivos reservados al construir: guardar un tick solo copia bytes.
+ */
+public class HistorialInputs {
+
+    // Potencia de dos: unos 4 segundos a 60 Hz; un cliente que se atrasa más vuelve a snapshots
+    public static final int CAPACIDAD = 256;
+    private static final int MASCARA = CAPACIDAD - 1;
+
+    // Ticks entre hashes del estado (medio segundo a 60 Hz)
+    public static final int INTERVALO_HASH = 30;
+
+    // El rebobinado ocupa los 6 bits altos: sobra para el máximo que respeta la simulación
+    private static final int DESPLAZAMIENTO_REBOBINADO = 2;
+
+    private final int jugadores;
+    private final int ticksPorSegundo;
+    private final int[] ticks = new int[CAPACIDAD];
+    private final byte[] inputs; // lugar (tick & MASCARA) * jugadores + jugador
+    private final boolean[] reinicio = new boolean[CAPACIDAD];
+    private final long[] semillaReinicio = new long[CAPACIDAD];
+    private final boolean[] conHash = new boolean[CAPACIDAD];
+    private final int[] hash = new int[CAPACIDAD];
+
+    // Datos de la partida que necesita un cliente para arrancar su simulación
+    private int tickInicio = -1;
+    private long semilla;
+
+    /**
+     * @param ticksPorSegundo tasa de simulación; el cliente simula con el mismo paso fijo
+     */
+    public HistorialInputs(int jugadores, int ticksPorSegundo) {
+        this.jugadores = jugadores;
+        this.ticksPorSegundo = ticksPorSegundo;
+        this.inputs = new byte[CAPACIDAD * jugadores];
+        limpiar();
+    }
+
+    /**
+     * Olvida los ticks guardados y empieza una partida nueva en ese tick, con esa semilla
+     */
+    public void iniciar(int tickInicio, long semilla) {
+        limpiar();
+        this.tickInicio = tickInicio;
+        this.semilla = semilla;
+    }
+
+    /**
+     * Guarda los inputs que se aplicaron en el tick, tal como se le pasaron a la simulación
+     * @param rebobinado null si no hubo compensación de latencia
+     */
+    public void guardar(int tick, boolean[] saltar, boolean[] agachar, int[] rebobinado) {
+        int lugar = tick & MASCARA;
+        ticks[lugar] = tick;
+        reinicio[lugar] = false;
+        conHash[lugar] = false;
+
+        int base = lugar * jugadores;
+        for (int i = 0; i < jugadores; i++) {
+            int bits = (saltar[i] ? PaqueteInput.SALTAR : 0) | (agachar[i] ? PaqueteInput.AGACHAR : 0);
+            int ticksAtras = rebobinado != null
+                    ? Math.max(0, Math.min(rebobinado[i], HistorialMundo.REBOBINADO_MAXIMO)) : 0;
+            inputs[base + i] = (byte) (bits | ticksAtras << DESPLAZAMIENTO_REBOBINADO);
+        }
+    }
+
+    /**
+     * Anota que después de simular el tick la partida se reinició con esa semilla
+     */
+    public void marcarReinicio(int tick, long semilla) {
+        if (tieneTick(tick)) {
+            reinicio[tick & MASCARA] = true;
+            semillaReinicio[tick & MASCARA] = semilla;
+        }
+    }
+
+    /**
+     * Anota el hash del estado al terminar el tick (reinicio incluido)
+     */
+    public void guardarHash(int tick, int valor) {
+        if (tieneTick(tick)) {
+            conHash[tick & MASCARA] = true;
+            hash[tick & MASCARA] = valor;
+        }
+    }
+
+    /**
+     * Indica si al tick le corresponde un hash
+     */
+    public static boolean tocaHash(int tick) {
+        return tick % INTERVALO_HASH == 0;
+    }
+
+    public void limpiar() {
+        for (int i = 0; i < CAPACIDAD; i++) {
+            ticks[i] = -1;
+            reinicio[i] = false;
+            conHash[i] = false;
+        }
+        tickInicio = -1;
+    }
+
+    // Consultas
+    public boolean tieneTick(int tick) {
+        return tick >= 0 && ticks[tick & MASCARA] == tick;
+    }
+
+    public int getInput(int tick, int jugador) {
+        return inputs[(tick & MASCARA) * jugadores + jugador] & 0xFF;
+    }
+
+    public boolean esReinicio(int tick) {
+        return reinicio[tick & MASCARA];
+    }
+
+    public long getSemillaReinicio(int tick) {
+        return semillaReinicio[tick & MASCARA];
+    }
+
+    public boolean tieneHash(int tick) {
+        return tieneTick(tick) && conHash[tick & MASCARA];
+    }
+
+    public int getHash(int tick) {
+        return hash[tick & MASCARA];
+    }
+
+    public int getJugadores() {
+        return jugadores;
+    }
+
+    public int getTicksPorSegundo() {
+        return ticksPorSegundo;
+    }
+
+    public int getTickInicio() {
+        return tickInicio;
+    }
+
+    public long getSemilla() {
+        return semilla;
+    }
+
+    /**
+     * Separa el byte guardado en los bits de input y los ticks de rebobinado
+     */
+    public static int bitsDeInput(int entrada) {
+        return entrada & (PaqueteInput.SALTAR | PaqueteInput.AGACHAR);
+    }
+
+    public static int rebobinadoDeInput(int entrada) {
+        return entrada >>> DESPLAZAMIENTO_REBOBINADO;
+    }
+}
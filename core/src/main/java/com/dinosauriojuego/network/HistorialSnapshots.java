@@ -0,0 +1,70 @@
+package com.dinosauriojuego.network;
+
+/**
+ * Anillo de estados de snapshot indexado por tick
+ * El servidor guarda uno por sala con los estados normalizados; el cliente guarda lo que
+ * recibió. Ambos lados necesitan la misma base para resolver un delta
+ */
+public class HistorialSnapshots {
+
+    // Antigüedad máxima (en ticks) de una base utilizable para un delta; potencia de dos
+    public static final int CAPACIDAD = 64;
+    private static final int MASCARA = CAPACIDAD - 1;
+
+    private final EstadoSnapshot[] estados = new EstadoSnapshot[CAPACIDAD];
+    private final boolean[] validos = new boolean[CAPACIDAD];
+
+    public HistorialSnapshots() {
+        this(EstadoSnapshot.MAX_JUGADORES);
+    }
+
+    /**
+     * @param capacidadJugadores jugadores que entran en cada estado guardado
+     */
+    public HistorialSnapshots(int capacidadJugadores) {
+        for (int i = 0; i < CAPACIDAD; i++) {
+            estados[i] = new EstadoSnapshot(capacidadJugadores);
+        }
+    }
+
+    /**
+     * Devuelve el estado guardado para un tick, o null si ya fue pisado o nunca existió
+     */
+    public EstadoSnapshot buscar(int tick) {
+        if (tick < 0) {
+            return null;
+        }
+        int indice = tick & MASCARA;
+        if (validos[indice] && estados[indice].tick == tick) {
+            return estados[indice];
+        }
+        return null;
+    }
+
+    /**
+     * Reserva el lugar de un tick; queda inválido hasta que se llame a confirmar
+     * Los ticks que comparten lugar con él (a múltiplos de CAPACIDAD) dejan de estar disponibles
+     */
+    public EstadoSnapshot reservar(int tick) {
+        int indice = tick & MASCARA;
+        validos[indice] = false;
+        return estados[indice];
+    }
+
+    /**
+     * Marca como válido el estado previamente reservado
+     */
+    public void confirmar(EstadoSnapshot estado) {
+        int indice = estado.tick & MASCARA;
+        validos[indice] = estados[indice] == estado;
+    }
+
+    /**
+     * Olvida todos los estados guardados
+     */
+    public void limpiar() {
+        for (int i = 0; i < CAPACIDAD; i++) {
+            validos[i] = false;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.dinosauriojuego.network;
+
+/**
+ * Inputs de un jugador tal como viajan en un paquete: el más nuevo y los anteriores, redundantes
+ * El input con secuencia (secuencia - k) corresponde al tick (tick - k)
+ */
+public class PaqueteInput {
+
+    // Bits de cada input
+    public static final int SALTAR = 1;
+    public static final int AGACHAR = 1 << 1;
+
+    public static final int MAX_INPUTS = 32;
+
+    public int sesion;
+    public int ackSnapshot;   // último snapshot decodificado por el cliente, -1 si ninguno
+    public int secuencia;     // secuencia del input más nuevo
+    public int tick;          // tick al que apunta el input más nuevo
+    public int retrasoVista;  // ticks entre ese input y el mundo que el cliente estaba dibujando
+    public int cantidad;      // inputs incluidos, del más nuevo hacia atrás
+
+    // inputs[k] = bits del input con secuencia (secuencia - k)
+    public final int[] inputs = new int[MAX_INPUTS];
+}
@@ -0,0 +1,39 @@
+package com.dinosauriojuego.network;
+
+import com.dinosauriojuego.servidor.logica.GameSimulacion;
+
+/**
+ * Inputs aplicados por el servidor en un rango de ticks consecutivos, tal como los recibe un cliente lockstep
+ * El input del jugador i en el tick (desde + k) está en inputs[k * jugadores + i]
+ */
+public class PaqueteLockstep {
+
+    public static final int MAX_TICKS = 128;
+
+    public int desde;             // primer tick del rango
+    public int cantidad;          // ticks incluidos (puede ser 0: solo trae el estado de la sala)
+    public int jugadores;
+    public int resetListos;       // jugadores que pidieron otra partida
+    public int inputAplicado;     // último tick de input del destinatario ya aplicado (-1 si ninguno)
+
+    // Arranque de la partida: solo si el rango empieza en su primer tick
+    public boolean inicio;
+    public long semilla;
+    public int ticksPorSegundo;
+
+    // Reinicio tras simular el último tick del rango, con la semilla de la partida nueva
+    public boolean reinicio;
+    public long semillaReinicio;
+
+    // Hash del estado al terminar un tick del rango
+    public boolean conHash;
+    public int tickHash;
+    public int hash;
+
+    // Byte por jugador y tick: saltar | agachar | rebobinado << 2 (ver HistorialInputs)
+    public final byte[] inputs = new byte[MAX_TICKS * GameSimulacion.MAX_JUGADORES];
+
+    public int getInput(int k, int jugador) {
+        return inputs[k * jugadores + jugador] & 0xFF;
+    }
+}
@@ -10,6 +10,7 @@ import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.math.RandomXS128;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
@@ -28,6 +29,8 @@ public class DinosaurioGameScreen implements Screen {
 
     private DinosaurioGame gameJugador1;
     private DinosaurioGame gameJugador2;
+    // Sortea la semilla de cada partida; los dos jugadores comparten la misma y enfrentan los mismos obstáculos
+    private final RandomXS128 semillas = new RandomXS128();
 
     private OrthographicCamera cameraJugador1;
     private OrthographicCamera cameraJugador2;
@@ -94,8 +97,9 @@ public class DinosaurioGameScreen implements Screen {
     public DinosaurioGameScreen(Skin skin) {
         this.skin = skin;
 
-        this.gameJugador1 = new DinosaurioGame(GAME_WIDTH, GAME_HEIGHT);
-        this.gameJugador2 = new DinosaurioGame(GAME_WIDTH, GAME_HEIGHT);
+        long semilla = semillas.nextLong();
+        this.gameJugador1 = new DinosaurioGame(GAME_WIDTH, GAME_HEIGHT, semilla);
+        this.gameJugador2 = new DinosaurioGame(GAME_WIDTH, GAME_HEIGHT, semilla);
 
         this.cameraJugador1 = new OrthographicCamera();
         this.cameraJugador1.setToOrtho(false, GAME_WIDTH, GAME_HEIGHT);
@@ -326,8 +330,9 @@ public class DinosaurioGameScreen implements Screen {
     }
 
     private void reiniciarJuego() {
-        gameJugador1.reset();
-        gameJugador2.reset();
+        long semilla = semillas.nextLong();
+        gameJugador1.reset(semilla);
+        gameJugador2.reset(semilla);
         ganadorLabel.setVisible(false);
         juegoTerminado = false;
         sonidoMuerteReproducido = false;
@@ -46,7 +46,7 @@ public class MenuScreen implements Screen {
         botonJugar.setSize(300, 80);
         botonJugar.setPosition(
             (1200 - 300) / 2,
-            320
+            350
         );
         botonJugar.addListener(new ClickListener() {
             @Override
@@ -56,13 +56,45 @@ public class MenuScreen implements Screen {
         });
         stage.addActor(botonJugar);
 
+        // Botón EN RED
+        TextButton botonRed = new TextButton("EN RED", skin, "default");
+        botonRed.getLabel().setFontScale(3.0f);
+        botonRed.setSize(300, 80);
+        botonRed.setPosition(
+            (1200 - 300) / 2,
+            250
+        );
+        botonRed.addListener(new ClickListener() {
+            @Override
+            public void clicked(InputEvent event, float x, float y) {
+                game.iniciarJuegoEnRed();
+            }
+        });
+        stage.addActor(botonRed);
+
+        // Botón DUELO P2P
+        TextButton botonDuelo = new TextButton("DUELO P2P", skin, "default");
+        botonDuelo.getLabel().setFontScale(3.0f);
+        botonDuelo.setSize(300, 80);
+        botonDuelo.setPosition(
+            (1200 - 300) / 2,
+            150
+        );
+        botonDuelo.addListener(new ClickListener() {
+            @Override
+            public void clicked(InputEvent event, float x, float y) {
+                game.iniciarDuelo();
+            }
+        });
+        stage.addActor(botonDuelo);
+
         // Botón SALIR
         TextButton botonSalir = new TextButton("SALIR", skin, "default");
         botonSalir.getLabel().setFontScale(3.0f);
         botonSalir.setSize(300, 80);
         botonSalir.setPosition(
             (1200 - 300) / 2,
-            200
+            50
         );
         botonSalir.addListener(new ClickListener() {
             @Override
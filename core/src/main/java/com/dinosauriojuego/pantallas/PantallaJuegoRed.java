@@ -0,0 +1,503 @@
+package com.dinosauriojuego.pantallas;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.utils.viewport.FitViewport;
+import com.badlogic.gdx.utils.viewport.Viewport;
+import com.dinosauriojuego.DinosaurioChromePrincipal;
+import com.dinosauriojuego.logica.PrediccionDino;
+import com.dinosauriojuego.network.BufferInterpolacion;
+import com.dinosauriojuego.network.ClienteRed;
+import com.dinosauriojuego.network.CodificadorSnapshot;
+import com.dinosauriojuego.network.EstadoSnapshot;
+import com.dinosauriojuego.network.PaqueteInput;
+import com.dinosauriojuego.servidor.logica.GameSimulacion;
+import java.net.SocketException;
+
+/**
+ * Pantalla del juego en red contra el servidor autoritativo
+ * El dinosaurio propio se predice localmente y se reconcilia con cada snapshot;
+ * el rival y los obstáculos se dibujan interpolados entre snapshots, un poco en el pasado
+ * Con L, antes de que empiece la partida, se pide el modo lockstep: los snapshots los arma el
+ * cliente simulando con los inputs del servidor, y la pantalla los usa igual
+ * Con O, en cualquier momento, se alterna el mundo por semilla: los obstáculos no viajan y el
+ * cliente los genera con la semilla de la partida
+ */
+public class PantallaJuegoRed implements Screen {
+    private static final float GAME_WIDTH = 1200;
+    private static final float GAME_HEIGHT = 720;
+
+    // Prefijo del tick recibido en la línea de red, por modo de recepción (CodificadorSnapshot.MODO_*)
+    private static final String[] NOMBRES_MODO = {"Snapshot: ", "Lockstep: ", "Semilla: "};
+
+    // Ticks que el cliente arranca por delante del primer snapshot recibido
+    private static final int ADELANTO_TICKS = 2;
+    // Tope de tiempo acumulado por frame, para no simular de golpe tras una pausa larga
+    private static final float ACUMULADO_MAXIMO = 0.25f;
+    // Tasas de snapshots que se recorren con la tecla T
+    private static final int[] TASAS_SNAPSHOTS = {20, 30, 60};
+
+    // Todos corren en el carril donde la simulación juzga las colisiones; los rivales, translúcidos
+    private static final float X_DINO = 50f;
+    private static final float ALFA_RIVALES = 0.45f;
+    // Un color por lugar: los dos primeros son los de siempre, el resto reparte el tono con el ángulo áureo
+    private static final Color[] COLORES_JUGADOR = crearColoresJugador();
+
+    private DinosaurioChromePrincipal game;
+    private Skin skin;
+
+    private OrthographicCamera camera;
+    private Viewport viewport;
+    private SpriteBatch batch;
+    private ShapeRenderer shapeRenderer;
+
+    // Texturas
+    private Texture dinoCyan1, dinoCyan2;
+    private Texture dinoOrange1, dinoOrange2;
+    private Texture dinoAgachado1, dinoAgachado2;
+    private Texture cactusTexture;
+    private Texture pajaro1Texture, pajaro2Texture;
+    private Texture fondoTexture;
+
+    // Sonidos
+    private Sound sonidoSalto;
+    private Sound sonidoMuerte;
+
+    // UI
+    private Stage stage;
+    private Label estadoLabel;
+    private Label puntuacionLabel;
+    private Label redLabel;
+    private Label mensajeLabel;
+
+    // Red y predicción
+    private ClienteRed cliente;
+    private final PrediccionDino prediccion = new PrediccionDino();
+    private final EstadoSnapshot snapshot = new EstadoSnapshot();
+    private boolean haySnapshot = false;
+
+    // Entidades remotas interpoladas para el frame actual
+    // La tasa del servidor se conoce al conectarse: se vuelve a fijar con el primer snapshot
+    private final BufferInterpolacion interpolacion = new BufferInterpolacion(ClienteRed.TICKS_POR_SEGUNDO_POR_DEFECTO);
+    private final EstadoSnapshot interpolado = new EstadoSnapshot();
+    private boolean hayInterpolado = false;
+
+    // Input local y paso fijo
+    private boolean saltoPendiente = false;
+    private int tasaElegida = -1;
+    private float acumulado = 0f;
+
+    // Animación local del dinosaurio propio
+    private float tiempoAnimacion = 0f;
+    private int spriteLocal = 0;
+    // Los snapshots no llevan el sprite: los rivales corren con un reloj de animación propio
+    private int spriteRivales = 0;
+
+    // Animación de fondo
+    private float fondoOffset = 0f;
+    private boolean anteriormenteTerminado = false;
+
+    public PantallaJuegoRed(DinosaurioChromePrincipal game, Skin skin, String host, int puerto) {
+        this.game = game;
+        this.skin = skin;
+
+        this.camera = new OrthographicCamera();
+        this.camera.setToOrtho(false, GAME_WIDTH, GAME_HEIGHT);
+        this.viewport = new FitViewport(GAME_WIDTH, GAME_HEIGHT, camera);
+
+        this.batch = new SpriteBatch();
+        this.shapeRenderer = new ShapeRenderer();
+        this.stage = new Stage(viewport);
+
+        cargarRecursos();
+        setupUI();
+
+        try {
+            cliente = new ClienteRed(host, puerto);
+            cliente.start();
+        } catch (SocketException e) {
+            System.err.println("❌ No se pudo abrir el socket: " + e.getMessage());
+        }
+    }
+
+    private void cargarRecursos() {
+        try {
+            dinoCyan1 = new Texture(Gdx.files.internal("dino1.png"));
+            dinoCyan2 = new Texture(Gdx.files.internal("dino2.png"));
+            dinoOrange1 = new Texture(Gdx.files.internal("dino1.png"));
+            dinoOrange2 = new Texture(Gdx.files.internal("dino2.png"));
+            dinoAgachado1 = new Texture(Gdx.files.internal("dinoAgachado1.png"));
+            dinoAgachado2 = new Texture(Gdx.files.internal("dinoAgachado2.png"));
+
+            cactusTexture = new Texture(Gdx.files.internal("cactus.png"));
+            pajaro1Texture = new Texture(Gdx.files.internal("pajaro1.png"));
+            pajaro2Texture = new Texture(Gdx.files.internal("pajaro2.png"));
+
+            fondoTexture = new Texture(Gdx.files.internal("fondo.png"));
+            fondoTexture.setWrap(Texture.TextureWrap.Repeat, Texture.TextureWrap.Repeat);
+
+            sonidoSalto = Gdx.audio.newSound(Gdx.files.internal("sonidoSalto.ogg"));
+            sonidoMuerte = Gdx.audio.newSound(Gdx.files.internal("sonidoMuerte.ogg"));
+        } catch (Exception e) {
+            System.out.println("⚠️ No se pudieron cargar algunas texturas/sonidos");
+        }
+    }
+
+    private void setupUI() {
+        estadoLabel = new Label("", skin, "default");
+        estadoLabel.setFontScale(2.0f);
+        estadoLabel.setPosition(20, GAME_HEIGHT - 40);
+        estadoLabel.setColor(Color.WHITE);
+        stage.addActor(estadoLabel);
+
+        puntuacionLabel = new Label("", skin, "default");
+        puntuacionLabel.setFontScale(2.5f);
+        puntuacionLabel.setPosition(20, GAME_HEIGHT - 90);
+        puntuacionLabel.setColor(Color.YELLOW);
+        stage.addActor(puntuacionLabel);
+
+        redLabel = new Label("", skin, "default");
+        redLabel.setFontScale(1.5f);
+        redLabel.setPosition(20, GAME_HEIGHT - 160);
+        redLabel.setColor(Color.LIGHT_GRAY);
+        stage.addActor(redLabel);
+
+        mensajeLabel = new Label("", skin, "default");
+        mensajeLabel.setFontScale(4.0f);
+        mensajeLabel.setColor(Color.RED);
+        mensajeLabel.setVisible(false);
+        stage.addActor(mensajeLabel);
+    }
+
+    @Override
+    public void show() {
+        Gdx.input.setInputProcessor(stage);
+    }
+
+    @Override
+    public void render(float delta) {
+        if (Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE)) {
+            game.volverAlMenu();
+            return;
+        }
+
+        recibirSnapshots();
+        interpolacion.avanzar(System.nanoTime());
+        hayInterpolado = interpolacion.muestrear(interpolado);
+        handleInput();
+        simularPrediccion(delta);
+        prediccion.actualizarError(delta);
+        actualizarUI();
+
+        if (haySnapshot && snapshot.juegoIniciado && !snapshot.terminado) {
+            fondoOffset += snapshot.velocidad * delta;
+        }
+
+        Gdx.gl.glClearColor(0.1f, 0.1f, 0.1f, 1);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+
+        camera.update();
+        batch.setProjectionMatrix(camera.combined);
+        shapeRenderer.setProjectionMatrix(camera.combined);
+
+        batch.begin();
+        dibujarFondo();
+        if (hayInterpolado) {
+            dibujarObstaculos();
+
+            // Los rivales en el mismo carril que el propio, debajo de él
+            int jugador = cliente.getJugador();
+            for (int rival = 0; rival < interpolado.cantidadJugadores; rival++) {
+                if (rival != jugador) {
+                    dibujarDinosaurio(X_DINO, interpolado.jugadorY[rival], interpolado.jugadorAgachado[rival],
+                            interpolado.jugadorVivo[rival], spriteRivales, colorJugador(rival), ALFA_RIVALES);
+                }
+            }
+            if (prediccion.estaIniciada()) {
+                dibujarDinosaurio(X_DINO, prediccion.getYVisual(), prediccion.isAgachado(), prediccion.isVivo(),
+                        spriteLocal, colorJugador(jugador), 1f);
+            }
+        }
+        batch.end();
+
+        stage.act(delta);
+        stage.draw();
+    }
+
+    /**
+     * Toma los snapshots nuevos en orden: van al buffer de interpolación y corrigen la predicción
+     */
+    private void recibirSnapshots() {
+        if (cliente == null) {
+            return;
+        }
+
+        while (cliente.tomarSnapshot(snapshot)) {
+            if (!haySnapshot) {
+                interpolacion.limpiar(cliente.getTicksPorSegundo());
+            }
+            haySnapshot = true;
+            interpolacion.agregar(snapshot);
+
+            if (!prediccion.estaIniciada()) {
+                if (snapshot.juegoIniciado) {
+                    prediccion.iniciar(snapshot.tick + ADELANTO_TICKS, cliente.getTicksPorSegundo());
+                }
+            } else {
+                prediccion.reconciliar(snapshot, cliente.getJugador());
+            }
+
+            // Sonido de muerte al terminar la partida
+            if (snapshot.terminado && !anteriormenteTerminado && sonidoMuerte != null) {
+                sonidoMuerte.play(1.0f);
+            }
+            anteriormenteTerminado = snapshot.terminado;
+        }
+    }
+
+    private void handleInput() {
+        // T cambia la tasa de snapshots en plena partida
+        if (cliente != null && Gdx.input.isKeyJustPressed(Input.Keys.T)) {
+            tasaElegida = (tasaElegida + 1) % TASAS_SNAPSHOTS.length;
+            cliente.pedirSnapshotsPorSegundo(TASAS_SNAPSHOTS[tasaElegida]);
+        }
+
+        // L alterna el modo lockstep mientras se espera la partida
+        if (cliente != null && !haySnapshot && Gdx.input.isKeyJustPressed(Input.Keys.L)) {
+            cliente.pedirModo(cliente.getModo() == CodificadorSnapshot.MODO_LOCKSTEP
+                    ? CodificadorSnapshot.MODO_SNAPSHOTS : CodificadorSnapshot.MODO_LOCKSTEP);
+        }
+
+        // O alterna el mundo por semilla en cualquier momento
+        if (cliente != null && Gdx.input.isKeyJustPressed(Input.Keys.O)) {
+            cliente.pedirModo(cliente.getModo() == CodificadorSnapshot.MODO_SEMILLA
+                    ? CodificadorSnapshot.MODO_SNAPSHOTS : CodificadorSnapshot.MODO_SEMILLA);
+        }
+
+        if (haySnapshot && snapshot.terminado) {
+            // Con la partida terminada, ESPACIO pide jugar otra vez
+            if (Gdx.input.isKeyJustPressed(Input.Keys.SPACE)) {
+                cliente.enviarReset();
+            }
+            return;
+        }
+
+        if (Gdx.input.isKeyJustPressed(Input.Keys.W) ||
+            Gdx.input.isKeyJustPressed(Input.Keys.SPACE) ||
+            Gdx.input.isKeyJustPressed(Input.Keys.UP)) {
+            saltoPendiente = true;
+        }
+    }
+
+    /**
+     * Avanza la predicción a paso fijo, enviando un input por tick
+     */
+    private void simularPrediccion(float delta) {
+        if (!prediccion.estaIniciada()) {
+            return;
+        }
+
+        boolean agachar = Gdx.input.isKeyPressed(Input.Keys.S) || Gdx.input.isKeyPressed(Input.Keys.DOWN);
+        // Con una tasa de simulación muy baja el tope tiene que dejar pasar al menos un tick
+        float deltaTick = prediccion.getDeltaTick();
+        acumulado = Math.min(acumulado + delta, Math.max(ACUMULADO_MAXIMO, deltaTick));
+
+        while (acumulado >= deltaTick) {
+            int bits = 0;
+            if (saltoPendiente) {
+                bits |= PaqueteInput.SALTAR;
+                // El sonido sale con el salto predicho, sin esperar al servidor
+                if (prediccion.isVivo() && prediccion.isEnSuelo() && !prediccion.isAgachado() && sonidoSalto != null) {
+                    sonidoSalto.play(1.0f);
+                }
+                saltoPendiente = false;
+            }
+            if (agachar) {
+                bits |= PaqueteInput.AGACHAR;
+            }
+
+            int tick = prediccion.avanzar(bits);
+            int retrasoVista = (int) Math.round(tick - interpolacion.getTickRender());
+            cliente.enviarInput(tick, bits, retrasoVista);
+            acumulado -= deltaTick;
+
+            tiempoAnimacion += deltaTick;
+            if (tiempoAnimacion >= 0.1f) {
+                if (prediccion.isEnSuelo()) {
+                    spriteLocal = (spriteLocal + 1) % 2;
+                }
+                spriteRivales = (spriteRivales + 1) % 2;
+                tiempoAnimacion = 0;
+            }
+        }
+    }
+
+    private void actualizarUI() {
+        int estado = cliente == null ? ClienteRed.ESTADO_CERRADO : cliente.getEstado();
+        if (estado == ClienteRed.ESTADO_CONECTANDO) {
+            estadoLabel.setText("Conectando al servidor...");
+        } else if (estado == ClienteRed.ESTADO_ESPERANDO) {
+            estadoLabel.setText("Esperando al otro jugador...");
+        } else if (estado == ClienteRed.ESTADO_LLENO) {
+            estadoLabel.setText("Servidor lleno (ESC para volver)");
+        } else if (estado == ClienteRed.ESTADO_CERRADO) {
+            estadoLabel.setText("Sin conexión (ESC para volver)");
+        } else {
+            estadoLabel.setText("EN RED - Jugador " + (cliente.getJugador() + 1));
+        }
+
+        puntuacionLabel.setText(haySnapshot ? "Puntuación: " + snapshot.puntuacion : "");
+        redLabel.setText(cliente == null ? "" :
+                NOMBRES_MODO[cliente.getModo()] + cliente.getUltimoTickRecibido() +
+                " (" + (tasaElegida < 0 ? "tasa del servidor" : TASAS_SNAPSHOTS[tasaElegida] + "/s") + ", T cambia)" +
+                " | " + prediccion.getResumen() +
+                "\nInterpolación: " + interpolacion.getResumen());
+
+        if (haySnapshot && snapshot.terminado) {
+            mensajeLabel.setText(snapshot.getMensajeFin());
+            mensajeLabel.setVisible(true);
+            mensajeLabel.pack();
+            mensajeLabel.setPosition((GAME_WIDTH - mensajeLabel.getWidth()) / 2, GAME_HEIGHT / 2);
+        } else {
+            mensajeLabel.setVisible(false);
+        }
+    }
+
+    private void dibujarFondo() {
+        if (fondoTexture != null) {
+            float fondoAncho = fondoTexture.getWidth();
+            float fondoAlto = 60;
+            int repeticiones = (int) Math.ceil(GAME_WIDTH / fondoAncho) + 2;
+            float offsetNormalizado = fondoOffset % fondoAncho;
+
+            for (int i = -1; i < repeticiones; i++) {
+                float x = i * fondoAncho - offsetNormalizado;
+                batch.draw(fondoTexture, x, 22, fondoAncho, fondoAlto);
+            }
+        } else {
+            // Suelo de respaldo
+            batch.end();
+            shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
+            shapeRenderer.setColor(0.5f, 0.5f, 0.5f, 1);
+            shapeRenderer.rect(0, 0, GAME_WIDTH, 60);
+            shapeRenderer.end();
+            batch.begin();
+        }
+    }
+
+    private void dibujarObstaculos() {
+        for (int i = 0; i < interpolado.cantidadObstaculos; i++) {
+            int tipo = interpolado.obstaculoTipo[i];
+            float ancho = GameSimulacion.anchoObstaculo(tipo);
+            float alto = GameSimulacion.altoObstaculo(tipo, interpolado.obstaculoVariante[i]);
+            if (tipo == 0) {
+                dibujarTextura(cactusTexture, interpolado.obstaculoX[i], interpolado.obstaculoY[i], ancho, alto, Color.RED);
+            } else {
+                Texture pajaroTex = (interpolado.tick % 12 < 6) ? pajaro1Texture : pajaro2Texture;
+                dibujarTextura(pajaroTex, interpolado.obstaculoX[i], interpolado.obstaculoY[i], ancho, alto, Color.BLUE);
+            }
+        }
+    }
+
+    private void dibujarDinosaurio(float x, float y, boolean agachado, boolean vivo, int sprite, Color color,
+                                   float alfa) {
+        if (!vivo) {
+            // Dinosaurio muerto - dibujar en gris
+            batch.setColor(0.5f, 0.5f, 0.5f, alfa);
+        } else {
+            batch.setColor(color.r, color.g, color.b, alfa);
+        }
+
+        Texture textura;
+        if (agachado) {
+            textura = (sprite == 0) ? dinoAgachado1 : dinoAgachado2;
+        } else if (color == Color.CYAN) {
+            textura = (sprite == 0) ? dinoCyan1 : dinoCyan2;
+        } else {
+            textura = (sprite == 0) ? dinoOrange1 : dinoOrange2;
+        }
+        dibujarTextura(textura, x, y, 50, agachado ? 30 : 60, color);
+
+        batch.setColor(Color.WHITE);
+    }
+
+    private void dibujarTextura(Texture textura, float x, float y, float ancho, float alto, Color respaldo) {
+        if (textura != null) {
+            batch.draw(textura, x, y, ancho, alto);
+        } else {
+            // Fallback
+            batch.end();
+            shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
+            shapeRenderer.setColor(respaldo);
+            shapeRenderer.rect(x, y, ancho, alto);
+            shapeRenderer.end();
+            batch.begin();
+        }
+    }
+
+    private static Color colorJugador(int jugador) {
+        return COLORES_JUGADOR[jugador];
+    }
+
+    private static Color[] crearColoresJugador() {
+        Color[] colores = new Color[GameSimulacion.MAX_JUGADORES];
+        colores[0] = Color.CYAN;
+        colores[1] = Color.ORANGE;
+        for (int i = 2; i < colores.length; i++) {
+            colores[i] = new Color(1f, 1f, 1f, 1f).fromHsv((i * 137.5f) % 360f, 0.65f, 1f);
+        }
+        return colores;
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        viewport.update(width, height, true);
+    }
+
+    @Override
+    public void pause() {
+    }
+
+    @Override
+    public void resume() {
+    }
+
+    @Override
+    public void hide() {
+    }
+
+    @Override
+    public void dispose() {
+        if (cliente != null) {
+            cliente.cerrar();
+        }
+
+        if (batch != null) batch.dispose();
+        if (shapeRenderer != null) shapeRenderer.dispose();
+        if (stage != null) stage.dispose();
+
+        if (dinoCyan1 != null) dinoCyan1.dispose();
+        if (dinoCyan2 != null) dinoCyan2.dispose();
+        if (dinoOrange1 != null) dinoOrange1.dispose();
+        if (dinoOrange2 != null) dinoOrange2.dispose();
+        if (dinoAgachado1 != null) dinoAgachado1.dispose();
+        if (dinoAgachado2 != null) dinoAgachado2.dispose();
+        if (cactusTexture != null) cactusTexture.dispose();
+        if (pajaro1Texture != null) pajaro1Texture.dispose();
+        if (pajaro2Texture != null) pajaro2Texture.dispose();
+        if (fondoTexture != null) fondoTexture.dispose();
+        if (sonidoSalto != null) sonidoSalto.dispose();
+        if (sonidoMuerte != null) sonidoMuerte.dispose();
+    }
+}
@@ -0,0 +1,423 @@
+package com.dinosauriojuego.pantallas;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.utils.viewport.FitViewport;
+import com.badlogic.gdx.utils.viewport.Viewport;
+import com.dinosauriojuego.DinosaurioChromePrincipal;
+import com.dinosauriojuego.logica.SesionRollback;
+import com.dinosauriojuego.network.ConexionPar;
+import com.dinosauriojuego.network.PaqueteInput;
+import com.dinosauriojuego.servidor.logica.AlmacenObstaculos;
+import com.dinosauriojuego.servidor.logica.EstadoJugadores;
+import com.dinosauriojuego.servidor.logica.GameSimulacion;
+import java.net.SocketException;
+
+/**
+ * Pantalla del duelo 1v1 entre pares con rollback, sin servidor de por medio
+ * Cada frame pasa a la sesión los inputs confirmados del rival, avanza a paso fijo con el input
+ * local y dibuja la simulación ya corregida; los dos dinosaurios y los obstáculos salen de ahí
+ */
+public class PantallaRollback implements Screen {
+    private static final float GAME_WIDTH = 1200;
+    private static final float GAME_HEIGHT = 720;
+
+    // Tope de tiempo acumulado por frame, para no simular de golpe tras una pausa larga
+    private static final float ACUMULADO_MAXIMO = 0.25f;
+    // Ticks de ventaja sobre el rival a partir de los cuales se espera un tick para emparejarse
+    private static final int ADELANTO_MAXIMO = 1;
+
+    private DinosaurioChromePrincipal game;
+    private Skin skin;
+
+    private OrthographicCamera camera;
+    private Viewport viewport;
+    private SpriteBatch batch;
+    private ShapeRenderer shapeRenderer;
+
+    // Texturas
+    private Texture dinoCyan1, dinoCyan2;
+    private Texture dinoOrange1, dinoOrange2;
+    private Texture dinoAgachado1, dinoAgachado2;
+    private Texture cactusTexture;
+    private Texture pajaro1Texture, pajaro2Texture;
+    private Texture fondoTexture;
+
+    // Sonidos
+    private Sound sonidoSalto;
+    private Sound sonidoMuerte;
+
+    // UI
+    private Stage stage;
+    private Label estadoLabel;
+    private Label puntuacionLabel;
+    private Label redLabel;
+    private Label mensajeLabel;
+
+    // Conexión y sesión (la sesión se crea cuando el handshake trae la semilla)
+    private ConexionPar conexion;
+    private final String descripcionPar;
+    private SesionRollback sesion;
+
+    // Input local y paso fijo
+    private boolean saltoPendiente = false;
+    private float acumulado = 0f;
+    private long ticksCedidos;
+
+    // Para los sonidos: cómo estaba el dinosaurio propio en el frame anterior
+    private boolean anteriormenteEnSuelo = true;
+    private boolean anteriormenteVivo = true;
+
+    // Animación de fondo
+    private float fondoOffset = 0f;
+
+    /**
+     * @param host anfitrión al que conectarse, o null para serlo y esperar al rival en el puerto
+     */
+    public PantallaRollback(DinosaurioChromePrincipal game, Skin skin, String host, int puerto) {
+        this.game = game;
+        this.skin = skin;
+
+        this.camera = new OrthographicCamera();
+        this.camera.setToOrtho(false, GAME_WIDTH, GAME_HEIGHT);
+        this.viewport = new FitViewport(GAME_WIDTH, GAME_HEIGHT, camera);
+
+        this.batch = new SpriteBatch();
+        this.shapeRenderer = new ShapeRenderer();
+        this.stage = new Stage(viewport);
+
+        cargarRecursos();
+        setupUI();
+
+        this.descripcionPar = host == null ? "el puerto " + puerto : host + ":" + puerto;
+        try {
+            conexion = host == null ? ConexionPar.escuchar(puerto) : ConexionPar.conectar(host, puerto);
+            conexion.start();
+        } catch (SocketException e) {
+            System.err.println("❌ No se pudo abrir el socket: " + e.getMessage());
+        }
+    }
+
+    private void cargarRecursos() {
+        try {
+            dinoCyan1 = new Texture(Gdx.files.internal("dino1.png"));
+            dinoCyan2 = new Texture(Gdx.files.internal("dino2.png"));
+            dinoOrange1 = new Texture(Gdx.files.internal("dino1.png"));
+            dinoOrange2 = new Texture(Gdx.files.internal("dino2.png"));
+            dinoAgachado1 = new Texture(Gdx.files.internal("dinoAgachado1.png"));
+            dinoAgachado2 = new Texture(Gdx.files.internal("dinoAgachado2.png"));
+
+            cactusTexture = new Texture(Gdx.files.internal("cactus.png"));
+            pajaro1Texture = new Texture(Gdx.files.internal("pajaro1.png"));
+            pajaro2Texture = new Texture(Gdx.files.internal("pajaro2.png"));
+
+            fondoTexture = new Texture(Gdx.files.internal("fondo.png"));
+            fondoTexture.setWrap(Texture.TextureWrap.Repeat, Texture.TextureWrap.Repeat);
+
+            sonidoSalto = Gdx.audio.newSound(Gdx.files.internal("sonidoSalto.ogg"));
+            sonidoMuerte = Gdx.audio.newSound(Gdx.files.internal("sonidoMuerte.ogg"));
+        } catch (Exception e) {
+            System.out.println("⚠️ No se pudieron cargar algunas texturas/sonidos");
+        }
+    }
+
+    private void setupUI() {
+        estadoLabel = new Label("", skin, "default");
+        estadoLabel.setFontScale(2.0f);
+        estadoLabel.setPosition(20, GAME_HEIGHT - 40);
+        estadoLabel.setColor(Color.WHITE);
+        stage.addActor(estadoLabel);
+
+        puntuacionLabel = new Label("", skin, "default");
+        puntuacionLabel.setFontScale(2.5f);
+        puntuacionLabel.setPosition(20, GAME_HEIGHT - 90);
+        puntuacionLabel.setColor(Color.YELLOW);
+        stage.addActor(puntuacionLabel);
+
+        redLabel = new Label("", skin, "default");
+        redLabel.setFontScale(1.5f);
+        redLabel.setPosition(20, GAME_HEIGHT - 160);
+        redLabel.setColor(Color.LIGHT_GRAY);
+        stage.addActor(redLabel);
+
+        mensajeLabel = new Label("", skin, "default");
+        mensajeLabel.setFontScale(4.0f);
+        mensajeLabel.setColor(Color.RED);
+        mensajeLabel.setVisible(false);
+        stage.addActor(mensajeLabel);
+    }
+
+    @Override
+    public void show() {
+        Gdx.input.setInputProcessor(stage);
+    }
+
+    @Override
+    public void render(float delta) {
+        if (Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE)) {
+            game.volverAlMenu();
+            return;
+        }
+
+        if (sesion == null && conexion != null && conexion.getEstado() == ConexionPar.ESTADO_JUGANDO) {
+            sesion = new SesionRollback(conexion.getJugador(), conexion.getSemilla());
+        }
+        if (sesion != null) {
+            recibirInputsRemotos();
+            handleInput();
+            simular(delta);
+            sesion.corregir();
+            conexion.enviarInputs(sesion.getTick() - 1);
+            reproducirSonidos();
+        }
+        actualizarUI();
+
+        GameSimulacion simulacion = sesion != null ? sesion.getSimulacion() : null;
+        if (simulacion != null && !simulacion.terminado) {
+            fondoOffset += simulacion.velocidad * delta;
+        }
+
+        Gdx.gl.glClearColor(0.1f, 0.1f, 0.1f, 1);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+
+        camera.update();
+        batch.setProjectionMatrix(camera.combined);
+        shapeRenderer.setProjectionMatrix(camera.combined);
+
+        batch.begin();
+        dibujarFondo();
+        if (simulacion != null) {
+            dibujarObstaculos(simulacion);
+
+            // El rival un poco corrido para verlo junto al propio, como en la pantalla en red
+            EstadoJugadores dinos = simulacion.jugadores;
+            int jugador = sesion.getJugadorLocal();
+            int rival = 1 - jugador;
+            dibujarDinosaurio(150, dinos.y[rival], dinos.agachado[rival], dinos.vivo[rival], dinos.sprite[rival],
+                    colorJugador(rival));
+            dibujarDinosaurio(50, dinos.y[jugador], dinos.agachado[jugador], dinos.vivo[jugador], dinos.sprite[jugador],
+                    colorJugador(jugador));
+        }
+        batch.end();
+
+        stage.act(delta);
+        stage.draw();
+    }
+
+    /**
+     * Pasa a la sesión, en orden, los inputs del rival que la conexión ya recibió sin huecos
+     */
+    private void recibirInputsRemotos() {
+        int ultimo = conexion.getUltimoRemoto();
+        for (int tick = sesion.getRemotoConfirmado() + 1; tick <= ultimo; tick++) {
+            if (!sesion.confirmarRemoto(tick, conexion.getInputRemoto(tick))) {
+                break;
+            }
+        }
+    }
+
+    private void handleInput() {
+        if (Gdx.input.isKeyJustPressed(Input.Keys.W) ||
+            Gdx.input.isKeyJustPressed(Input.Keys.SPACE) ||
+            Gdx.input.isKeyJustPressed(Input.Keys.UP)) {
+            saltoPendiente = true;
+        }
+    }
+
+    /**
+     * Avanza la sesión a paso fijo; si el rival quedó atrás se cede un tick o se lo espera
+     */
+    private void simular(float delta) {
+        boolean agachar = Gdx.input.isKeyPressed(Input.Keys.S) || Gdx.input.isKeyPressed(Input.Keys.DOWN);
+        acumulado = Math.min(acumulado + delta, ACUMULADO_MAXIMO);
+
+        while (acumulado >= SesionRollback.DELTA_TICK) {
+            // Si este par va adelantado, esperar un tick deja al rival alcanzarlo y acorta los rollbacks
+            if (sesion.ticksAdelantado(conexion.getAckRemoto()) > ADELANTO_MAXIMO) {
+                ticksCedidos++;
+                acumulado -= SesionRollback.DELTA_TICK;
+                continue;
+            }
+
+            int bits = (saltoPendiente ? PaqueteInput.SALTAR : 0) | (agachar ? PaqueteInput.AGACHAR : 0);
+            int tick = sesion.getTick();
+            if (!sesion.avanzar(bits)) {
+                // Demasiados ticks sin confirmar: el input queda para cuando el rival llegue
+                break;
+            }
+            conexion.registrarInput(tick, bits);
+            saltoPendiente = false;
+            acumulado -= SesionRollback.DELTA_TICK;
+        }
+    }
+
+    private void reproducirSonidos() {
+        EstadoJugadores dinos = sesion.getSimulacion().jugadores;
+        int jugador = sesion.getJugadorLocal();
+        if (anteriormenteEnSuelo && !dinos.enSuelo[jugador] && dinos.vivo[jugador] && sonidoSalto != null) {
+            sonidoSalto.play(1.0f);
+        }
+        if (anteriormenteVivo && !dinos.vivo[jugador] && sonidoMuerte != null) {
+            sonidoMuerte.play(1.0f);
+        }
+        anteriormenteEnSuelo = dinos.enSuelo[jugador];
+        anteriormenteVivo = dinos.vivo[jugador];
+    }
+
+    private void actualizarUI() {
+        int estado = conexion == null ? ConexionPar.ESTADO_CERRADO : conexion.getEstado();
+        if (estado == ConexionPar.ESTADO_CERRADO) {
+            estadoLabel.setText("Sin conexión (ESC para volver)");
+        } else if (sesion == null) {
+            estadoLabel.setText(conexion.isAnfitrion()
+                    ? "Esperando al rival en " + descripcionPar + "..."
+                    : "Conectando a " + descripcionPar + "...");
+        } else {
+            estadoLabel.setText("DUELO P2P - Jugador " + (sesion.getJugadorLocal() + 1));
+        }
+
+        GameSimulacion simulacion = sesion != null ? sesion.getSimulacion() : null;
+        puntuacionLabel.setText(simulacion != null ? "Puntuación: " + simulacion.puntuacion : "");
+        redLabel.setText(sesion == null ? "" :
+                sesion.getResumen() + "\nCedidos: " + ticksCedidos + " | paquetes: " + conexion.getPaquetesRecibidos() +
+                " (inválidos: " + conexion.getPaquetesInvalidos() + ")");
+
+        if (simulacion != null && simulacion.terminado) {
+            boolean pedida = sesion.isRevanchaPedida(sesion.getJugadorLocal());
+            mensajeLabel.setText(simulacion.mensajeFin + (pedida ? "\nEsperando al rival..." : "\nESPACIO: revancha"));
+            mensajeLabel.setVisible(true);
+            mensajeLabel.pack();
+            mensajeLabel.setPosition((GAME_WIDTH - mensajeLabel.getWidth()) / 2, GAME_HEIGHT / 2);
+        } else {
+            mensajeLabel.setVisible(false);
+        }
+    }
+
+    private void dibujarFondo() {
+        if (fondoTexture != null) {
+            float fondoAncho = fondoTexture.getWidth();
+            float fondoAlto = 60;
+            int repeticiones = (int) Math.ceil(GAME_WIDTH / fondoAncho) + 2;
+            float offsetNormalizado = fondoOffset % fondoAncho;
+
+            for (int i = -1; i < repeticiones; i++) {
+                float x = i * fondoAncho - offsetNormalizado;
+                batch.draw(fondoTexture, x, 22, fondoAncho, fondoAlto);
+            }
+        } else {
+            // Suelo de respaldo
+            batch.end();
+            shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
+            shapeRenderer.setColor(0.5f, 0.5f, 0.5f, 1);
+            shapeRenderer.rect(0, 0, GAME_WIDTH, 60);
+            shapeRenderer.end();
+            batch.begin();
+        }
+    }
+
+    private void dibujarObstaculos(GameSimulacion simulacion) {
+        AlmacenObstaculos obstaculos = simulacion.obstaculos;
+        for (int k = 0; k < obstaculos.getCantidad(); k++) {
+            int i = obstaculos.lugar(k);
+            if (obstaculos.tipo[i] == 0) {
+                dibujarTextura(cactusTexture, obstaculos.x[i], obstaculos.y[i], obstaculos.ancho[i], obstaculos.alto[i],
+                        Color.RED);
+            } else {
+                Texture pajaroTex = (simulacion.getTickSimulacion() % 12 < 6) ? pajaro1Texture : pajaro2Texture;
+                dibujarTextura(pajaroTex, obstaculos.x[i], obstaculos.y[i], obstaculos.ancho[i], obstaculos.alto[i],
+                        Color.BLUE);
+            }
+        }
+    }
+
+    private void dibujarDinosaurio(float x, float y, boolean agachado, boolean vivo, int sprite, Color color) {
+        if (!vivo) {
+            // Dinosaurio muerto - dibujar en gris
+            batch.setColor(0.5f, 0.5f, 0.5f, 1);
+        } else {
+            batch.setColor(color);
+        }
+
+        Texture textura;
+        if (agachado) {
+            textura = (sprite == 0) ? dinoAgachado1 : dinoAgachado2;
+        } else if (color == Color.CYAN) {
+            textura = (sprite == 0) ? dinoCyan1 : dinoCyan2;
+        } else {
+            textura = (sprite == 0) ? dinoOrange1 : dinoOrange2;
+        }
+        dibujarTextura(textura, x, y, 50, agachado ? 30 : 60, color);
+
+        batch.setColor(Color.WHITE);
+    }
+
+    private void dibujarTextura(Texture textura, float x, float y, float ancho, float alto, Color respaldo) {
+        if (textura != null) {
+            batch.draw(textura, x, y, ancho, alto);
+        } else {
+            // Fallback
+            batch.end();
+            shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
+            shapeRenderer.setColor(respaldo);
+            shapeRenderer.rect(x, y, ancho, alto);
+            shapeRenderer.end();
+            batch.begin();
+        }
+    }
+
+    private static Color colorJugador(int jugador) {
+        return jugador == 0 ? Color.CYAN : Color.ORANGE;
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        viewport.update(width, height, true);
+    }
+
+    @Override
+    public void pause() {
+    }
+
+    @Override
+    public void resume() {
+    }
+
+    @Override
+    public void hide() {
+    }
+
+    @Override
+    public void dispose() {
+        if (conexion != null) {
+            conexion.cerrar();
+        }
+
+        if (batch != null) batch.dispose();
+        if (shapeRenderer != null) shapeRenderer.dispose();
+        if (stage != null) stage.dispose();
+
+        if (dinoCyan1 != null) dinoCyan1.dispose();
+        if (dinoCyan2 != null) dinoCyan2.dispose();
+        if (dinoOrange1 != null) dinoOrange1.dispose();
+        if (dinoOrange2 != null) dinoOrange2.dispose();
+        if (dinoAgachado1 != null) dinoAgachado1.dispose();
+        if (dinoAgachado2 != null) dinoAgachado2.dispose();
+        if (cactusTexture != null) cactusTexture.dispose();
+        if (pajaro1Texture != null) pajaro1Texture.dispose();
+        if (pajaro2Texture != null) pajaro2Texture.dispose();
+        if (fondoTexture != null) fondoTexture.dispose();
+        if (sonidoSalto != null) sonidoSalto.dispose();
+        if (sonidoMuerte != null) sonidoMuerte.dispose();
+    }
+}
@@ -0,0 +1,140 @@
+package com.dinosauriojuego.servidor;
+
+import com.dinosauriojuego.servidor.logica.GameSimulacion;
+import com.dinosauriojuego.servidor.logica.JugadorBot;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Parámetros del servidor dedicado
+ *
+ * Se resuelven en este orden, cada fuente pisa a la anterior:
+ * valores por defecto, archivo de propiedades (servidor.properties o --config=ruta),
+ * propiedades del sistema (-Ddino.clave=valor) y argumentos (--clave=valor)
+ */
+public class ConfiguracionServidor {
+
+    public static final String ARCHIVO_POR_DEFECTO = "servidor.properties";
+    private static final String PREFIJO_SISTEMA = "dino.";
+
+    public int puerto = 8999;
+    public int maxSalas = 2048;
+    public int jugadoresPorSala = GameSimulacion.JUGADORES_POR_DEFECTO;
+    public int ticksPorSegundo = 60;
+    public int snapshotsPorSegundo = 20; // por cliente; cada uno puede pedir otra con "TASA"
+    public int maxTicksPonerseAlDia = 5;
+    public int hilosSimulacion = Runtime.getRuntime().availableProcessors();
+    // Una sala con más jugadores que esto reparte sus dinosaurios entre los hilos; con el máximo, nunca
+    public int jugadoresPorTarea = GameSimulacion.MAX_JUGADORES;
+    public int intervaloEstadisticas = 10; // segundos entre reportes del servidor dedicado
+    // Segundos que una sala con alguien listo espera a llenarse antes de completarla con bots (0 = nunca)
+    public int esperaBots = 10;
+    public int dificultadBots = 7; // entre JugadorBot.DIFICULTAD_MINIMA y DIFICULTAD_MAXIMA
+    public int presupuestoBots = 3000; // ticks que simula un bot como máximo al buscar su próxima jugada
+
+    /**
+     * Arma la configuración a partir de los argumentos de línea de comandos
+     */
+    public static ConfiguracionServidor desdeArgumentos(String[] args) {
+        Properties propiedades = new Properties();
+
+        // Archivo de propiedades
+        String rutaConfig = buscarArgumento(args, "config");
+        File archivo = new File(rutaConfig != null ? rutaConfig : ARCHIVO_POR_DEFECTO);
+        if (archivo.isFile()) {
+            try (InputStream in = new FileInputStream(archivo)) {
+                propiedades.load(in);
+            } catch (IOException e) {
+                System.err.println("⚠️ No se pudo leer " + archivo + ": " + e.getMessage());
+            }
+        } else if (rutaConfig != null) {
+            System.err.println("⚠️ No existe el archivo de configuración " + archivo);
+        }
+
+        // Propiedades del sistema
+        for (String clave : System.getProperties().stringPropertyNames()) {
+            if (clave.startsWith(PREFIJO_SISTEMA)) {
+                propiedades.setProperty(clave.substring(PREFIJO_SISTEMA.length()), System.getProperty(clave));
+            }
+        }
+
+        // Argumentos --clave=valor
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.indexOf('=') > 2) {
+                int igual = arg.indexOf('=');
+                propiedades.setProperty(arg.substring(2, igual), arg.substring(igual + 1));
+            }
+        }
+
+        ConfiguracionServidor config = new ConfiguracionServidor();
+        config.aplicar(propiedades);
+        return config;
+    }
+
+    /**
+     * Toma de las propiedades los valores presentes
+     */
+    public void aplicar(Properties propiedades) {
+        puerto = leerEntero(propiedades, "puerto", puerto, 1, 65535);
+        maxSalas = leerEntero(propiedades, "maxSalas", maxSalas, 1, Integer.MAX_VALUE);
+        jugadoresPorSala = leerEntero(propiedades, "jugadoresPorSala", jugadoresPorSala, 1, GameSimulacion.MAX_JUGADORES);
+        ticksPorSegundo = leerEntero(propiedades, "ticksPorSegundo", ticksPorSegundo, 1, 1000);
+        snapshotsPorSegundo = leerEntero(propiedades, "snapshotsPorSegundo", snapshotsPorSegundo, 1, 1000);
+        maxTicksPonerseAlDia = leerEntero(propiedades, "maxTicksPonerseAlDia", maxTicksPonerseAlDia, 1, 1000);
+        hilosSimulacion = leerEntero(propiedades, "hilosSimulacion", hilosSimulacion, 1, 1024);
+        jugadoresPorTarea = leerEntero(propiedades, "jugadoresPorTarea", jugadoresPorTarea, 1, GameSimulacion.MAX_JUGADORES);
+        intervaloEstadisticas = leerEntero(propiedades, "intervaloEstadisticas", intervaloEstadisticas, 1, 3600);
+        esperaBots = leerEntero(propiedades, "esperaBots", esperaBots, 0, 3600);
+        dificultadBots = leerEntero(propiedades, "dificultadBots", dificultadBots,
+                JugadorBot.DIFICULTAD_MINIMA, JugadorBot.DIFICULTAD_MAXIMA);
+        presupuestoBots = leerEntero(propiedades, "presupuestoBots", presupuestoBots, 1, 1000000);
+
+        // Más snapshots que ticks no tiene sentido: no habría estado nuevo para mandar
+        snapshotsPorSegundo = Math.min(snapshotsPorSegundo, ticksPorSegundo);
+    }
+
+    private static int leerEntero(Properties propiedades, String clave, int porDefecto, int minimo, int maximo) {
+        String valor = propiedades.getProperty(clave);
+        if (valor == null) {
+            return porDefecto;
+        }
+        try {
+            int numero = Integer.parseInt(valor.trim());
+            if (numero < minimo || numero > maximo) {
+                throw new IllegalArgumentException("El valor de " + clave + " debe estar entre " +
+                        minimo + " y " + maximo + ": " + numero);
+            }
+            return numero;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El valor de " + clave + " no es un número: " + valor, e);
+        }
+    }
+
+    private static String buscarArgumento(String[] args, String clave) {
+        String prefijo = "--" + clave + "=";
+        for (String arg : args) {
+            if (arg.startsWith(prefijo)) {
+                return arg.substring(prefijo.length());
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "puerto=" + puerto +
+                ", maxSalas=" + maxSalas +
+                ", jugadoresPorSala=" + jugadoresPorSala +
+                ", ticksPorSegundo=" + ticksPorSegundo +
+                ", snapshotsPorSegundo=" + snapshotsPorSegundo +
+                ", maxTicksPonerseAlDia=" + maxTicksPonerseAlDia +
+                ", hilosSimulacion=" + hilosSimulacion +
+                ", jugadoresPorTarea=" + jugadoresPorTarea +
+                ", esperaBots=" + esperaBots +
+                ", dificultadBots=" + dificultadBots +
+                ", presupuestoBots=" + presupuestoBots;
+    }
+}
@@ -0,0 +1,182 @@
+package com.dinosauriojuego.servidor;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Planificador de paso fijo basado en System.nanoTime
+ *
+ * El tiempo real se acumula y se consume de a un período por tick, así que la simulación
+ * avanza exactamente 1/ticksPorSegundo por tick y no deriva respecto del reloj. Si el servidor
+ * se atrasa, recupera hasta maxTicksPorPonerseAlDia de una vez; lo que exceda ese límite se
+ * descarta (y se cuenta) en lugar de acumular una deuda infinita.
+ */
+public class PlanificadorTicks {
+
+    private final int ticksPorSegundo;
+    private final int maxTicksPorPonerseAlDia;
+    private final long periodoNanos;
+    private final float deltaTiempo;
+
+    private long acumulador;
+    private long ultimaMedicion;
+    private long inicioTrabajo;
+    private int ticksEnCurso;
+
+    // Estadísticas
+    private long ticksEjecutados;
+    private long ticksDescartados;
+    private long sobrecargas;
+    private long muestrasRetraso;
+    private long sumaRetrasoNanos;
+    private long maxRetrasoNanos;
+    private long maxTrabajoNanos;
+
+    public PlanificadorTicks(int ticksPorSegundo, int maxTicksPorPonerseAlDia) {
+        if (ticksPorSegundo <= 0 || maxTicksPorPonerseAlDia <= 0) {
+            throw new IllegalArgumentException("La tasa de ticks y el límite de recuperación deben ser positivos");
+        }
+        this.ticksPorSegundo = ticksPorSegundo;
+        this.maxTicksPorPonerseAlDia = maxTicksPorPonerseAlDia;
+        this.periodoNanos = 1_000_000_000L / ticksPorSegundo;
+        this.deltaTiempo = 1f / ticksPorSegundo;
+    }
+
+    /**
+     * Fija el origen de tiempo; el primer tick vence un período después
+     */
+    public void iniciar() {
+        ultimaMedicion = System.nanoTime();
+        acumulador = 0;
+    }
+
+    /**
+     * Acumula el tiempo transcurrido y devuelve cuántos ticks hay que simular ahora
+     */
+    public int ticksPendientes() {
+        long ahora = System.nanoTime();
+        acumulador += ahora - ultimaMedicion;
+        ultimaMedicion = ahora;
+        inicioTrabajo = ahora;
+
+        int pendientes = (int) Math.min(acumulador / periodoNanos, Integer.MAX_VALUE);
+        if (pendientes > maxTicksPorPonerseAlDia) {
+            int descartados = pendientes - maxTicksPorPonerseAlDia;
+            ticksDescartados += descartados;
+            acumulador -= descartados * periodoNanos;
+            pendientes = maxTicksPorPonerseAlDia;
+        }
+        acumulador -= pendientes * periodoNanos;
+
+        if (pendientes > 0) {
+            // Lo que queda en el acumulador es cuánto hace que venció el último tick
+            registrarRetraso(acumulador);
+            ticksEjecutados += pendientes;
+        }
+        ticksEnCurso = pendientes;
+        return pendientes;
+    }
+
+    /**
+     * Marca el fin del trabajo de los ticks devueltos por ticksPendientes
+     */
+    public void marcarFinTrabajo() {
+        if (ticksEnCurso == 0) {
+            return;
+        }
+        long trabajo = System.nanoTime() - inicioTrabajo;
+        if (trabajo > maxTrabajoNanos) {
+            maxTrabajoNanos = trabajo;
+        }
+        if (trabajo > ticksEnCurso * periodoNanos) {
+            sobrecargas++;
+        }
+        ticksEnCurso = 0;
+    }
+
+    /**
+     * Nanosegundos que faltan para que venza el próximo tick (0 si ya venció)
+     */
+    public long nanosHastaSiguienteTick() {
+        long transcurrido = System.nanoTime() - ultimaMedicion;
+        return Math.max(0, periodoNanos - acumulador - transcurrido);
+    }
+
+    /**
+     * Estaciona el hilo hasta que venza el próximo tick
+     */
+    public void esperarSiguienteTick() {
+        long espera;
+        while ((espera = nanosHastaSiguienteTick()) > 0) {
+            LockSupport.parkNanos(espera);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void registrarRetraso(long retraso) {
+        muestrasRetraso++;
+        sumaRetrasoNanos += retraso;
+        if (retraso > maxRetrasoNanos) {
+            maxRetrasoNanos = retraso;
+        }
+    }
+
+    /**
+     * Vuelve a cero las estadísticas (por ejemplo, al comenzar una ventana de medición)
+     */
+    public void reiniciarEstadisticas() {
+        ticksEjecutados = 0;
+        ticksDescartados = 0;
+        sobrecargas = 0;
+        muestrasRetraso = 0;
+        sumaRetrasoNanos = 0;
+        maxRetrasoNanos = 0;
+        maxTrabajoNanos = 0;
+    }
+
+    /**
+     * Resumen de una línea para logs y la pantalla del servidor
+     */
+    public String getResumenEstadisticas() {
+        return "ticks: " + ticksEjecutados +
+                " | jitter medio: " + getJitterMedioMicros() + " µs" +
+                " | jitter máx: " + getJitterMaximoMicros() + " µs" +
+                " | sobrecargas: " + sobrecargas +
+                " | descartados: " + ticksDescartados;
+    }
+
+    // Getters
+    public float getDeltaTiempo() {
+        return deltaTiempo;
+    }
+
+    public int getTicksPorSegundo() {
+        return ticksPorSegundo;
+    }
+
+    public long getTicksEjecutados() {
+        return ticksEjecutados;
+    }
+
+    public long getTicksDescartados() {
+        return ticksDescartados;
+    }
+
+    public long getSobrecargas() {
+        return sobrecargas;
+    }
+
+    public long getJitterMedioMicros() {
+        return muestrasRetraso == 0 ? 0 : sumaRetrasoNanos / muestrasRetraso / 1000;
+    }
+
+    public long getJitterMaximoMicros() {
+        return maxRetrasoNanos / 1000;
+    }
+
+    public long getTrabajoMaximoMicros() {
+        return maxTrabajoNanos / 1000;
+    }
+}
@@ -0,0 +1,61 @@
+package com.dinosauriojuego.servidor;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.dinosauriojuego.servidor.network.GestorSalas;
+import com.dinosauriojuego.servidor.network.HiloServidor;
+
+/**
+ * Aplicación del servidor dedicado, sin ventana ni OpenGL
+ * Solo levanta la red y la simulación; en lugar de dibujar, reporta estadísticas por consola
+ */
+public class ServidorDedicado extends ApplicationAdapter {
+
+    private final ConfiguracionServidor config;
+    private HiloServidor servidor;
+    private long ultimoReporte;
+
+    public ServidorDedicado(ConfiguracionServidor config) {
+        this.config = config;
+    }
+
+    @Override
+    public void create() {
+        System.out.println("🦖 Servidor dedicado (" + config + ")");
+        servidor = new HiloServidor(config);
+        servidor.start();
+        ultimoReporte = TimeUtils.millis();
+    }
+
+    @Override
+    public void render() {
+        long ahora = TimeUtils.millis();
+        if (ahora - ultimoReporte < config.intervaloEstadisticas * 1000L) {
+            return;
+        }
+        ultimoReporte = ahora;
+
+        GestorSalas gestor = servidor.getGestorSalas();
+        PlanificadorTicks planificador = servidor.getPlanificador();
+        System.out.println("📊 Salas activas: " + gestor.getCantidadSalasActivas() +
+                " | jugadores: " + gestor.getCantidadJugadores() +
+                " | bots: " + gestor.getCantidadBots() +
+                " | " + planificador.getResumenEstadisticas() +
+                " | trabajo máx: " + planificador.getTrabajoMaximoMicros() + " µs" +
+                " | memoria: " + memoriaUsadaMb() + " MB");
+        System.out.println("📬 Colas " + servidor.getResumenColas());
+        System.out.println("🎮 Inputs " + gestor.getResumenInputs());
+    }
+
+    private static long memoriaUsadaMb() {
+        Runtime runtime = Runtime.getRuntime();
+        return (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+    }
+
+    @Override
+    public void dispose() {
+        if (servidor != null) {
+            servidor.cerrar();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.dinosauriojuego.servidor.logica;
+
+/**
+ * Obstáculos vivos de una partida, guardados como arrays primitivos (un array por campo)
+ *
+ * Es un anillo en orden de aparición: todos nacen en el mismo x y se mueven a la misma velocidad,
+ * así que el más viejo es siempre el de más a la izquierda. Eso permite quitar los que salieron
+ * de pantalla solo por el frente y cortar el chequeo de colisión en cuanto un obstáculo queda
+ * a la derecha del dinosaurio. La hitbox reducida se calcula una vez, al aparecer.
+ *
+ * Los campos se indexan por lugar en el anillo: lugar(k) es el k-ésimo obstáculo, del más viejo al más nuevo.
+ */
+public strictfp class AlmacenObstaculos {
+
+    // Potencia de dos; con el spawn mínimo de un segundo nunca hay más de unos pocos en pantalla
+    public static final int CAPACIDAD = 16;
+    private static final int MASCARA = CAPACIDAD - 1;
+
+    public final int[] id = new int[CAPACIDAD]; // Orden de aparición, consecutivo dentro de una partida
+    public final int[] tipo = new int[CAPACIDAD]; // 0 = cactus, 1 = pájaro
+    public final int[] variante = new int[CAPACIDAD];
+    public final float[] x = new float[CAPACIDAD];
+    public final float[] y = new float[CAPACIDAD];
+    public final float[] ancho = new float[CAPACIDAD];
+    public final float[] alto = new float[CAPACIDAD];
+
+    // Hitbox reducida: desplazamiento en x respecto del obstáculo, y absoluta y tamaño
+    public final float[] hitboxDx = new float[CAPACIDAD];
+    public final float[] hitboxY = new float[CAPACIDAD];
+    public final float[] hitboxAncho = new float[CAPACIDAD];
+    public final float[] hitboxAlto = new float[CAPACIDAD];
+
+    private int primero = 0;
+    private int cantidad = 0;
+
+    /**
+     * Agrega un obstáculo al final (es el más nuevo)
+     * @return false si el anillo está lleno y el obstáculo se descartó
+     */
+    public boolean agregar(int idObstaculo, int tipoObstaculo, int varianteObstaculo,
+                           float xObstaculo, float yObstaculo, float anchoObstaculo, float altoObstaculo) {
+        if (cantidad == CAPACIDAD) {
+            return false;
+        }
+
+        int i = (primero + cantidad) & MASCARA;
+        id[i] = idObstaculo;
+        tipo[i] = tipoObstaculo;
+        variante[i] = varianteObstaculo;
+        x[i] = xObstaculo;
+        y[i] = yObstaculo;
+        ancho[i] = anchoObstaculo;
+        alto[i] = altoObstaculo;
+
+        calcularHitbox(yObstaculo, anchoObstaculo, altoObstaculo, hitboxDx, hitboxY, hitboxAncho, hitboxAlto, i);
+
+        cantidad++;
+        return true;
+    }
+
+    /**
+     * Escribe en el índice i la hitbox reducida (para mejor jugabilidad) de un obstáculo
+     * Lo usan este almacén y {@link SimulacionLote}, así las dos simulaciones juzgan igual
+     */
+    static void calcularHitbox(float yObstaculo, float anchoObstaculo, float altoObstaculo,
+                               float[] dx, float[] y, float[] ancho, float[] alto, int i) {
+        float reduccionX = anchoObstaculo * GameSimulacion.REDUCCION_HITBOX_X;
+        float reduccionY = altoObstaculo * GameSimulacion.REDUCCION_HITBOX_Y;
+        dx[i] = reduccionX;
+        y[i] = yObstaculo + reduccionY;
+        ancho[i] = anchoObstaculo - reduccionX * 2;
+        alto[i] = altoObstaculo - reduccionY * 2;
+    }
+
+    /**
+     * Mueve todos los obstáculos a la izquierda y quita los que salieron de pantalla
+     */
+    public void mover(float desplazamiento) {
+        for (int k = 0; k < cantidad; k++) {
+            x[(primero + k) & MASCARA] -= desplazamiento;
+        }
+
+        // Los que salieron están todos al frente
+        while (cantidad > 0 && x[primero] + ancho[primero] < 0) {
+            primero = (primero + 1) & MASCARA;
+            cantidad--;
+        }
+    }
+
+    /**
+     * Lugar en el anillo del k-ésimo obstáculo (0 = el más viejo)
+     */
+    public int lugar(int k) {
+        return (primero + k) & MASCARA;
+    }
+
+    public int getCantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Copia el anillo completo de otro almacén, lugares incluidos
+     */
+    public void copiarDe(AlmacenObstaculos otro) {
+        System.arraycopy(otro.id, 0, id, 0, CAPACIDAD);
+        System.arraycopy(otro.tipo, 0, tipo, 0, CAPACIDAD);
+        System.arraycopy(otro.variante, 0, variante, 0, CAPACIDAD);
+        System.arraycopy(otro.x, 0, x, 0, CAPACIDAD);
+        System.arraycopy(otro.y, 0, y, 0, CAPACIDAD);
+        System.arraycopy(otro.ancho, 0, ancho, 0, CAPACIDAD);
+        System.arraycopy(otro.alto, 0, alto, 0, CAPACIDAD);
+        System.arraycopy(otro.hitboxDx, 0, hitboxDx, 0, CAPACIDAD);
+        System.arraycopy(otro.hitboxY, 0, hitboxY, 0, CAPACIDAD);
+        System.arraycopy(otro.hitboxAncho, 0, hitboxAncho, 0, CAPACIDAD);
+        System.arraycopy(otro.hitboxAlto, 0, hitboxAlto, 0, CAPACIDAD);
+        primero = otro.primero;
+        cantidad = otro.cantidad;
+    }
+
+    public void limpiar() {
+        primero = 0;
+        cantidad = 0;
+    }
+}
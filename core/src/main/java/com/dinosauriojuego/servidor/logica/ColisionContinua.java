@@ -0,0 +1,73 @@
+package com.dinosauriojuego.servidor.logica;
+
+/**
+ * Colisión continua (swept AABB) entre un dinosaurio y un obstáculo a lo largo de un tick
+ *
+ * Probar solo las posiciones del final del tick deja pasar un obstáculo que, con un paso largo
+ * (pocos ticks por segundo o velocidad muy alta), salta de un lado al otro del dinosaurio sin
+ * llegar a tocarlo en ninguna muestra. Acá se interpolan los dos movimientos del tick (el obstáculo
+ * hacia la izquierda, el dinosaurio en y) y se busca si en algún momento se superponen en ambos ejes.
+ *
+ * El tiempo va de 0 (inicio del tick) a 1 (fin); en t = 1 coincide con la prueba de siempre.
+ */
+public final strictfp class ColisionContinua {
+
+    private ColisionContinua() {
+    }
+
+    /**
+     * @param dinoX borde izquierdo del dinosaurio (no se mueve en x)
+     * @param dinoAncho ancho del dinosaurio
+     * @param yAntes y del dinosaurio al empezar el tick
+     * @param yDespues y del dinosaurio al terminar el tick
+     * @param alto alto del dinosaurio al terminar el tick
+     * @param obsX x de la hitbox del obstáculo al terminar el tick
+     * @param desplazamiento cuánto avanzó el obstáculo hacia la izquierda durante el tick
+     */
+    public static boolean choca(float dinoX, float dinoAncho, float yAntes, float yDespues, float alto,
+                                float obsX, float obsY, float obsAncho, float obsAlto, float desplazamiento) {
+        float dinoDerecha = dinoX + dinoAncho;
+        float obsArriba = obsY + obsAlto;
+
+        // Posición final: si ya se tocan no hace falta barrer
+        if (dinoX < obsX + obsAncho && dinoDerecha > obsX && yDespues < obsArriba && yDespues + alto > obsY) {
+            return true;
+        }
+        if (desplazamiento <= 0f && yDespues == yAntes) {
+            return false;
+        }
+
+        // Si en todo el tick el dinosaurio quedó por encima o por debajo del obstáculo, no hay cruce posible
+        if (Math.min(yAntes, yDespues) >= obsArriba || Math.max(yAntes, yDespues) + alto <= obsY) {
+            return false;
+        }
+
+        float entrada = 0f;
+        float salida = 1f;
+
+        // Eje x: el obstáculo está en obsX + desplazamiento * (1 - t) y toca al dinosaurio
+        // mientras esa x quede entre dinoX - obsAncho y dinoDerecha
+        float xInicio = obsX + desplazamiento;
+        if (desplazamiento > 0f) {
+            entrada = Math.max(entrada, (xInicio - dinoDerecha) / desplazamiento);
+            salida = Math.min(salida, (xInicio - (dinoX - obsAncho)) / desplazamiento);
+        } else if (!(dinoX < obsX + obsAncho && dinoDerecha > obsX)) {
+            return false;
+        }
+
+        // Eje y: el dinosaurio está en yAntes + dy * t y toca mientras quede entre obsY - alto y obsArriba
+        float dy = yDespues - yAntes;
+        float abajo = obsY - alto;
+        if (dy > 0f) {
+            entrada = Math.max(entrada, (abajo - yAntes) / dy);
+            salida = Math.min(salida, (obsArriba - yAntes) / dy);
+        } else if (dy < 0f) {
+            entrada = Math.max(entrada, (obsArriba - yAntes) / dy);
+            salida = Math.min(salida, (abajo - yAntes) / dy);
+        } else if (!(yAntes < obsArriba && yAntes > abajo)) {
+            return false;
+        }
+
+        return entrada < salida;
+    }
+}
@@ -0,0 +1,67 @@
+package com.dinosauriojuego.servidor.logica;
+
+/**
+ * Foto compacta de una {@link GameSimulacion}, para volver a ella más tarde
+ *
+ * Todo se reserva al construir: guardar y restaurar solo copian primitivos, sin crear objetos, así
+ * sirve en cada tick (rollback, búsquedas que prueban inputs, compensación de latencia). Guarda los
+ * dinosaurios, los obstáculos vivos (compactados, del más viejo al más nuevo), velocidad, puntuación,
+ * temporizadores, resultado y el estado del generador.
+ *
+ * El historial de hitboxes no se guarda: ver {@link GameSimulacion#restaurar}.
+ */
+public class EstadoGuardado {
+
+    // Dinosaurios
+    final EstadoJugadores jugadores;
+
+    // Obstáculos vivos: k-ésimo del más viejo al más nuevo
+    int cantidadObstaculos;
+    final int[] obstaculoId = new int[AlmacenObstaculos.CAPACIDAD];
+    final int[] obstaculoTipo = new int[AlmacenObstaculos.CAPACIDAD];
+    final int[] obstaculoVariante = new int[AlmacenObstaculos.CAPACIDAD];
+    final float[] obstaculoX = new float[AlmacenObstaculos.CAPACIDAD];
+    final float[] obstaculoY = new float[AlmacenObstaculos.CAPACIDAD];
+    final float[] obstaculoAncho = new float[AlmacenObstaculos.CAPACIDAD];
+    final float[] obstaculoAlto = new float[AlmacenObstaculos.CAPACIDAD];
+
+    // Mundo y temporizadores
+    float velocidad;
+    double distanciaRecorrida;
+    int puntuacion;
+    boolean terminado;
+    int resultado;
+    float tiempoSpawnActual;
+    float tiempoSpawnObstaculo;
+    float tiempoAnimacion;
+    int siguienteIdObstaculo;
+    int tickSimulacion;
+
+    // Generador
+    long semilla;
+    long estadoRandom0;
+    long estadoRandom1;
+
+    // De qué simulación y partida salió, para saber si su historial sigue sirviendo al restaurar
+    GameSimulacion origen;
+    int partida;
+
+    public EstadoGuardado(int cantidadJugadores) {
+        this.jugadores = new EstadoJugadores(cantidadJugadores);
+    }
+
+    public int getCantidadJugadores() {
+        return jugadores.cantidad;
+    }
+
+    /**
+     * Tick de la simulación en el momento de guardar
+     */
+    public int getTick() {
+        return tickSimulacion;
+    }
+
+    public boolean isTerminado() {
+        return terminado;
+    }
+}
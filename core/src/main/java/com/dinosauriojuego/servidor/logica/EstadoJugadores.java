@@ -0,0 +1,100 @@
+package com.dinosauriojuego.servidor.logica;
+
+/**
+ * Dinosaurios de una partida, guardados como arrays primitivos (un array por campo)
+ * El índice es el lugar del jugador en la sala; la física está en {@link GameSimulacion#actualizarDino}
+ */
+public class EstadoJugadores {
+
+    // Dimensiones
+    public static final float ANCHO = 50f;
+    public static final float ALTO_NORMAL = 60f;
+    public static final float ALTO_AGACHADO = 30f;
+
+    public final int cantidad;
+
+    public final float[] y;
+    public final float[] velocidadY;
+    public final boolean[] enSuelo;
+    public final boolean[] agachado;
+    public final boolean[] vivo;
+    public final int[] sprite;
+
+    public EstadoJugadores(int cantidad) {
+        this.cantidad = cantidad;
+        y = new float[cantidad];
+        velocidadY = new float[cantidad];
+        enSuelo = new boolean[cantidad];
+        agachado = new boolean[cantidad];
+        vivo = new boolean[cantidad];
+        sprite = new int[cantidad];
+        reset();
+    }
+
+    public float getAlto(int i) {
+        return agachado[i] ? ALTO_AGACHADO : ALTO_NORMAL;
+    }
+
+    /**
+     * Cantidad de dinosaurios que siguen en carrera
+     */
+    public int contarVivos() {
+        int count = 0;
+        for (int i = 0; i < cantidad; i++) {
+            if (vivo[i]) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Primer dinosaurio vivo, o -1 si no queda ninguno
+     */
+    public int primerVivo() {
+        for (int i = 0; i < cantidad; i++) {
+            if (vivo[i]) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Copia todos los dinosaurios de otro estado con la misma cantidad
+     */
+    public void copiarDe(EstadoJugadores otro) {
+        if (otro.cantidad != cantidad) {
+            throw new IllegalArgumentException("Cantidades de jugadores distintas: " + otro.cantidad + " y " + cantidad);
+        }
+        System.arraycopy(otro.y, 0, y, 0, cantidad);
+        System.arraycopy(otro.velocidadY, 0, velocidadY, 0, cantidad);
+        System.arraycopy(otro.enSuelo, 0, enSuelo, 0, cantidad);
+        System.arraycopy(otro.agachado, 0, agachado, 0, cantidad);
+        System.arraycopy(otro.vivo, 0, vivo, 0, cantidad);
+        System.arraycopy(otro.sprite, 0, sprite, 0, cantidad);
+    }
+
+    /**
+     * Copia un solo dinosaurio de otro estado, que puede tener otra cantidad
+     */
+    public void copiarJugadorDe(EstadoJugadores otro, int desde, int hacia) {
+        y[hacia] = otro.y[desde];
+        velocidadY[hacia] = otro.velocidadY[desde];
+        enSuelo[hacia] = otro.enSuelo[desde];
+        agachado[hacia] = otro.agachado[desde];
+        vivo[hacia] = otro.vivo[desde];
+        sprite[hacia] = otro.sprite[desde];
+    }
+
+    public void reset(int i) {
+        y[i] = GameSimulacion.Y_PISO;
+        velocidadY[i] = 0;
+        enSuelo[i] = true;
+        agachado[i] = false;
+        vivo[i] = true;
+        sprite[i] = 0;
+    }
+
+    public void reset() {
+        for (int i = 0; i < cantidad; i++) {
+            reset(i);
+        }
+    }
+}
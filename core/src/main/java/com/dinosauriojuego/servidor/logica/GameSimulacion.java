@@ -1,111 +1,212 @@
 package com.dinosauriojuego.servidor.logica;
 
-import com.badlogic.gdx.math.MathUtils;
-import com.badlogic.gdx.math.Rectangle;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import com.badlogic.gdx.math.RandomXS128;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Simulación autoritativa del juego en el servidor
  * Mantiene el estado real del juego y lo sincroniza con los clientes
+ *
+ * Es determinista: con la misma semilla, la misma cantidad de jugadores y la misma secuencia de
+ * inputs (deltaTime y rebobinado incluidos) dos instancias llegan al mismo estado bit a bit, en
+ * cualquier JVM. El único azar es el generador propio de la partida, las cuentas de punto flotante
+ * son strictfp y los jugadores se unen siempre en el mismo orden. {@link #calcularHash} resume el
+ * estado para comprobarlo.
  */
-public class GameSimulacion {
+public strictfp class GameSimulacion {
 
     // Constantes de física
     private static final float GRAVEDAD = -800f;
     private static final float FUERZA_SALTO = 400f;
-    private static final float Y_PISO = 60f;
+    static final float Y_PISO = 60f;
+    static final float X_DINO = 50f;
+
+    // Jugadores por partida
+    public static final int JUGADORES_POR_DEFECTO = 2;
+    public static final int MAX_JUGADORES = 64;
+
+    // Reducción de la hitbox de los obstáculos para mejor jugabilidad (por lado)
+    static final float REDUCCION_HITBOX_X = 0.15f;
+    static final float REDUCCION_HITBOX_Y = 0.10f;
 
     // Constantes de velocidad
-    private static final float VELOCIDAD_INICIAL = 260f;
-    private static final float VELOCIDAD_INCREMENTO = 10.0f;
+    static final float VELOCIDAD_INICIAL = 260f;
+    static final float VELOCIDAD_INCREMENTO = 10.0f;
 
     // Constantes de spawn
-    private static final float SPAWN_INICIAL = 1.8f;
+    static final float SPAWN_INICIAL = 1.8f;
     private static final float SPAWN_MINIMO = 1.0f;
-    private static final float ANCHO_PANTALLA = 1200f;
-
-    // Estado de un dinosaurio
-    public static class EstadoDino {
-        public float y = Y_PISO;
-        public float velocidadY = 0;
-        public boolean enSuelo = true;
-        public boolean agachado = false;
-        public boolean vivo = true;
-        public int spriteActual = 0;
-
-        // Dimensiones
-        private static final float ANCHO = 50f;
-        private static final float ALTO_NORMAL = 60f;
-        private static final float ALTO_AGACHADO = 30f;
-
-        public float getAlto() {
-            return agachado ? ALTO_AGACHADO : ALTO_NORMAL;
-        }
-
-        public void reset() {
-            y = Y_PISO;
-            velocidadY = 0;
-            enSuelo = true;
-            agachado = false;
-            vivo = true;
-            spriteActual = 0;
-        }
-    }
+    static final float ANCHO_PANTALLA = 1200f;
+    static final float[] ALTURAS_PAJARO = {80f, 110f, 140f};
 
-    // Estado de un obstáculo
-    public static class EstadoObstaculo {
-        public int tipo; // 0 = cactus, 1 = pájaro
-        public int variante; // Diferentes variantes visuales
-        public float x;
-        public float y;
-        public float ancho;
-        public float alto;
-
-        public Rectangle getBounds() {
-            // Hitbox reducida para mejor jugabilidad
-            float reduccionX = ancho * 0.15f;
-            float reduccionY = alto * 0.10f;
-
-            Rectangle bounds = new Rectangle();
-            bounds.x = x + reduccionX;
-            bounds.y = y + reduccionY;
-            bounds.width = ancho - (reduccionX * 2);
-            bounds.height = alto - (reduccionY * 2);
-            return bounds;
-        }
-    }
+    // Resultados posibles de una partida (se envían como código en el snapshot)
+    // Si alguien gana, el código es RESULTADO_GANA_PRIMERO + su índice
+    public static final int RESULTADO_EN_CURSO = 0;
+    public static final int RESULTADO_EMPATE = 1;
+    public static final int RESULTADO_FIN = 2;
+    public static final int RESULTADO_GANA_PRIMERO = 3;
+    private static final String[] MENSAJES_RESULTADO = crearMensajesResultado();
 
     // Estado del juego
-    public final EstadoDino jugador1 = new EstadoDino();
-    public final EstadoDino jugador2 = new EstadoDino();
-    public final List<EstadoObstaculo> obstaculos = new ArrayList<>();
+    public final EstadoJugadores jugadores;
+    public final AlmacenObstaculos obstaculos = new AlmacenObstaculos();
 
     public float velocidad = VELOCIDAD_INICIAL;
+    public double distanciaRecorrida = 0; // Desplazamiento total del mundo
     public int puntuacion = 0;
     public boolean terminado = false;
+    public int resultado = RESULTADO_EN_CURSO;
     public String mensajeFin = "";
 
     private float tiempoSpawnActual = 0f;
     private float tiempoSpawnObstaculo = SPAWN_INICIAL;
     private float tiempoAnimacion = 0f;
+    private int siguienteIdObstaculo = 0;
+
+    // Hitboxes de los últimos ticks, para juzgar cada colisión contra lo que vio el jugador
+    private final HistorialMundo historial;
+    private int tickSimulacion = 0;
+
+    // Cambia con cada reinicio o copia: las fotos de otra partida no pueden reusar el historial
+    private int partida = 0;
+
+    // Ticks hacia atrás que se puede restaurar sin perder el historial: los ticks previos a la foto
+    // que el rebobinado todavía puede pedir siguen en el anillo
+    private static final int RESTAURAR_CON_HISTORIAL = HistorialMundo.CAPACIDAD - HistorialMundo.REBOBINADO_MAXIMO - 1;
+
+    // Generador propio de la partida: cada sala sortea sus obstáculos sin compartir estado
+    private final RandomXS128 random = new RandomXS128();
+    private long semilla;
+
+    // Reparto de los jugadores entre hilos; sin pool (o en salas chicas) se actualizan en secuencia
+    private ForkJoinPool pool;
+    private int jugadoresPorTarea = MAX_JUGADORES;
+
+    // Input del tick en curso, para las tareas que actualizan un rango de jugadores
+    private float deltaTick;
+    private boolean[] saltarTick;
+    private boolean[] agacharTick;
+    private int[] rebobinadoTick;
+
+    public GameSimulacion() {
+        this(JUGADORES_POR_DEFECTO);
+    }
+
+    public GameSimulacion(long semilla) {
+        this(JUGADORES_POR_DEFECTO, semilla);
+    }
+
+    public GameSimulacion(int cantidadJugadores) {
+        this(cantidadJugadores, new RandomXS128().nextLong());
+    }
+
+    public GameSimulacion(int cantidadJugadores, long semilla) {
+        if (cantidadJugadores < 1 || cantidadJugadores > MAX_JUGADORES) {
+            throw new IllegalArgumentException("La cantidad de jugadores debe estar entre 1 y " +
+                    MAX_JUGADORES + ": " + cantidadJugadores);
+        }
+        this.jugadores = new EstadoJugadores(cantidadJugadores);
+        this.historial = new HistorialMundo(cantidadJugadores, X_DINO, EstadoJugadores.ANCHO);
+        this.semilla = semilla;
+        random.setSeed(semilla);
+    }
+
+    /**
+     * Actualiza la simulación del juego, con las colisiones contra el mundo actual
+     */
+    public void actualizar(float deltaTime, boolean[] saltar, boolean[] agachar) {
+        actualizar(deltaTime, saltar, agachar, null);
+    }
 
     /**
      * Actualiza la simulación del juego
+     * @param saltar input de cada jugador, indexado por su lugar
+     * @param agachar ídem
+     * @param rebobinado ticks hacia atrás del mundo que vio cada jugador (se limita a REBOBINADO_MAXIMO),
+     *                   o null para juzgar a todos contra el mundo actual
      */
-    public void actualizar(float deltaTime, boolean j1Saltar, boolean j1Agachar,
-                           boolean j2Saltar, boolean j2Agachar) {
+    public void actualizar(float deltaTime, boolean[] saltar, boolean[] agachar, int[] rebobinado) {
         if (terminado) {
             return;
         }
 
-        // Actualizar dinosaurios
-        actualizarDino(jugador1, deltaTime, j1Saltar, j1Agachar);
-        actualizarDino(jugador2, deltaTime, j2Saltar, j2Agachar);
+        // El mundo avanza primero: no depende de los dinosaurios, y así queda guardado antes de juzgarlos
+        float desplazamiento = avanzarMundo(deltaTime);
+        historial.guardarObstaculos(tickSimulacion, obstaculos, desplazamiento);
+
+        // Dinosaurios y colisiones: cada jugador solo toca su índice y lee el mundo ya guardado,
+        // así que en salas grandes los rangos se reparten entre hilos
+        int n = jugadores.cantidad;
+        deltaTick = deltaTime;
+        saltarTick = saltar;
+        agacharTick = agachar;
+        rebobinadoTick = rebobinado;
+        if (pool != null && n > jugadoresPorTarea) {
+            TareaJugadores tarea = new TareaJugadores(this, 0, n);
+            if (ForkJoinTask.getPool() == pool) {
+                tarea.invoke();
+            } else {
+                pool.invoke(tarea);
+            }
+        } else {
+            actualizarJugadores(0, n);
+        }
+        saltarTick = null;
+        agacharTick = null;
+        rebobinadoTick = null;
+
+        // Unión en orden fijo: los eliminados ya están marcados, el resultado no depende del reparto
+        historial.guardarDinos(tickSimulacion, jugadores);
+        tickSimulacion++;
+        int vivos = jugadores.contarVivos();
+
+        // Determinar fin del juego: gana el último en pie; si los últimos caen juntos es empate
+        if (n == 1) {
+            if (vivos == 0) {
+                terminar(RESULTADO_FIN);
+            }
+        } else if (vivos == 1) {
+            terminar(RESULTADO_GANA_PRIMERO + jugadores.primerVivo());
+        } else if (vivos == 0) {
+            terminar(RESULTADO_EMPATE);
+        }
+
+        // Actualizar animación
+        tiempoAnimacion += deltaTime;
+        if (tiempoAnimacion >= 0.1f) {
+            for (int i = 0; i < n; i++) {
+                if (jugadores.enSuelo[i]) {
+                    jugadores.sprite[i] = (jugadores.sprite[i] + 1) % 2;
+                }
+            }
+            tiempoAnimacion = 0;
+        }
+    }
+
+    /**
+     * Avanza solo el mundo (velocidad, puntuación y obstáculos), sin jugadores
+     * Los obstáculos no dependen de los dinosaurios: con la semilla de la partida y la cantidad de
+     * ticks cualquiera rehace la misma secuencia que el servidor
+     */
+    public void actualizarMundo(float deltaTime) {
+        if (terminado) {
+            return;
+        }
+        avanzarMundo(deltaTime);
+        tickSimulacion++;
+    }
 
+    /**
+     * Velocidad, puntuación, spawn y movimiento de los obstáculos de un tick
+     * @return cuánto se corrió el mundo hacia la izquierda
+     */
+    private float avanzarMundo(float deltaTime) {
         // Incrementar velocidad
         velocidad += VELOCIDAD_INCREMENTO * deltaTime;
+        distanciaRecorrida += velocidad * deltaTime;
 
         // Actualizar puntuación (1 punto cada 10 unidades de distancia)
         puntuacion = (int)((velocidad - VELOCIDAD_INICIAL) * 0.4f);
@@ -115,155 +216,418 @@ public class GameSimulacion {
         if (tiempoSpawnActual >= tiempoSpawnObstaculo) {
             spawnObstaculo();
             tiempoSpawnActual = 0;
-
-            // Ajustar tiempo de spawn según velocidad
-            float factorVelocidad = (velocidad - VELOCIDAD_INICIAL) / 500f;
-            tiempoSpawnObstaculo = SPAWN_INICIAL + (factorVelocidad * 0.3f);
-            if (tiempoSpawnObstaculo < SPAWN_MINIMO) {
-                tiempoSpawnObstaculo = SPAWN_MINIMO;
-            }
+            tiempoSpawnObstaculo = intervaloSpawn(velocidad);
         }
 
-        // Actualizar obstáculos
-        Iterator<EstadoObstaculo> it = obstaculos.iterator();
-        while (it.hasNext()) {
-            EstadoObstaculo obs = it.next();
-            obs.x -= velocidad * deltaTime;
+        // Actualizar obstáculos (los que salen de pantalla se eliminan)
+        float desplazamiento = velocidad * deltaTime;
+        obstaculos.mover(desplazamiento);
+        return desplazamiento;
+    }
 
-            // Eliminar obstáculos fuera de pantalla
-            if (obs.x + obs.ancho < 0) {
-                it.remove();
+    /**
+     * Mueve y juzga a los jugadores [desde, hasta) contra el mundo que vio cada uno
+     */
+    private void actualizarJugadores(int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            float yAntes = jugadores.y[i];
+            actualizarDino(jugadores, i, deltaTick, saltarTick[i], agacharTick[i]);
+            if (!jugadores.vivo[i]) {
+                continue;
+            }
+            int tick = historial.tickRebobinado(tickSimulacion, rebobinadoTick != null ? rebobinadoTick[i] : 0);
+            if (colisiona(i, tick, yAntes)) {
+                jugadores.vivo[i] = false;
             }
         }
+    }
 
-        // Detectar colisiones
-        if (jugador1.vivo && colisiona(jugador1, 50)) {
-            jugador1.vivo = false;
-        }
-        if (jugador2.vivo && colisiona(jugador2, 50)) {
-            jugador2.vivo = false;
-        }
+    /**
+     * Permite repartir los jugadores de la sala entre los hilos del pool
+     * @param jugadoresPorTarea la sala se parte solo si tiene más jugadores que esto, en rangos de ese tamaño
+     */
+    public void setParalelismo(ForkJoinPool pool, int jugadoresPorTarea) {
+        this.pool = pool != null && pool.getParallelism() > 1 ? pool : null;
+        this.jugadoresPorTarea = Math.max(1, jugadoresPorTarea);
+    }
+
+    /**
+     * Marca la partida como terminada con el resultado indicado
+     */
+    private void terminar(int resultado) {
+        this.terminado = true;
+        this.resultado = resultado;
+        this.mensajeFin = MENSAJES_RESULTADO[resultado];
+    }
 
-        // Determinar fin del juego
-        if (!jugador1.vivo && !jugador2.vivo) {
-            terminado = true;
-            mensajeFin = "EMPATE!";
-        } else if (!jugador1.vivo) {
-            terminado = true;
-            mensajeFin = "JUGADOR 2 GANA!";
-        } else if (!jugador2.vivo) {
-            terminado = true;
-            mensajeFin = "JUGADOR 1 GANA!";
+    /**
+     * Devuelve el texto a mostrar para un código de resultado
+     */
+    public static String mensajeParaResultado(int resultado) {
+        if (resultado < 0 || resultado >= MENSAJES_RESULTADO.length) {
+            return "";
         }
+        return MENSAJES_RESULTADO[resultado];
+    }
 
-        // Actualizar animación
-        tiempoAnimacion += deltaTime;
-        if (tiempoAnimacion >= 0.1f) {
-            if (jugador1.enSuelo) {
-                jugador1.spriteActual = (jugador1.spriteActual + 1) % 2;
-            }
-            if (jugador2.enSuelo) {
-                jugador2.spriteActual = (jugador2.spriteActual + 1) % 2;
-            }
-            tiempoAnimacion = 0;
+    /**
+     * Índice del ganador según el código de resultado, o -1 si no hubo
+     */
+    public static int ganadorDeResultado(int resultado) {
+        return resultado >= RESULTADO_GANA_PRIMERO ? resultado - RESULTADO_GANA_PRIMERO : -1;
+    }
+
+    // Los textos se arman una vez, así terminar una partida no genera basura
+    private static String[] crearMensajesResultado() {
+        String[] mensajes = new String[RESULTADO_GANA_PRIMERO + MAX_JUGADORES];
+        mensajes[RESULTADO_EN_CURSO] = "";
+        mensajes[RESULTADO_EMPATE] = "EMPATE!";
+        mensajes[RESULTADO_FIN] = "FIN DEL JUEGO!";
+        for (int i = 0; i < MAX_JUGADORES; i++) {
+            mensajes[RESULTADO_GANA_PRIMERO + i] = "JUGADOR " + (i + 1) + " GANA!";
         }
+        return mensajes;
     }
 
     /**
      * Actualiza un dinosaurio individual
+     * Es estática y solo depende del dinosaurio, así el cliente predice su salto con la misma física
      */
-    private void actualizarDino(EstadoDino dino, float deltaTime, boolean saltar, boolean agachar) {
-        if (!dino.vivo) {
+    public static void actualizarDino(EstadoJugadores dinos, int i, float deltaTime, boolean saltar, boolean agachar) {
+        if (!dinos.vivo[i]) {
             return;
         }
 
         // Salto
-        if (saltar && dino.enSuelo && !dino.agachado) {
-            dino.velocidadY = FUERZA_SALTO;
-            dino.enSuelo = false;
+        if (saltar && dinos.enSuelo[i] && !dinos.agachado[i]) {
+            dinos.velocidadY[i] = FUERZA_SALTO;
+            dinos.enSuelo[i] = false;
         }
 
         // Agacharse (solo en el suelo)
-        if (!dino.enSuelo) {
-            dino.agachado = false;
+        if (!dinos.enSuelo[i]) {
+            dinos.agachado[i] = false;
         } else {
-            dino.agachado = agachar;
+            dinos.agachado[i] = agachar;
         }
 
         // Aplicar gravedad
-        dino.velocidadY += GRAVEDAD * deltaTime;
-        dino.y += dino.velocidadY * deltaTime;
+        dinos.velocidadY[i] += GRAVEDAD * deltaTime;
+        dinos.y[i] += dinos.velocidadY[i] * deltaTime;
 
         // Limitar al suelo
-        if (dino.y <= Y_PISO) {
-            dino.y = Y_PISO;
-            dino.velocidadY = 0;
-            dino.enSuelo = true;
+        if (dinos.y[i] <= Y_PISO) {
+            dinos.y[i] = Y_PISO;
+            dinos.velocidadY[i] = 0;
+            dinos.enSuelo[i] = true;
         }
     }
 
     /**
-     * Detecta colisión entre un dinosaurio y los obstáculos
+     * Detecta colisión entre un dinosaurio y los obstáculos guardados para un tick, a lo largo de todo el paso
+     * El carril es el mismo para todos: alcanza con los candidatos que el historial ya barrió
      */
-    private boolean colisiona(EstadoDino dino, float x) {
-        Rectangle dinoBounds = new Rectangle();
-        dinoBounds.x = x;
-        dinoBounds.y = dino.y;
-        dinoBounds.width = EstadoDino.ANCHO;
-        dinoBounds.height = dino.getAlto();
-
-        for (EstadoObstaculo obs : obstaculos) {
-            if (dinoBounds.overlaps(obs.getBounds())) {
-                return true;
-            }
-        }
+    private boolean colisiona(int jugador, int tick, float yAntes) {
+        return historial.colisionaEnCarril(tick, yAntes, jugadores.y[jugador], jugadores.getAlto(jugador));
+    }
 
-        return false;
+    /**
+     * Tiempo hasta el próximo obstáculo según la velocidad del mundo
+     */
+    static float intervaloSpawn(float velocidad) {
+        float factorVelocidad = (velocidad - VELOCIDAD_INICIAL) / 500f;
+        float intervalo = SPAWN_INICIAL + (factorVelocidad * 0.3f);
+        if (intervalo < SPAWN_MINIMO) {
+            intervalo = SPAWN_MINIMO;
+        }
+        return intervalo;
     }
 
     /**
      * Genera un nuevo obstáculo aleatorio
      */
     private void spawnObstaculo() {
-        EstadoObstaculo obs = new EstadoObstaculo();
-        obs.x = ANCHO_PANTALLA;
+        int sorteo = sortearObstaculo(random);
+        int tipo = tipoSorteado(sorteo);
+        int variante = varianteSorteada(sorteo);
 
-        float random = MathUtils.random(1f);
-        if (random < 0.7f) {
+        obstaculos.agregar(siguienteIdObstaculo++, tipo, variante, ANCHO_PANTALLA, ySorteada(sorteo),
+                anchoObstaculo(tipo), altoObstaculo(tipo, variante));
+    }
+
+    /**
+     * Sortea el próximo obstáculo con el generador de la partida
+     * Lo usan la simulación y {@link SimulacionLote}: con la misma semilla tienen que salir los mismos obstáculos
+     * @return tipo, variante y altura empaquetados en un int (se leen con tipoSorteado, varianteSorteada e ySorteada)
+     */
+    static int sortearObstaculo(RandomXS128 random) {
+        if (random.nextFloat() < 0.7f) {
             // Cactus
-            obs.tipo = 0;
-            obs.variante = MathUtils.random(0, 4);
-            obs.y = Y_PISO;
-            obs.ancho = 30;
-            obs.alto = MathUtils.random(30f, 50f);
-        } else {
-            // Pájaro
-            obs.tipo = 1;
-            obs.variante = MathUtils.random(0, 2);
-            obs.ancho = 50;
-            obs.alto = 25;
-
-            // Alturas variables para pájaros
-            float[] alturas = {80f, 110f, 140f};
-            obs.y = alturas[MathUtils.random(0, alturas.length - 1)];
+            return random.nextInt(5) << 1;
         }
+        // Pájaro, con alturas variables
+        int variante = random.nextInt(3);
+        int altura = random.nextInt(ALTURAS_PAJARO.length);
+        return 1 | variante << 1 | altura << 4;
+    }
+
+    static int tipoSorteado(int sorteo) {
+        return sorteo & 1;
+    }
 
-        obstaculos.add(obs);
+    static int varianteSorteada(int sorteo) {
+        return (sorteo >>> 1) & 7;
+    }
+
+    static float ySorteada(int sorteo) {
+        return tipoSorteado(sorteo) == 0 ? Y_PISO : ALTURAS_PAJARO[sorteo >>> 4];
+    }
+
+    /**
+     * Ancho de un obstáculo según su tipo
+     */
+    public static float anchoObstaculo(int tipo) {
+        return tipo == 0 ? 30f : 50f;
+    }
+
+    /**
+     * Alto de un obstáculo; el del cactus sale de la variante, así el cliente lo conoce sin enviarlo
+     */
+    public static float altoObstaculo(int tipo, int variante) {
+        return tipo == 0 ? 30f + variante * 5f : 25f;
+    }
+
+    /**
+     * Reinicia el juego y vuelve a sembrar el generador, así la partida es reproducible desde acá
+     */
+    public void reset(long semilla) {
+        reset();
+        this.semilla = semilla;
+        random.setSeed(semilla);
     }
 
     /**
      * Reinicia el juego a su estado inicial
+     * El generador sigue donde estaba: la próxima partida sortea obstáculos distintos
      */
     public void reset() {
-        jugador1.reset();
-        jugador2.reset();
-        obstaculos.clear();
+        jugadores.reset();
+        obstaculos.limpiar();
         velocidad = VELOCIDAD_INICIAL;
+        distanciaRecorrida = 0;
         puntuacion = 0;
         terminado = false;
+        resultado = RESULTADO_EN_CURSO;
         mensajeFin = "";
         tiempoSpawnActual = 0f;
         tiempoSpawnObstaculo = SPAWN_INICIAL;
         tiempoAnimacion = 0f;
+        siguienteIdObstaculo = 0;
+        historial.limpiar();
+        tickSimulacion = 0;
+        partida++;
+    }
+
+    /**
+     * Se vuelve una copia exacta de otra simulación con la misma cantidad de jugadores
+     * Copia el mundo, los jugadores, los temporizadores, el historial y el estado del generador, así
+     * las dos siguen igual con los mismos inputs; el reparto entre hilos no se copia
+     */
+    public void copiarDe(GameSimulacion otra) {
+        jugadores.copiarDe(otra.jugadores);
+        obstaculos.copiarDe(otra.obstaculos);
+        historial.copiarDe(otra.historial);
+
+        velocidad = otra.velocidad;
+        distanciaRecorrida = otra.distanciaRecorrida;
+        puntuacion = otra.puntuacion;
+        terminado = otra.terminado;
+        resultado = otra.resultado;
+        mensajeFin = otra.mensajeFin;
+        tiempoSpawnActual = otra.tiempoSpawnActual;
+        tiempoSpawnObstaculo = otra.tiempoSpawnObstaculo;
+        tiempoAnimacion = otra.tiempoAnimacion;
+        siguienteIdObstaculo = otra.siguienteIdObstaculo;
+        tickSimulacion = otra.tickSimulacion;
+        semilla = otra.semilla;
+        random.setState(otra.random.getState(0), otra.random.getState(1));
+        partida++;
+    }
+
+    /**
+     * Guarda el estado en una foto reservada de antemano, sin crear objetos
+     * Solo copia los obstáculos vivos; junto con {@link #restaurar} es lo que usan el rollback y las búsquedas
+     */
+    public void guardar(EstadoGuardado destino) {
+        destino.jugadores.copiarDe(jugadores);
+        guardarMundo(destino);
+    }
+
+    /**
+     * Guarda el mundo y un solo jugador en una foto de un jugador
+     * Restaurada en una simulación de un jugador, sigue la partida de ese dinosaurio sin depender del
+     * resto (así busca un bot sus próximos movimientos)
+     */
+    public void guardar(EstadoGuardado destino, int jugador) {
+        if (destino.jugadores.cantidad != 1) {
+            throw new IllegalArgumentException("La foto debe ser de un jugador: " + destino.jugadores.cantidad);
+        }
+        destino.jugadores.copiarJugadorDe(jugadores, jugador, 0);
+        guardarMundo(destino);
+    }
+
+    private void guardarMundo(EstadoGuardado destino) {
+        int n = obstaculos.getCantidad();
+        for (int k = 0; k < n; k++) {
+            int i = obstaculos.lugar(k);
+            destino.obstaculoId[k] = obstaculos.id[i];
+            destino.obstaculoTipo[k] = obstaculos.tipo[i];
+            destino.obstaculoVariante[k] = obstaculos.variante[i];
+            destino.obstaculoX[k] = obstaculos.x[i];
+            destino.obstaculoY[k] = obstaculos.y[i];
+            destino.obstaculoAncho[k] = obstaculos.ancho[i];
+            destino.obstaculoAlto[k] = obstaculos.alto[i];
+        }
+        destino.cantidadObstaculos = n;
+
+        destino.velocidad = velocidad;
+        destino.distanciaRecorrida = distanciaRecorrida;
+        destino.puntuacion = puntuacion;
+        destino.terminado = terminado;
+        destino.resultado = resultado;
+        destino.tiempoSpawnActual = tiempoSpawnActual;
+        destino.tiempoSpawnObstaculo = tiempoSpawnObstaculo;
+        destino.tiempoAnimacion = tiempoAnimacion;
+        destino.siguienteIdObstaculo = siguienteIdObstaculo;
+        destino.tickSimulacion = tickSimulacion;
+        destino.semilla = semilla;
+        destino.estadoRandom0 = random.getState(0);
+        destino.estadoRandom1 = random.getState(1);
+        destino.origen = this;
+        destino.partida = partida;
+    }
+
+    /**
+     * Vuelve al estado de una foto; desde ahí, con los mismos inputs, se llega al mismo estado bit a bit
+     *
+     * El historial de hitboxes no viaja en la foto. Si la foto es de esta misma partida y de hace pocos
+     * ticks (un rollback), el que quedó sirve tal cual: los ticks anteriores a la foto no cambiaron y
+     * los posteriores se reescriben antes de volver a leerse. Si no, se vacía y el rebobinado arranca
+     * de cero, como al empezar una partida.
+     */
+    public void restaurar(EstadoGuardado origen) {
+        boolean historialValido = origen.origen == this && origen.partida == partida &&
+                origen.tickSimulacion <= tickSimulacion &&
+                tickSimulacion - origen.tickSimulacion <= RESTAURAR_CON_HISTORIAL;
+
+        jugadores.copiarDe(origen.jugadores);
+
+        // Las hitboxes se recalculan al agregar, con las mismas cuentas que al aparecer
+        obstaculos.limpiar();
+        for (int k = 0; k < origen.cantidadObstaculos; k++) {
+            obstaculos.agregar(origen.obstaculoId[k], origen.obstaculoTipo[k], origen.obstaculoVariante[k],
+                    origen.obstaculoX[k], origen.obstaculoY[k], origen.obstaculoAncho[k], origen.obstaculoAlto[k]);
+        }
+
+        velocidad = origen.velocidad;
+        distanciaRecorrida = origen.distanciaRecorrida;
+        puntuacion = origen.puntuacion;
+        terminado = origen.terminado;
+        resultado = origen.resultado;
+        mensajeFin = MENSAJES_RESULTADO[origen.resultado];
+        tiempoSpawnActual = origen.tiempoSpawnActual;
+        tiempoSpawnObstaculo = origen.tiempoSpawnObstaculo;
+        tiempoAnimacion = origen.tiempoAnimacion;
+        siguienteIdObstaculo = origen.siguienteIdObstaculo;
+        tickSimulacion = origen.tickSimulacion;
+        semilla = origen.semilla;
+        random.setState(origen.estadoRandom0, origen.estadoRandom1);
+
+        if (!historialValido) {
+            historial.limpiar();
+            partida++;
+        }
+    }
+
+    /**
+     * Resumen del estado completo (mundo, jugadores, temporizadores y generador)
+     * Dos simulaciones sincronizadas dan el mismo valor; si difiere, se desincronizaron
+     */
+    public int calcularHash() {
+        int h = 17;
+        h = 31 * h + Float.floatToIntBits(velocidad);
+        long distancia = Double.doubleToLongBits(distanciaRecorrida);
+        h = 31 * h + (int) (distancia ^ (distancia >>> 32));
+        h = 31 * h + puntuacion;
+        h = 31 * h + resultado;
+        h = 31 * h + Float.floatToIntBits(tiempoSpawnActual);
+        h = 31 * h + Float.floatToIntBits(tiempoSpawnObstaculo);
+        h = 31 * h + Float.floatToIntBits(tiempoAnimacion);
+        h = 31 * h + siguienteIdObstaculo;
+        h = 31 * h + tickSimulacion;
+        h = 31 * h + Long.hashCode(random.getState(0));
+        h = 31 * h + Long.hashCode(random.getState(1));
+
+        for (int i = 0; i < jugadores.cantidad; i++) {
+            h = 31 * h + Float.floatToIntBits(jugadores.y[i]);
+            h = 31 * h + Float.floatToIntBits(jugadores.velocidadY[i]);
+            h = 31 * h + (jugadores.enSuelo[i] ? 1 : 0) + (jugadores.agachado[i] ? 2 : 0) + (jugadores.vivo[i] ? 4 : 0);
+            h = 31 * h + jugadores.sprite[i];
+        }
+
+        for (int k = 0; k < obstaculos.getCantidad(); k++) {
+            int i = obstaculos.lugar(k);
+            h = 31 * h + obstaculos.id[i];
+            h = 31 * h + obstaculos.tipo[i] * 8 + obstaculos.variante[i];
+            h = 31 * h + Float.floatToIntBits(obstaculos.x[i]);
+            h = 31 * h + Float.floatToIntBits(obstaculos.y[i]);
+        }
+        return h;
+    }
+
+    public HistorialMundo getHistorial() {
+        return historial;
+    }
+
+    /**
+     * Semilla con la que se sembró el generador por última vez
+     * Después de un {@link #reset()} sin semilla ya no alcanza para rehacer la partida
+     */
+    public long getSemilla() {
+        return semilla;
+    }
+
+    /**
+     * Ticks simulados desde el último reinicio
+     */
+    public int getTickSimulacion() {
+        return tickSimulacion;
+    }
+
+    /**
+     * Actualiza un rango de jugadores, partiéndolo en dos mientras sea grande
+     */
+    private static class TareaJugadores extends RecursiveAction {
+        private final GameSimulacion simulacion;
+        private final int desde;
+        private final int hasta;
+
+        TareaJugadores(GameSimulacion simulacion, int desde, int hasta) {
+            this.simulacion = simulacion;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde <= simulacion.jugadoresPorTarea) {
+                simulacion.actualizarJugadores(desde, hasta);
+                return;
+            }
+
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new TareaJugadores(simulacion, desde, medio),
+                    new TareaJugadores(simulacion, medio, hasta));
+        }
     }
 }
\ No newline at end of file
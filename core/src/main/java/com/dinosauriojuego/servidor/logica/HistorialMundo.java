@@ -0,0 +1,230 @@
+package com.dinosauriojuego.servidor.logica;
+
+/**
+ * Anillo con las hitboxes de los últimos ticks de una partida, para compensar la latencia
+ *
+ * Cada tick se guardan las hitboxes (ya reducidas) de los obstáculos y la posición de cada
+ * dinosaurio. Al resolver la colisión de un jugador se usa el mundo de hace tantos ticks como
+ * tardó en verlo, así un salto que en su pantalla llegó a tiempo no muere en el servidor.
+ *
+ * Todo vive en arrays primitivos reservados al construir: guardar un tick solo copia floats.
+ * Los obstáculos se guardan en orden de aparición, que también es orden de x creciente.
+ *
+ * Fase amplia (sweep and prune): los dinosaurios corren todos en el mismo carril de x, así que al
+ * guardar un tick un solo barrido por los obstáculos anota cuáles se superponen con el carril.
+ * Después cada dinosaurio solo compara su altura contra esos candidatos, y el costo del tick
+ * crece como obstáculos + jugadores en vez de obstáculos × jugadores.
+ *
+ * Como candidato cuenta todo lo que el obstáculo barrió durante el tick (no solo su x final), así la
+ * prueba continua de {@link ColisionContinua} no se pierde obstáculos que cruzaron el carril en un paso.
+ */
+public strictfp class HistorialMundo {
+
+    // Potencia de dos mayor que el rebobinado máximo
+    public static final int CAPACIDAD = 32;
+    private static final int MASCARA = CAPACIDAD - 1;
+
+    // Rebobinado máximo en ticks (250 ms a 60 Hz); más atrás ya no es justo para el resto
+    public static final int REBOBINADO_MAXIMO = 15;
+
+    public static final int MAX_OBSTACULOS = AlmacenObstaculos.CAPACIDAD;
+
+    private final int[] ticks = new int[CAPACIDAD];
+
+    // Hitboxes de los obstáculos: lugar (tick & MASCARA) * MAX_OBSTACULOS + i
+    private final int[] cantidadObstaculos = new int[CAPACIDAD];
+    private final float[] obstaculoX = new float[CAPACIDAD * MAX_OBSTACULOS];
+    private final float[] obstaculoY = new float[CAPACIDAD * MAX_OBSTACULOS];
+    private final float[] obstaculoAncho = new float[CAPACIDAD * MAX_OBSTACULOS];
+    private final float[] obstaculoAlto = new float[CAPACIDAD * MAX_OBSTACULOS];
+
+    // Cuánto avanzó el mundo hacia la izquierda en cada tick
+    private final float[] desplazamiento = new float[CAPACIDAD];
+
+    // Carril de x donde corren los dinosaurios y, por tick, los obstáculos que lo tocan (mismo indexado)
+    private final float carrilX;
+    private final float carrilAncho;
+    private final float carrilDerecha;
+    private final int[] cantidadCandidatos = new int[CAPACIDAD];
+    private final int[] candidatos = new int[CAPACIDAD * MAX_OBSTACULOS];
+
+    // Dinosaurios: lugar * jugadores + jugador
+    private final int jugadores;
+    private final float[] dinoY;
+    private final float[] dinoAlto;
+
+    /**
+     * @param carrilX borde izquierdo de los dinosaurios
+     * @param carrilAncho ancho de los dinosaurios
+     */
+    public HistorialMundo(int jugadores, float carrilX, float carrilAncho) {
+        this.jugadores = jugadores;
+        this.carrilX = carrilX;
+        this.carrilAncho = carrilAncho;
+        this.carrilDerecha = carrilX + carrilAncho;
+        this.dinoY = new float[CAPACIDAD * jugadores];
+        this.dinoAlto = new float[CAPACIDAD * jugadores];
+        limpiar();
+    }
+
+    /**
+     * Guarda las hitboxes de los obstáculos del tick
+     * @param desplazamiento cuánto se movieron los obstáculos hacia la izquierda en este tick
+     */
+    public void guardarObstaculos(int tick, AlmacenObstaculos obstaculos, float desplazamiento) {
+        int lugar = tick & MASCARA;
+        ticks[lugar] = tick;
+        this.desplazamiento[lugar] = desplazamiento;
+
+        // Las hitboxes ya vienen calculadas desde el spawn; solo cambia su x
+        int n = obstaculos.getCantidad();
+        int base = lugar * MAX_OBSTACULOS;
+        for (int k = 0; k < n; k++) {
+            int i = obstaculos.lugar(k);
+            obstaculoX[base + k] = obstaculos.x[i] + obstaculos.hitboxDx[i];
+            obstaculoY[base + k] = obstaculos.hitboxY[i];
+            obstaculoAncho[base + k] = obstaculos.hitboxAncho[i];
+            obstaculoAlto[base + k] = obstaculos.hitboxAlto[i];
+        }
+        cantidadObstaculos[lugar] = n;
+
+        // Barrido: en x creciente, el primero que al final del tick sigue a la derecha del carril corta el
+        // recorrido (venía de más a la derecha); el borde derecho se toma donde estaba al empezar el tick
+        int c = 0;
+        for (int k = base; k < base + n; k++) {
+            if (obstaculoX[k] >= carrilDerecha) {
+                break;
+            }
+            if (obstaculoX[k] + obstaculoAncho[k] + desplazamiento > carrilX) {
+                candidatos[base + c++] = k;
+            }
+        }
+        cantidadCandidatos[lugar] = c;
+    }
+
+    /**
+     * Guarda la posición de todos los dinosaurios en el tick (después de guardar sus obstáculos)
+     */
+    public void guardarDinos(int tick, EstadoJugadores dinos) {
+        int base = (tick & MASCARA) * jugadores;
+        System.arraycopy(dinos.y, 0, dinoY, base, jugadores);
+        for (int i = 0; i < jugadores; i++) {
+            dinoAlto[base + i] = dinos.getAlto(i);
+        }
+    }
+
+    /**
+     * Tick más viejo disponible para rebobinar desde tickActual, respetando el máximo
+     */
+    public int tickRebobinado(int tickActual, int rebobinado) {
+        rebobinado = Math.max(0, Math.min(rebobinado, REBOBINADO_MAXIMO));
+        int tick = tickActual - rebobinado;
+        // Si ese tick no está (la partida recién empezó), el más viejo que haya
+        while (tick < tickActual && ticks[tick & MASCARA] != tick) {
+            tick++;
+        }
+        return tick;
+    }
+
+    /**
+     * Indica si un dinosaurio del carril tocó, en algún momento del tick, un obstáculo guardado para ese tick
+     * Solo revisa los candidatos del barrido, con la prueba continua
+     * @param yAntes y del dinosaurio al empezar su tick
+     * @param y y del dinosaurio al terminarlo
+     */
+    public boolean colisionaEnCarril(int tick, float yAntes, float y, float alto) {
+        int lugar = tick & MASCARA;
+        if (ticks[lugar] != tick) {
+            return false;
+        }
+
+        int base = lugar * MAX_OBSTACULOS;
+        int fin = base + cantidadCandidatos[lugar];
+        float avance = desplazamiento[lugar];
+        for (int c = base; c < fin; c++) {
+            int i = candidatos[c];
+            if (ColisionContinua.choca(carrilX, carrilAncho, yAntes, y, alto,
+                    obstaculoX[i], obstaculoY[i], obstaculoAncho[i], obstaculoAlto[i], avance)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indica si un rectángulo cualquiera toca alguna hitbox de obstáculo guardada para el tick (sin barrer)
+     * Recorre los obstáculos uno por uno; para los dinosaurios conviene {@link #colisionaEnCarril}
+     */
+    public boolean colisiona(int tick, float x, float y, float ancho, float alto) {
+        int lugar = tick & MASCARA;
+        if (ticks[lugar] != tick) {
+            return false;
+        }
+
+        int base = lugar * MAX_OBSTACULOS;
+        int fin = base + cantidadObstaculos[lugar];
+        float derecha = x + ancho;
+        for (int i = base; i < fin; i++) {
+            if (obstaculoX[i] >= derecha) {
+                return false;
+            }
+            if (x < obstaculoX[i] + obstaculoAncho[i]
+                    && y < obstaculoY[i] + obstaculoAlto[i] && y + alto > obstaculoY[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copia todos los ticks guardados de otro historial del mismo carril y cantidad de jugadores
+     */
+    public void copiarDe(HistorialMundo otro) {
+        if (otro.jugadores != jugadores) {
+            throw new IllegalArgumentException("Cantidades de jugadores distintas: " + otro.jugadores + " y " + jugadores);
+        }
+        System.arraycopy(otro.ticks, 0, ticks, 0, CAPACIDAD);
+        System.arraycopy(otro.cantidadObstaculos, 0, cantidadObstaculos, 0, CAPACIDAD);
+        System.arraycopy(otro.obstaculoX, 0, obstaculoX, 0, obstaculoX.length);
+        System.arraycopy(otro.obstaculoY, 0, obstaculoY, 0, obstaculoY.length);
+        System.arraycopy(otro.obstaculoAncho, 0, obstaculoAncho, 0, obstaculoAncho.length);
+        System.arraycopy(otro.obstaculoAlto, 0, obstaculoAlto, 0, obstaculoAlto.length);
+        System.arraycopy(otro.desplazamiento, 0, desplazamiento, 0, CAPACIDAD);
+        System.arraycopy(otro.cantidadCandidatos, 0, cantidadCandidatos, 0, CAPACIDAD);
+        System.arraycopy(otro.candidatos, 0, candidatos, 0, candidatos.length);
+        System.arraycopy(otro.dinoY, 0, dinoY, 0, dinoY.length);
+        System.arraycopy(otro.dinoAlto, 0, dinoAlto, 0, dinoAlto.length);
+    }
+
+    /**
+     * Olvida todos los ticks guardados
+     */
+    public void limpiar() {
+        for (int i = 0; i < CAPACIDAD; i++) {
+            ticks[i] = -1;
+            cantidadObstaculos[i] = 0;
+            cantidadCandidatos[i] = 0;
+        }
+    }
+
+    // Consultas del pasado (para depurar y para los chequeos que necesitan el tick anterior)
+    public boolean tieneTick(int tick) {
+        return tick >= 0 && ticks[tick & MASCARA] == tick;
+    }
+
+    public float getDinoY(int tick, int jugador) {
+        return dinoY[(tick & MASCARA) * jugadores + jugador];
+    }
+
+    public float getDinoAlto(int tick, int jugador) {
+        return dinoAlto[(tick & MASCARA) * jugadores + jugador];
+    }
+
+    public int getCantidadObstaculos(int tick) {
+        return tieneTick(tick) ? cantidadObstaculos[tick & MASCARA] : 0;
+    }
+
+    public int getCantidadCandidatos(int tick) {
+        return tieneTick(tick) ? cantidadCandidatos[tick & MASCARA] : 0;
+    }
+}
@@ -0,0 +1,245 @@
+package com.dinosauriojuego.servidor.logica;
+
+import com.badlogic.gdx.math.RandomXS128;
+
+/**
+ * Jugador controlado por el servidor, para completar las salas que no llegan a llenarse
+ *
+ * Busca sobre copias de la partida: guarda su dinosaurio y el mundo en una foto de un jugador y, en
+ * una simulación propia, prueba primero no hacer nada. Si eso sobrevive todo el horizonte no hay nada
+ * que decidir. Si no, prueba saltar y agacharse tras distintas esperas, se queda con la acción que más
+ * ticks sobrevive y la programa en el medio del rango de esperas que la logran, para tener margen.
+ *
+ * El mundo no depende de los dinosaurios y la foto lleva el generador, así que la búsqueda ve
+ * exactamente lo que va a pasar: el plan no hace falta revisarlo hasta cumplirlo. Con eso se busca una
+ * vez por obstáculo y nunca en el aire, y en la mayoría de los ticks no se simula nada. Una búsqueda
+ * simula a lo sumo (1 + 2 × esperas probadas) × 2 horizontes de ticks de un jugador, y el horizonte se
+ * acorta para que eso quepa en el presupuesto configurado.
+ *
+ * La dificultad acorta el horizonte y demora cada reacción unos ticks al azar: con poco margen, la
+ * demora lo hace chocar.
+ */
+public strictfp class JugadorBot {
+
+    public static final int DIFICULTAD_MINIMA = 1;
+    public static final int DIFICULTAD_MAXIMA = 10;
+
+    // Esperas (en ticks) que se prueban antes de saltar o agacharse
+    private static final int[] ESPERAS = {0, 2, 4, 7, 10, 14, 19, 25, 32};
+    private static final int ROLLOUTS_POR_BUSQUEDA = 1 + 2 * ESPERAS.length;
+
+    // Un intento dura a lo sumo dos horizontes (ver probar)
+    private static final int TICKS_POR_HORIZONTE = 2 * ROLLOUTS_POR_BUSQUEDA;
+
+    // Acciones
+    private static final int NADA = 0;
+    private static final int SALTAR = 1;
+    private static final int AGACHAR = 2;
+
+    // Horizonte según la dificultad; un salto dura unos 60 ticks a 60 Hz
+    private static final int HORIZONTE_BASE = 20;
+    private static final int HORIZONTE_POR_NIVEL = 5;
+    private static final int HORIZONTE_MINIMO = 4;
+
+    // Demora máxima de una reacción (en ticks) por cada nivel debajo del máximo
+    private static final int DEMORA_POR_NIVEL = 1;
+
+    private final int dificultad;
+    private final int horizonte;
+    private final int demoraMaxima;
+    private final RandomXS128 random;
+
+    // Simulación y foto de un jugador donde se prueban las jugadas
+    private final GameSimulacion prueba;
+    private final EstadoGuardado foto = new EstadoGuardado(1);
+    private final boolean[] saltarPrueba = new boolean[1];
+    private final boolean[] agacharPrueba = new boolean[1];
+    private final int[] sobrevive = new int[ESPERAS.length];
+
+    // Plan en ticks de la partida: nada hasta tickAccion, después la acción; agacharse se mantiene y no
+    // hacer nada dura hasta finAccion, y ahí se vuelve a buscar
+    private boolean hayPlan = false;
+    private int tickAccion;
+    private int finAccion;
+    private int accion;
+    private int ultimoTick = -1;
+
+    // Estadísticas
+    private long busquedas;
+    private long ticksSimulados;
+
+    /**
+     * @param dificultad entre DIFICULTAD_MINIMA y DIFICULTAD_MAXIMA
+     * @param presupuesto ticks simulados como máximo en una búsqueda; limita el horizonte
+     */
+    public JugadorBot(int dificultad, int presupuesto, long semilla) {
+        if (dificultad < DIFICULTAD_MINIMA || dificultad > DIFICULTAD_MAXIMA) {
+            throw new IllegalArgumentException("La dificultad debe estar entre " + DIFICULTAD_MINIMA + " y " +
+                    DIFICULTAD_MAXIMA + ": " + dificultad);
+        }
+        this.dificultad = dificultad;
+        this.horizonte = Math.max(HORIZONTE_MINIMO,
+                Math.min(HORIZONTE_BASE + HORIZONTE_POR_NIVEL * dificultad, presupuesto / TICKS_POR_HORIZONTE));
+        this.demoraMaxima = (DIFICULTAD_MAXIMA - dificultad) * DEMORA_POR_NIVEL;
+        this.random = new RandomXS128(semilla);
+        this.prueba = new GameSimulacion(1, semilla);
+    }
+
+    /**
+     * Elige el input del jugador para el próximo tick y lo escribe en su lugar de los arrays
+     * @param deltaTime paso de la simulación, el mismo con que se va a actualizar
+     */
+    public void decidir(GameSimulacion simulacion, int jugador, float deltaTime, boolean[] saltar, boolean[] agachar) {
+        saltar[jugador] = false;
+        agachar[jugador] = false;
+
+        // Una partida nueva invalida el plan de la anterior
+        int tick = simulacion.getTickSimulacion();
+        if (tick < ultimoTick) {
+            hayPlan = false;
+        }
+        ultimoTick = tick;
+
+        EstadoJugadores dinos = simulacion.jugadores;
+        if (simulacion.terminado || !dinos.vivo[jugador]) {
+            return;
+        }
+        // Un plan cumplido se reemplaza en el mismo tick: agacharse no se corta antes de volver a mirar
+        if (hayPlan && accion != SALTAR && tick >= finAccion) {
+            hayPlan = false;
+        }
+        if (!hayPlan) {
+            // En el aire ningún input cambia nada: se busca al volver al suelo
+            if (!dinos.enSuelo[jugador]) {
+                return;
+            }
+            buscar(simulacion, jugador, tick, deltaTime);
+        }
+
+        if (tick < tickAccion) {
+            return;
+        }
+        if (accion == SALTAR) {
+            saltar[jugador] = true;
+            hayPlan = false;
+        } else if (accion == AGACHAR) {
+            agachar[jugador] = true;
+        }
+    }
+
+    /**
+     * Arma el plan desde el estado actual
+     */
+    private void buscar(GameSimulacion simulacion, int jugador, int tick, float deltaTime) {
+        simulacion.guardar(foto, jugador);
+        busquedas++;
+        hayPlan = true;
+
+        int nada = probar(NADA, 0, deltaTime);
+        if (nada >= horizonte) {
+            // Nada que esquivar en el horizonte: se vuelve a mirar a mitad de camino
+            accion = NADA;
+            finAccion = tick + horizonte / 2;
+            tickAccion = finAccion;
+            return;
+        }
+
+        int mejorSalto = probarEsperas(SALTAR, nada, deltaTime);
+        int esperaSalto = esperaCentral(mejorSalto);
+        int mejorAgachado = probarEsperas(AGACHAR, nada, deltaTime);
+        int esperaAgachado = esperaCentral(mejorAgachado);
+
+        if (Math.max(mejorSalto, mejorAgachado) <= nada) {
+            // Nada lo salva mejor que quedarse quieto: se vuelve a probar en el próximo tick
+            accion = NADA;
+            finAccion = tick + 1;
+            tickAccion = finAccion;
+            return;
+        }
+
+        // Ante un empate, agacharse: no deja al dinosaurio en el aire para lo que venga después
+        int demora = demoraMaxima > 0 ? random.nextInt(demoraMaxima + 1) : 0;
+        if (mejorAgachado >= mejorSalto) {
+            accion = AGACHAR;
+            tickAccion = tick + esperaAgachado + demora;
+            finAccion = tick + mejorAgachado;
+        } else {
+            accion = SALTAR;
+            tickAccion = tick + esperaSalto + demora;
+            finAccion = tickAccion;
+        }
+    }
+
+    /**
+     * Prueba la acción tras cada espera útil (las que empiezan antes de que quedarse quieto choque)
+     * @return lo máximo que se sobrevive; sobrevive[] queda con el resultado de cada espera (-1 si no se probó)
+     */
+    private int probarEsperas(int accionProbada, int choqueQuieto, float deltaTime) {
+        int mejor = -1;
+        for (int e = 0; e < ESPERAS.length; e++) {
+            if (ESPERAS[e] > choqueQuieto) {
+                sobrevive[e] = -1;
+                continue;
+            }
+            sobrevive[e] = probar(accionProbada, ESPERAS[e], deltaTime);
+            mejor = Math.max(mejor, sobrevive[e]);
+        }
+        return mejor;
+    }
+
+    /**
+     * Espera del medio entre las que logran lo máximo, para tener margen hacia los dos lados
+     */
+    private int esperaCentral(int mejor) {
+        int primera = -1;
+        int ultima = -1;
+        for (int e = 0; e < ESPERAS.length; e++) {
+            if (sobrevive[e] == mejor) {
+                if (primera < 0) primera = e;
+                ultima = e;
+            }
+        }
+        return primera < 0 ? 0 : (ESPERAS[primera] + ESPERAS[ultima]) / 2;
+    }
+
+    /**
+     * Simula la jugada desde la foto: espera ticks sin hacer nada, después la acción (agacharse se
+     * mantiene, saltar es un solo tick)
+     * Si al llegar al horizonte está en el aire sigue hasta que toque el suelo (a lo sumo otro horizonte):
+     * un salto que cae sobre un cactus no cuenta como salvado
+     * @return ticks que sobrevive, hasta el horizonte
+     */
+    private int probar(int accionProbada, int espera, float deltaTime) {
+        prueba.restaurar(foto);
+        EstadoJugadores dino = prueba.jugadores;
+        for (int t = 0; t < horizonte * 2; t++) {
+            if (t >= horizonte && dino.enSuelo[0]) {
+                break;
+            }
+            saltarPrueba[0] = accionProbada == SALTAR && t == espera;
+            agacharPrueba[0] = accionProbada == AGACHAR && t >= espera;
+            prueba.actualizar(deltaTime, saltarPrueba, agacharPrueba);
+            ticksSimulados++;
+            if (prueba.terminado) {
+                return Math.min(t, horizonte - 1);
+            }
+        }
+        return horizonte;
+    }
+
+    public int getDificultad() {
+        return dificultad;
+    }
+
+    public int getHorizonte() {
+        return horizonte;
+    }
+
+    public long getBusquedas() {
+        return busquedas;
+    }
+
+    public long getTicksSimulados() {
+        return ticksSimulados;
+    }
+}
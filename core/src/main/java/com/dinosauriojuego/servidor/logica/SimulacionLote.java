@@ -0,0 +1,392 @@
+package com.dinosauriojuego.servidor.logica;
+
+import com.badlogic.gdx.math.RandomXS128;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Lote de partidas individuales simuladas a la vez, sin red ni tiempo real, para bots y evaluación offline
+ *
+ * Todo el estado vive en arrays primitivos indexados por partida (los obstáculos, en un anillo por partida
+ * dentro de arrays compartidos). Cada llamada a {@link #paso} avanza un tick todas las partidas con la acción
+ * de cada una y deja en arrays las observaciones, recompensas y fines. Las partidas terminadas se reinician
+ * solas con otra semilla, así el lote nunca se vacía.
+ *
+ * La física es la de {@link GameSimulacion} con un jugador: con la misma semilla y las mismas acciones
+ * una partida del lote termina en el mismo tick y con la misma puntuación.
+ * Las partidas son independientes: se reparten entre los hilos y el resultado no depende de cuántos haya.
+ */
+public strictfp class SimulacionLote {
+
+    // Acciones
+    public static final int ACCION_NADA = 0;
+    public static final int ACCION_SALTAR = 1;
+    public static final int ACCION_AGACHAR = 2;
+
+    // Observación de una partida: el dinosaurio, la velocidad y los próximos obstáculos
+    public static final int OBSTACULOS_OBSERVADOS = 2;
+    public static final int CAMPOS_OBSTACULO = 5; // distancia, y, ancho, alto, tipo (hitbox reducida)
+    public static final int TAMANO_OBSERVACION = 5 + OBSTACULOS_OBSERVADOS * CAMPOS_OBSTACULO;
+
+    // Por debajo de esta cantidad de partidas no vale la pena repartir
+    private static final int PARTIDAS_POR_TAREA = 256;
+
+    private static final int CAPACIDAD = AlmacenObstaculos.CAPACIDAD;
+    private static final int MASCARA = CAPACIDAD - 1;
+
+    private final int partidas;
+    private final float deltaTime;
+    private final long semillaBase;
+    private final ForkJoinPool pool;
+
+    // Mundo de cada partida
+    private final float[] velocidad;
+    private final int[] puntuacion;
+    private final float[] tiempoSpawnActual;
+    private final float[] tiempoSpawnObstaculo;
+    private final int[] ticks;
+    private final int[] episodio;
+    private final RandomXS128[] random;
+
+    // Un dinosaurio por partida
+    private final EstadoJugadores dinos;
+
+    // Obstáculos: partida * CAPACIDAD + lugar en su anillo (hitbox ya reducida)
+    private final int[] primero;
+    private final int[] cantidad;
+    private final int[] obstaculoTipo;
+    private final float[] obstaculoX;
+    private final float[] obstaculoAncho;
+    private final float[] hitboxDx;
+    private final float[] hitboxY;
+    private final float[] hitboxAncho;
+    private final float[] hitboxAlto;
+
+    // Salida de cada paso
+    public final float[] observaciones;
+    public final float[] recompensas;
+    public final boolean[] terminadas;
+    public final int[] puntuacionFinal; // Puntuación y ticks de la partida que terminó en este paso
+    public final int[] duracionFinal;
+
+    // Acciones del paso en curso, para las tareas
+    private int[] accionesPaso;
+
+    // Estadísticas (se actualizan al terminar cada paso)
+    private long ticksSimulados;
+    private long nanosSimulando;
+    private long episodiosTerminados;
+    private long sumaPuntuaciones;
+    private long sumaDuraciones;
+    private int mejorPuntuacion;
+
+    /**
+     * @param partidas partidas simultáneas
+     * @param ticksPorSegundo paso fijo de la simulación
+     * @param semillaBase la partida p en su episodio e usa la semilla semillaBase + e * partidas + p
+     * @param hilos hilos para repartir las partidas (1 = todo en el hilo que llama)
+     */
+    public SimulacionLote(int partidas, int ticksPorSegundo, long semillaBase, int hilos) {
+        if (partidas < 1) {
+            throw new IllegalArgumentException("Hace falta al menos una partida: " + partidas);
+        }
+        this.partidas = partidas;
+        this.deltaTime = 1f / ticksPorSegundo;
+        this.semillaBase = semillaBase;
+        this.pool = hilos > 1 ? new ForkJoinPool(hilos) : null;
+
+        velocidad = new float[partidas];
+        puntuacion = new int[partidas];
+        tiempoSpawnActual = new float[partidas];
+        tiempoSpawnObstaculo = new float[partidas];
+        ticks = new int[partidas];
+        episodio = new int[partidas];
+        random = new RandomXS128[partidas];
+        dinos = new EstadoJugadores(partidas);
+
+        primero = new int[partidas];
+        cantidad = new int[partidas];
+        obstaculoTipo = new int[partidas * CAPACIDAD];
+        obstaculoX = new float[partidas * CAPACIDAD];
+        obstaculoAncho = new float[partidas * CAPACIDAD];
+        hitboxDx = new float[partidas * CAPACIDAD];
+        hitboxY = new float[partidas * CAPACIDAD];
+        hitboxAncho = new float[partidas * CAPACIDAD];
+        hitboxAlto = new float[partidas * CAPACIDAD];
+
+        observaciones = new float[partidas * TAMANO_OBSERVACION];
+        recompensas = new float[partidas];
+        terminadas = new boolean[partidas];
+        puntuacionFinal = new int[partidas];
+        duracionFinal = new int[partidas];
+
+        for (int p = 0; p < partidas; p++) {
+            random[p] = new RandomXS128(semilla(p));
+            reiniciar(p);
+            observar(p);
+        }
+    }
+
+    /**
+     * Avanza un tick todas las partidas
+     * @param acciones una acción por partida (ACCION_NADA, ACCION_SALTAR o ACCION_AGACHAR)
+     * @return las observaciones del nuevo estado (TAMANO_OBSERVACION floats por partida);
+     *         recompensas, terminadas, puntuacionFinal y duracionFinal quedan en sus arrays
+     */
+    public float[] paso(int[] acciones) {
+        long inicio = System.nanoTime();
+        accionesPaso = acciones;
+        if (pool != null && partidas > PARTIDAS_POR_TAREA) {
+            pool.invoke(new TareaPartidas(this, 0, partidas));
+        } else {
+            avanzar(0, partidas);
+        }
+        accionesPaso = null;
+
+        // Estadísticas en orden fijo, después de que terminaron todas las partidas
+        for (int p = 0; p < partidas; p++) {
+            if (terminadas[p]) {
+                episodiosTerminados++;
+                sumaPuntuaciones += puntuacionFinal[p];
+                sumaDuraciones += duracionFinal[p];
+                mejorPuntuacion = Math.max(mejorPuntuacion, puntuacionFinal[p]);
+            }
+        }
+        ticksSimulados += partidas;
+        nanosSimulando += System.nanoTime() - inicio;
+        return observaciones;
+    }
+
+    /**
+     * Avanza las partidas [desde, hasta)
+     */
+    private void avanzar(int desde, int hasta) {
+        for (int p = desde; p < hasta; p++) {
+            int accion = accionesPaso[p];
+            terminadas[p] = false;
+            if (avanzarPartida(p, accion == ACCION_SALTAR, accion == ACCION_AGACHAR)) {
+                recompensas[p] = 1f;
+            } else {
+                // Se pierde la recompensa del tick y la partida vuelve a empezar con otra semilla
+                recompensas[p] = 0f;
+                terminadas[p] = true;
+                puntuacionFinal[p] = puntuacion[p];
+                duracionFinal[p] = ticks[p];
+                episodio[p]++;
+                random[p].setSeed(semilla(p));
+                reiniciar(p);
+            }
+            observar(p);
+        }
+    }
+
+    /**
+     * Un tick de una partida, en el mismo orden que {@link GameSimulacion#actualizar}
+     * @return false si el dinosaurio chocó
+     */
+    private boolean avanzarPartida(int p, boolean saltar, boolean agachar) {
+        float dt = deltaTime;
+        ticks[p]++;
+
+        // Mundo
+        velocidad[p] += GameSimulacion.VELOCIDAD_INCREMENTO * dt;
+        puntuacion[p] = (int)((velocidad[p] - GameSimulacion.VELOCIDAD_INICIAL) * 0.4f);
+
+        tiempoSpawnActual[p] += dt;
+        if (tiempoSpawnActual[p] >= tiempoSpawnObstaculo[p]) {
+            spawnObstaculo(p);
+            tiempoSpawnActual[p] = 0;
+            tiempoSpawnObstaculo[p] = GameSimulacion.intervaloSpawn(velocidad[p]);
+        }
+
+        float desplazamiento = velocidad[p] * dt;
+        int base = p * CAPACIDAD;
+        int n = cantidad[p];
+        for (int k = 0; k < n; k++) {
+            obstaculoX[base + ((primero[p] + k) & MASCARA)] -= desplazamiento;
+        }
+        while (n > 0 && obstaculoX[base + primero[p]] + obstaculoAncho[base + primero[p]] < 0) {
+            primero[p] = (primero[p] + 1) & MASCARA;
+            n--;
+        }
+        cantidad[p] = n;
+
+        // Dinosaurio
+        float yAntes = dinos.y[p];
+        GameSimulacion.actualizarDino(dinos, p, dt, saltar, agachar);
+
+        // Colisión continua contra los obstáculos que cruzan el carril (en x creciente)
+        float carrilDerecha = GameSimulacion.X_DINO + EstadoJugadores.ANCHO;
+        float alto = dinos.getAlto(p);
+        for (int k = 0; k < n; k++) {
+            int i = base + ((primero[p] + k) & MASCARA);
+            float x = obstaculoX[i] + hitboxDx[i];
+            if (x >= carrilDerecha) {
+                break;
+            }
+            if (ColisionContinua.choca(GameSimulacion.X_DINO, EstadoJugadores.ANCHO, yAntes, dinos.y[p], alto,
+                    x, hitboxY[i], hitboxAncho[i], hitboxAlto[i], desplazamiento)) {
+                dinos.vivo[p] = false;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Obstáculo nuevo al final del anillo de la partida, con el mismo sorteo que la simulación
+     */
+    private void spawnObstaculo(int p) {
+        int sorteo = GameSimulacion.sortearObstaculo(random[p]);
+
+        if (cantidad[p] == CAPACIDAD) {
+            return;
+        }
+        int tipo = GameSimulacion.tipoSorteado(sorteo);
+        float ancho = GameSimulacion.anchoObstaculo(tipo);
+        float alto = GameSimulacion.altoObstaculo(tipo, GameSimulacion.varianteSorteada(sorteo));
+
+        int i = p * CAPACIDAD + ((primero[p] + cantidad[p]) & MASCARA);
+        obstaculoTipo[i] = tipo;
+        obstaculoX[i] = GameSimulacion.ANCHO_PANTALLA;
+        obstaculoAncho[i] = ancho;
+        AlmacenObstaculos.calcularHitbox(GameSimulacion.ySorteada(sorteo), ancho, alto,
+                hitboxDx, hitboxY, hitboxAncho, hitboxAlto, i);
+        cantidad[p]++;
+    }
+
+    /**
+     * Escribe la observación de la partida: altura sobre el piso, velocidad vertical, en suelo, agachado,
+     * velocidad del mundo y, por cada uno de los próximos obstáculos (los que todavía no pasó),
+     * distancia hasta el dinosaurio, y, ancho, alto y tipo; sin obstáculo, distancia = ancho de pantalla
+     */
+    private void observar(int p) {
+        int o = p * TAMANO_OBSERVACION;
+        observaciones[o] = dinos.y[p] - GameSimulacion.Y_PISO;
+        observaciones[o + 1] = dinos.velocidadY[p];
+        observaciones[o + 2] = dinos.enSuelo[p] ? 1f : 0f;
+        observaciones[o + 3] = dinos.agachado[p] ? 1f : 0f;
+        observaciones[o + 4] = velocidad[p];
+
+        int base = p * CAPACIDAD;
+        int k = 0;
+        int n = cantidad[p];
+        for (int j = 0; j < OBSTACULOS_OBSERVADOS; j++) {
+            // El primero que todavía no dejó atrás al dinosaurio
+            while (k < n) {
+                int i = base + ((primero[p] + k) & MASCARA);
+                if (obstaculoX[i] + hitboxDx[i] + hitboxAncho[i] > GameSimulacion.X_DINO) {
+                    break;
+                }
+                k++;
+            }
+
+            int c = o + 5 + j * CAMPOS_OBSTACULO;
+            if (k < n) {
+                int i = base + ((primero[p] + k) & MASCARA);
+                observaciones[c] = obstaculoX[i] + hitboxDx[i] - (GameSimulacion.X_DINO + EstadoJugadores.ANCHO);
+                observaciones[c + 1] = hitboxY[i] - GameSimulacion.Y_PISO;
+                observaciones[c + 2] = hitboxAncho[i];
+                observaciones[c + 3] = hitboxAlto[i];
+                observaciones[c + 4] = obstaculoTipo[i];
+                k++;
+            } else {
+                observaciones[c] = GameSimulacion.ANCHO_PANTALLA;
+                observaciones[c + 1] = 0f;
+                observaciones[c + 2] = 0f;
+                observaciones[c + 3] = 0f;
+                observaciones[c + 4] = 0f;
+            }
+        }
+    }
+
+    /**
+     * Deja la partida como recién empezada (la semilla ya tiene que estar puesta)
+     */
+    private void reiniciar(int p) {
+        velocidad[p] = GameSimulacion.VELOCIDAD_INICIAL;
+        puntuacion[p] = 0;
+        tiempoSpawnActual[p] = 0f;
+        tiempoSpawnObstaculo[p] = GameSimulacion.SPAWN_INICIAL;
+        ticks[p] = 0;
+        primero[p] = 0;
+        cantidad[p] = 0;
+        dinos.reset(p);
+    }
+
+    private long semilla(int p) {
+        return semillaBase + (long) episodio[p] * partidas + p;
+    }
+
+    /**
+     * Detiene los hilos del pool
+     */
+    public void cerrar() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    public int getPartidas() {
+        return partidas;
+    }
+
+    public int getHilos() {
+        return pool != null ? pool.getParallelism() : 1;
+    }
+
+    public long getTicksSimulados() {
+        return ticksSimulados;
+    }
+
+    /**
+     * Ticks de partida simulados por segundo de CPU de pared dentro de paso (todas las partidas sumadas)
+     */
+    public double getTicksPorSegundo() {
+        return nanosSimulando > 0 ? ticksSimulados * 1e9 / nanosSimulando : 0;
+    }
+
+    public long getEpisodiosTerminados() {
+        return episodiosTerminados;
+    }
+
+    public double getPuntuacionMedia() {
+        return episodiosTerminados > 0 ? sumaPuntuaciones / (double) episodiosTerminados : 0;
+    }
+
+    public double getDuracionMedia() {
+        return episodiosTerminados > 0 ? sumaDuraciones / (double) episodiosTerminados : 0;
+    }
+
+    public int getMejorPuntuacion() {
+        return mejorPuntuacion;
+    }
+
+    /**
+     * Avanza un rango de partidas, partiéndolo en dos mientras sea grande
+     */
+    private static class TareaPartidas extends RecursiveAction {
+        private final SimulacionLote lote;
+        private final int desde;
+        private final int hasta;
+
+        TareaPartidas(SimulacionLote lote, int desde, int hasta) {
+            this.lote = lote;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde <= PARTIDAS_POR_TAREA) {
+                lote.avanzar(desde, hasta);
+                return;
+            }
+
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new TareaPartidas(lote, desde, medio),
+                    new TareaPartidas(lote, medio, hasta));
+        }
+    }
+}
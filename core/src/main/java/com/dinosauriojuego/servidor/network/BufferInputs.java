@@ -0,0 +1,297 @@
+package com.dinosauriojuego.servidor.network;
+
+import com.dinosauriojuego.network.PaqueteInput;
+
+/**
+ * Buffer de jitter de los inputs de un cliente, ordenados por el tick del cliente al que apuntan
+ *
+ * El input del tick T del cliente se aplica en el tick T + retardo del servidor. El retardo se
+ * adapta a la llegada medida: cada paquete registra cuántos ticks tarde llegó respecto de su
+ * objetivo y el retardo se fija en media + FACTOR_DESVIO * desvío, así que con red estable queda
+ * en 0 y con jitter crece lo justo para que casi todo llegue a tiempo. Sube de inmediato y baja
+ * de a un tick, solo después de un rato con margen de sobra.
+ *
+ * Los paquetes traen inputs repetidos; por número de secuencia se descartan los ya recibidos y se
+ * detectan los que se perdieron incluso con la redundancia.
+ *
+ * Política ante inputs tardíos o faltantes:
+ * - Tardío (su tick ya se aplicó): se aplica en el próximo tick, así el salto no se pierde.
+ * - Faltante (no llegó para su tick): se mantiene el agachado anterior y no se salta.
+ * - Al subir el retardo queda un tick sin input (faltante); al bajarlo, dos ticks del cliente se
+ *   aplican juntos y sus saltos se combinan.
+ */
+public class BufferInputs {
+
+    public static final int CAPACIDAD = 64;
+    private static final int MASCARA = CAPACIDAD - 1;
+
+    // Adaptación del retardo
+    public static final int RETARDO_MAXIMO = 12;
+    private static final float FACTOR_DESVIO = 2.5f;
+    private static final float PESO_MEDIA = 1f / 16f;
+    private static final float PESO_DESVIO = 1f / 8f;
+    private static final int PAQUETES_PARA_BAJAR = 120;
+
+    // Anillo indexado por tick del cliente & MASCARA; ticks[i] dice a qué tick corresponde el lugar
+    private final int[] ticks = new int[CAPACIDAD];
+    private final int[] bits = new int[CAPACIDAD];
+
+    private int ultimaSecuencia;
+    private int ultimosBitsAplicados;
+
+    // Ticks entre el input más nuevo y el mundo que el cliente estaba dibujando
+    private int retrasoVista;
+
+    // Próximo tick del cliente a aplicar (-1 hasta el primer paquete) y retardo actual en ticks
+    private int siguienteTickCliente;
+    private int retardo;
+    private int paquetesConMargen;
+
+    // Llegada: ticks de atraso de cada paquete respecto de su objetivo, media y desvío medio
+    private float llegadaMedia;
+    private float llegadaDesvio;
+
+    // Estadísticas; las que lee el reporte del servidor dedicado desde otro hilo son volatile
+    private long recibidos;
+    private long duplicados;
+    private long recuperados;
+    private volatile long perdidos;
+    private volatile long tardios;
+    private long adelantados;
+    private volatile long faltantes;
+    private long aplicados;
+    private long ajustes;
+
+    public BufferInputs() {
+        limpiar();
+    }
+
+    /**
+     * Incorpora los inputs nuevos de un paquete
+     * @param tickActual próximo tick que va a simular la sala
+     */
+    public void recibir(PaqueteInput paquete, int tickActual) {
+        int nuevos = ultimaSecuencia < 0 ? paquete.cantidad : paquete.secuencia - ultimaSecuencia;
+        if (nuevos <= 0) {
+            duplicados++;
+            return;
+        }
+        if (nuevos > paquete.cantidad) {
+            perdidos += nuevos - paquete.cantidad;
+            nuevos = paquete.cantidad;
+        }
+
+        medirLlegada(tickActual - paquete.tick);
+        if (siguienteTickCliente < 0) {
+            siguienteTickCliente = tickActual - retardo;
+        }
+
+        // Del más viejo al más nuevo, para que un input tardío no pise a uno posterior
+        for (int k = nuevos - 1; k >= 0; k--) {
+            if (k > 0) {
+                recuperados++;
+            }
+            guardar(paquete.tick - k, paquete.inputs[k]);
+        }
+        recibidos += nuevos;
+        ultimaSecuencia = paquete.secuencia;
+        retrasoVista = paquete.retrasoVista;
+    }
+
+    /**
+     * Actualiza media y desvío de la llegada y, con ellos, el retardo
+     * @param atraso ticks que pasaron entre el objetivo del paquete y su llegada (negativo si llegó antes)
+     */
+    private void medirLlegada(int atraso) {
+        if (ultimaSecuencia < 0) {
+            llegadaMedia = atraso;
+            llegadaDesvio = 0;
+        } else {
+            float error = atraso - llegadaMedia;
+            llegadaMedia += error * PESO_MEDIA;
+            llegadaDesvio += (Math.abs(error) - llegadaDesvio) * PESO_DESVIO;
+        }
+
+        int objetivo = (int) Math.ceil(llegadaMedia + FACTOR_DESVIO * llegadaDesvio);
+        objetivo = Math.max(0, Math.min(RETARDO_MAXIMO, objetivo));
+
+        if (objetivo > retardo) {
+            retardo = objetivo;
+            paquetesConMargen = 0;
+            ajustes++;
+        } else if (objetivo < retardo) {
+            if (++paquetesConMargen >= PAQUETES_PARA_BAJAR) {
+                retardo--;
+                paquetesConMargen = 0;
+                ajustes++;
+            }
+        } else {
+            paquetesConMargen = 0;
+        }
+    }
+
+    private void guardar(int tickCliente, int bitsInput) {
+        if (tickCliente < siguienteTickCliente) {
+            tardios++;
+            tickCliente = siguienteTickCliente;
+        } else if (tickCliente - siguienteTickCliente >= CAPACIDAD) {
+            adelantados++;
+            return;
+        }
+
+        int i = tickCliente & MASCARA;
+        if (ticks[i] == tickCliente) {
+            // Ya había un input para ese tick: el salto se conserva, el agachado es el del más nuevo
+            bits[i] = (bits[i] & PaqueteInput.SALTAR) | bitsInput;
+        } else {
+            ticks[i] = tickCliente;
+            bits[i] = bitsInput;
+        }
+    }
+
+    /**
+     * Saca el input a aplicar en el tick del servidor (o el de reemplazo si no llegó)
+     * Consume todos los ticks del cliente hasta tick - retardo, así ninguno se saltea
+     */
+    public int tomar(int tick) {
+        if (siguienteTickCliente < 0) {
+            return 0;
+        }
+
+        int hasta = tick - retardo;
+        if (hasta - siguienteTickCliente >= CAPACIDAD) {
+            // La sala estuvo detenida: lo que quedó en el anillo ya es viejo
+            siguienteTickCliente = hasta - CAPACIDAD + 1;
+        }
+        boolean encontrado = false;
+        int resultado = 0;
+        for (; siguienteTickCliente <= hasta; siguienteTickCliente++) {
+            int i = siguienteTickCliente & MASCARA;
+            if (ticks[i] == siguienteTickCliente) {
+                ticks[i] = -1;
+                resultado = (resultado & PaqueteInput.SALTAR) | bits[i];
+                encontrado = true;
+            }
+        }
+
+        if (!encontrado) {
+            faltantes++;
+            return ultimosBitsAplicados & PaqueteInput.AGACHAR;
+        }
+        aplicados++;
+        ultimosBitsAplicados = resultado;
+        return resultado;
+    }
+
+    /**
+     * Olvida los inputs, la secuencia y la adaptación, por ejemplo cuando el lugar cambia de cliente
+     */
+    public void limpiar() {
+        for (int i = 0; i < CAPACIDAD; i++) {
+            ticks[i] = -1;
+            bits[i] = 0;
+        }
+        ultimaSecuencia = -1;
+        ultimosBitsAplicados = 0;
+        retrasoVista = 0;
+        siguienteTickCliente = -1;
+        retardo = 0;
+        paquetesConMargen = 0;
+        llegadaMedia = 0;
+        llegadaDesvio = 0;
+    }
+
+    /**
+     * Indica si el cliente ya envió algún paquete de input binario
+     */
+    public boolean estaActivo() {
+        return ultimaSecuencia >= 0;
+    }
+
+    /**
+     * Resumen de una línea para logs
+     */
+    public String getResumen() {
+        return "retardo: " + retardo +
+                " | llegada: " + String.format("%.2f ± %.2f", llegadaMedia, llegadaDesvio) +
+                " | tardíos: " + tardios +
+                " | faltantes: " + faltantes +
+                " | perdidos: " + perdidos;
+    }
+
+    /**
+     * Último tick del cliente ya consumido por la simulación, o -1 si todavía no aplicó ninguno
+     * Viaja en cada snapshot para que el cliente sepa desde qué input repetir su predicción
+     */
+    public int getUltimoTickAplicado() {
+        return siguienteTickCliente < 0 ? -1 : siguienteTickCliente - 1;
+    }
+
+    /**
+     * Ticks hacia atrás del mundo que vio el cliente al generar el input que se está aplicando:
+     * lo que esperó en el buffer más lo que el cliente dibuja en el pasado
+     */
+    public int getRebobinado(int tick) {
+        if (siguienteTickCliente < 0) {
+            return 0;
+        }
+        return Math.max(0, tick - getUltimoTickAplicado()) + retrasoVista;
+    }
+
+    // Getters
+    public int getUltimaSecuencia() {
+        return ultimaSecuencia;
+    }
+
+    public int getRetrasoVista() {
+        return retrasoVista;
+    }
+
+    public int getRetardo() {
+        return retardo;
+    }
+
+    public float getLlegadaMedia() {
+        return llegadaMedia;
+    }
+
+    public float getLlegadaDesvio() {
+        return llegadaDesvio;
+    }
+
+    public long getRecibidos() {
+        return recibidos;
+    }
+
+    public long getDuplicados() {
+        return duplicados;
+    }
+
+    public long getRecuperados() {
+        return recuperados;
+    }
+
+    public long getPerdidos() {
+        return perdidos;
+    }
+
+    public long getTardios() {
+        return tardios;
+    }
+
+    public long getAdelantados() {
+        return adelantados;
+    }
+
+    public long getFaltantes() {
+        return faltantes;
+    }
+
+    public long getAplicados() {
+        return aplicados;
+    }
+
+    public long getAjustes() {
+        return ajustes;
+    }
+}
@@ -0,0 +1,143 @@
+package com.dinosauriojuego.servidor.network;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cola circular sin locks de un productor y un consumidor para datagramas
+ *
+ * Los lugares se reservan al construirla (un único buffer directo dividido en porciones), así que
+ * pasar un datagrama de un hilo al otro no reserva memoria. El productor escribe en el lugar que
+ * le da reservar() y lo entrega con publicar(); el consumidor lo lee con tomar() y lo devuelve con
+ * liberar(). Si la cola está llena el datagrama se descarta y se cuenta.
+ */
+public class ColaDatagramas {
+
+    private final int mascara;
+    private final ByteBuffer[] lugares;
+    private final SocketAddress[] direcciones;
+
+    // Índices crecientes; el lugar es índice & mascara
+    private final AtomicLong escritos = new AtomicLong();
+    private final AtomicLong leidos = new AtomicLong();
+
+    // Estadísticas (las escribe solo el productor)
+    private volatile int profundidadMaxima;
+    private volatile long descartados;
+
+    /**
+     * @param capacidad cantidad de lugares, se redondea a la potencia de dos siguiente
+     * @param tamanoLugar bytes máximos de cada datagrama
+     */
+    public ColaDatagramas(int capacidad, int tamanoLugar) {
+        int potencia = Integer.highestOneBit(Math.max(2, capacidad - 1)) << 1;
+        mascara = potencia - 1;
+        lugares = new ByteBuffer[potencia];
+        direcciones = new SocketAddress[potencia];
+
+        ByteBuffer memoria = ByteBuffer.allocateDirect(potencia * tamanoLugar);
+        for (int i = 0; i < potencia; i++) {
+            memoria.limit((i + 1) * tamanoLugar).position(i * tamanoLugar);
+            lugares[i] = memoria.slice();
+        }
+    }
+
+    // ===== Productor =====
+
+    /**
+     * Devuelve el próximo lugar libre, vacío y listo para escribir, o null si la cola está llena
+     */
+    public ByteBuffer reservar() {
+        long indice = escritos.get();
+        int profundidad = (int) (indice - leidos.get());
+        if (profundidad >= lugares.length) {
+            descartados++;
+            return null;
+        }
+        if (profundidad + 1 > profundidadMaxima) {
+            profundidadMaxima = profundidad + 1;
+        }
+
+        ByteBuffer lugar = lugares[(int) indice & mascara];
+        lugar.clear();
+        return lugar;
+    }
+
+    /**
+     * Entrega al consumidor el lugar reservado, con los bytes escritos hasta su position
+     */
+    public void publicar(SocketAddress direccion) {
+        long indice = escritos.get();
+        int i = (int) indice & mascara;
+        lugares[i].flip();
+        direcciones[i] = direccion;
+        escritos.lazySet(indice + 1);
+    }
+
+    /**
+     * Copia los bytes restantes de datos en un lugar nuevo y lo publica
+     * @return false si la cola estaba llena
+     */
+    public boolean ofrecer(ByteBuffer datos, SocketAddress direccion) {
+        ByteBuffer lugar = reservar();
+        if (lugar == null) {
+            return false;
+        }
+        lugar.put(datos);
+        publicar(direccion);
+        return true;
+    }
+
+    // ===== Consumidor =====
+
+    /**
+     * Devuelve el datagrama más viejo (position 0, limit en su longitud) o null si no hay
+     */
+    public ByteBuffer tomar() {
+        long indice = leidos.get();
+        if (indice == escritos.get()) {
+            return null;
+        }
+        return lugares[(int) indice & mascara];
+    }
+
+    /**
+     * Dirección de origen o destino del datagrama devuelto por tomar()
+     */
+    public SocketAddress getDireccion() {
+        return direcciones[(int) leidos.get() & mascara];
+    }
+
+    /**
+     * Devuelve al productor el lugar del datagrama devuelto por tomar()
+     */
+    public void liberar() {
+        leidos.lazySet(leidos.get() + 1);
+    }
+
+    // ===== Estadísticas =====
+
+    /**
+     * Datagramas esperando en la cola ahora mismo
+     */
+    public int getProfundidad() {
+        return (int) (escritos.get() - leidos.get());
+    }
+
+    public int getProfundidadMaxima() {
+        return profundidadMaxima;
+    }
+
+    public int getCapacidad() {
+        return lugares.length;
+    }
+
+    public long getDescartados() {
+        return descartados;
+    }
+
+    public long getTotal() {
+        return escritos.get();
+    }
+}
@@ -0,0 +1,222 @@
+package com.dinosauriojuego.servidor.network;
+
+import com.dinosauriojuego.servidor.logica.HistorialMundo;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.HashMap;
+
+/**
+ * Administra las salas del servidor y enruta a cada cliente por su id de sesión
+ * El id de sesión es indiceSala * jugadoresPorSala + lugar, así que resolverlo es O(1)
+ */
+public class GestorSalas {
+
+    private final HiloServidor servidor;
+    private final int jugadoresPorSala;
+    private final Sala[] salas;
+    // Lo lee también el reporte de estadísticas desde el hilo de libGDX: se escribe después de
+    // guardar la sala nueva en salas[], así quien lee la cantidad ya ve la sala
+    private volatile int salasCreadas = 0;
+
+    // Solo se consulta al conectarse, para que un reintento de "Conexion" reciba la misma sesión
+    private final HashMap<InetSocketAddress, Integer> sesionesPorDireccion = new HashMap<>();
+
+    // Primera sala que puede tener lugar libre
+    private int salaAbierta = 0;
+
+    public GestorSalas(HiloServidor servidor, int maxSalas) {
+        this.servidor = servidor;
+        this.jugadoresPorSala = servidor.getJugadoresPorSala();
+        this.salas = new Sala[maxSalas];
+
+        // La primera sala existe siempre, es la que muestra la pantalla del servidor al arrancar
+        this.salas[0] = new Sala(0, servidor);
+        this.salasCreadas = 1;
+    }
+
+    /**
+     * Asigna una sesión al cliente, ubicándolo en la primera sala con lugar
+     * @return el id de sesión, o -1 si el servidor está lleno
+     */
+    public int conectar(InetSocketAddress direccion) {
+        Integer existente = sesionesPorDireccion.get(direccion);
+        if (existente != null) {
+            return existente;
+        }
+
+        for (int i = salaAbierta; i < salas.length; i++) {
+            if (salas[i] == null) {
+                salas[i] = new Sala(i, servidor);
+                if (i + 1 > salasCreadas) {
+                    salasCreadas = i + 1;
+                }
+            }
+
+            int lugar = salas[i].agregarCliente(direccion);
+            if (lugar != -1) {
+                salaAbierta = i;
+                int sesion = i * jugadoresPorSala + lugar;
+                sesionesPorDireccion.put(direccion, sesion);
+                return sesion;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Libera la sesión; su sala vuelve a recibir jugadores cuando se vacía
+     */
+    public void desconectar(int sesion) {
+        Sala sala = getSala(sesion);
+        int lugar = getLugar(sesion);
+        if (sala == null) {
+            return;
+        }
+
+        // Por clave: recorrer los valores sería O(sesiones abiertas) en cada desconexión
+        InetSocketAddress direccion = sala.getDireccion(lugar);
+        sala.quitarCliente(lugar);
+        if (direccion != null) {
+            sesionesPorDireccion.remove(direccion);
+        }
+        if (sala.aceptaJugadores() && sala.getId() < salaAbierta) {
+            salaAbierta = sala.getId();
+        }
+    }
+
+    /**
+     * Completa con bots las salas que esperaron lo configurado a llenarse y las hace arrancar
+     * Quien se conectó pero nunca avisó que estaba listo pierde su lugar y se le avisa, para que vuelva
+     * a conectarse en vez de seguir mandando "Listo" a una sesión que ya no existe. Se llama una vez por tick
+     */
+    public void completarConBots() {
+        for (int i = 0; i < salasCreadas; i++) {
+            Sala sala = salas[i];
+            if (!sala.esperaVencida()) {
+                continue;
+            }
+            for (int lugar = 0; lugar < jugadoresPorSala; lugar++) {
+                if (sala.isOcupado(lugar) && !sala.isListo(lugar)) {
+                    int sesion = i * jugadoresPorSala + lugar;
+                    servidor.enviarMensaje(HiloServidor.MENSAJE_EXPULSADO, sala.getDireccion(lugar));
+                    desconectar(sesion);
+                    System.out.println("⏱️ Sesión " + sesion + " nunca estuvo lista, su lugar es para un bot");
+                }
+            }
+            sala.completarConBots();
+        }
+    }
+
+    /**
+     * Devuelve la sala de una sesión si la dirección coincide con la registrada
+     */
+    public Sala resolver(int sesion, SocketAddress direccion) {
+        Sala sala = getSala(sesion);
+        if (sala == null || !sala.esCliente(getLugar(sesion), direccion)) {
+            return null;
+        }
+        return sala;
+    }
+
+    public int getLugar(int sesion) {
+        return sesion % jugadoresPorSala;
+    }
+
+    private Sala getSala(int sesion) {
+        if (sesion < 0) {
+            return null;
+        }
+        int indice = sesion / jugadoresPorSala;
+        return indice < salasCreadas ? salas[indice] : null;
+    }
+
+    public Sala[] getSalas() {
+        return salas;
+    }
+
+    public int getSalasCreadas() {
+        return salasCreadas;
+    }
+
+    /**
+     * Cantidad de salas con una partida en curso
+     */
+    public int getCantidadSalasActivas() {
+        int count = 0;
+        int creadas = salasCreadas;
+        for (int i = 0; i < creadas; i++) {
+            if (salas[i].isJuegoIniciado()) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Cantidad de jugadores conectados en todas las salas
+     */
+    public int getCantidadJugadores() {
+        int count = 0;
+        int creadas = salasCreadas;
+        for (int i = 0; i < creadas; i++) {
+            count += salas[i].getCantidadClientes();
+        }
+        return count;
+    }
+
+    /**
+     * Cantidad de bots jugando en todas las salas
+     */
+    public int getCantidadBots() {
+        int count = 0;
+        int creadas = salasCreadas;
+        for (int i = 0; i < creadas; i++) {
+            count += salas[i].getCantidadBots();
+        }
+        return count;
+    }
+
+    /**
+     * Resumen de una línea de los buffers de jitter de todos los jugadores con inputs binarios
+     */
+    public String getResumenInputs() {
+        int jugadores = 0;
+        int sumaRetardo = 0;
+        int maxRetardo = 0;
+        int sumaRebobinado = 0;
+        long tardios = 0;
+        long faltantes = 0;
+        long perdidos = 0;
+        int creadas = salasCreadas;
+        for (int i = 0; i < creadas; i++) {
+            for (int lugar = 0; lugar < jugadoresPorSala; lugar++) {
+                BufferInputs buffer = salas[i].getBufferInputs(lugar);
+                if (!salas[i].isOcupado(lugar) || !buffer.estaActivo()) {
+                    continue;
+                }
+                jugadores++;
+                sumaRetardo += buffer.getRetardo();
+                maxRetardo = Math.max(maxRetardo, buffer.getRetardo());
+                sumaRebobinado += Math.min(salas[i].getRebobinado(lugar), HistorialMundo.REBOBINADO_MAXIMO);
+                tardios += buffer.getTardios();
+                faltantes += buffer.getFaltantes();
+                perdidos += buffer.getPerdidos();
+            }
+        }
+        return "retardo medio: " + (jugadores == 0 ? 0 : sumaRetardo / (float) jugadores) +
+                " | retardo máx: " + maxRetardo +
+                " | rebobinado medio: " + (jugadores == 0 ? 0 : sumaRebobinado / (float) jugadores) +
+                " | tardíos: " + tardios +
+                " | faltantes: " + faltantes +
+                " | perdidos: " + perdidos;
+    }
+
+    /**
+     * Sala que se muestra en la pantalla del servidor: la primera con jugadores
+     */
+    public Sala getSalaObservada() {
+        int creadas = salasCreadas;
+        for (int i = 0; i < creadas; i++) {
+            if (salas[i].getCantidadClientes() > 0) return salas[i];
+        }
+        return salas[0];
+    }
+}
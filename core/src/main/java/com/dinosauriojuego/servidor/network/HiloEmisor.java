@@ -0,0 +1,77 @@
+package com.dinosauriojuego.servidor.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Última etapa del servidor: envía los datagramas ya codificados que deja la simulación en la cola de salida
+ * El hilo de simulación lo despierta con despertar() al terminar de encolar un tick
+ */
+public class HiloEmisor extends Thread {
+
+    private final DatagramChannel canal;
+    private final ColaDatagramas salida;
+
+    private volatile boolean running = true;
+    private volatile long errores;
+
+    // Tráfico enviado, para medir el ancho de banda
+    private volatile long datagramasEnviados;
+    private volatile long bytesEnviados;
+
+    public HiloEmisor(DatagramChannel canal, ColaDatagramas salida) {
+        super("HiloEmisor");
+        setDaemon(true);
+        this.canal = canal;
+        this.salida = salida;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            ByteBuffer datos;
+            while ((datos = salida.tomar()) != null) {
+                try {
+                    int enviados = canal.send(datos, salida.getDireccion());
+                    datagramasEnviados++;
+                    bytesEnviados += enviados;
+                } catch (ClosedChannelException e) {
+                    return;
+                } catch (IOException e) {
+                    errores++;
+                }
+                salida.liberar();
+            }
+
+            // Sin nada para enviar, estacionarse hasta el próximo tick
+            LockSupport.park(this);
+        }
+    }
+
+    /**
+     * Avisa que hay datagramas nuevos en la cola de salida
+     */
+    public void despertar() {
+        LockSupport.unpark(this);
+    }
+
+    public void cerrar() {
+        running = false;
+        LockSupport.unpark(this);
+    }
+
+    public long getErrores() {
+        return errores;
+    }
+
+    public long getDatagramasEnviados() {
+        return datagramasEnviados;
+    }
+
+    public long getBytesEnviados() {
+        return bytesEnviados;
+    }
+}
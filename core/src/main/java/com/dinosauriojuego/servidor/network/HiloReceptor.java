@@ -0,0 +1,60 @@
+package com.dinosauriojuego.servidor.network;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Primera etapa del servidor: vacía el canal UDP tan rápido como llegan los datagramas
+ * y los deja en la cola de entrada para que el hilo de simulación los procese al inicio del tick
+ */
+public class HiloReceptor extends Thread {
+
+    private final DatagramChannel canal;
+    private final ColaDatagramas entrada;
+
+    // Si la cola está llena, el datagrama se lee acá y se descarta para no frenar al socket
+    private final ByteBuffer descarte;
+
+    private volatile boolean running = true;
+
+    public HiloReceptor(DatagramChannel canal, ColaDatagramas entrada, int tamanoMaximo) {
+        super("HiloReceptor");
+        setDaemon(true);
+        this.canal = canal;
+        this.entrada = entrada;
+        this.descarte = ByteBuffer.allocateDirect(tamanoMaximo);
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                ByteBuffer lugar = entrada.reservar();
+                if (lugar == null) {
+                    descarte.clear();
+                    canal.receive(descarte);
+                    continue;
+                }
+
+                // Bloquea hasta que llegue un datagrama
+                SocketAddress origen = canal.receive(lugar);
+                if (origen != null) {
+                    entrada.publicar(origen);
+                }
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("❌ Error al recibir: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    public void cerrar() {
+        running = false;
+    }
+}
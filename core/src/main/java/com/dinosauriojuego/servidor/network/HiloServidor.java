@@ -1,340 +1,419 @@
 package com.dinosauriojuego.servidor.network;
 
+import com.dinosauriojuego.network.CodificadorInput;
+import com.dinosauriojuego.network.CodificadorSnapshot;
+import com.dinosauriojuego.network.PaqueteInput;
+import com.dinosauriojuego.servidor.ConfiguracionServidor;
+import com.dinosauriojuego.servidor.PlanificadorTicks;
 import com.dinosauriojuego.servidor.logica.GameSimulacion;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.InetAddress;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
 import java.nio.charset.StandardCharsets;
 
 /**
- * Hilo del servidor para comunicación UDP con los clientes
- * Maneja la red, recibe inputs y envía snapshots
+ * Hilo de simulación del servidor, etapa central de un pipeline de tres hilos:
+ * {@link HiloReceptor} vacía el canal UDP en la cola de entrada, este hilo consume todos los mensajes
+ * encolados al inicio de cada tick, simula las salas y deja los snapshots en la cola de salida
+ * (a cada cliente solo en los ticks que le tocan según su tasa de snapshots),
+ * y {@link HiloEmisor} los envía. Cada cola expone su profundidad para ver dónde se acumula trabajo.
+ *
+ * Protocolo de texto cliente -> servidor (sesion = id devuelto en "OK;sesion;jugador;ticksPorSegundo",
+ * donde jugador es el índice del dinosaurio propio dentro de los snapshots y ticksPorSegundo la tasa
+ * de simulación, con la que el cliente numera sus inputs y predice):
+ * "Conexion", "Listo;sesion", "RESET;sesion", "ACK;sesion;tick", "INPUT;sesion;saltar;agachar",
+ * "TASA;sesion;snapshotsPorSegundo", "MODO;sesion;modo" (0 snapshots, 1 lockstep, 2 mundo por semilla), "Salir;sesion"
+ * Los inputs también pueden llegar en paquetes binarios con secuencia y tick (ver {@link CodificadorInput}).
+ *
+ * En régimen el camino de red no reserva memoria: los datagramas viajan en lugares preasignados
+ * de las colas, los mensajes se interpretan byte a byte sobre esos lugares y las respuestas fijas
+ * están precodificadas.
  */
 public class HiloServidor extends Thread {
 
-    private static final int PUERTO = 8999;
-    private static final int MAX_CLIENTES = 2;
-    private static final int TICK_MS = 16; // 60 FPS
-
-    private DatagramSocket socket;
+    private static final int TAMANO_ENTRADA = 256;
+    private static final int CAPACIDAD_ENTRADA = 4096;
+    private static final int CAPACIDAD_SALIDA_MAXIMA = 1 << 16;
+    private static final int TAMANO_BUFFER_SOCKET = 1 << 20;
+    private static final int LECTURA_INVALIDA = Integer.MIN_VALUE;
+
+    // Mensajes precodificados
+    static final byte[] MENSAJE_EMPIEZA = ascii("Empieza");
+    private static final byte[] MENSAJE_FULL = ascii("Full");
+    static final byte[] MENSAJE_EXPULSADO = ascii("Expulsado");
+    private static final byte[] PREFIJO_OK = ascii("OK;");
+    private static final byte[] COMANDO_CONEXION = ascii("Conexion");
+    private static final byte[] COMANDO_LISTO = ascii("Listo;");
+    private static final byte[] COMANDO_RESET = ascii("RESET;");
+    private static final byte[] COMANDO_ACK = ascii("ACK;");
+    private static final byte[] COMANDO_INPUT = ascii("INPUT;");
+    private static final byte[] COMANDO_TASA = ascii("TASA;");
+    private static final byte[] COMANDO_MODO = ascii("MODO;");
+    private static final byte[] COMANDO_SALIR = ascii("Salir;");
+
+    private DatagramChannel canal;
     private volatile boolean running = true;
 
-    // Información de clientes
-    private final InetAddress[] clientesIP = new InetAddress[MAX_CLIENTES];
-    private final int[] clientesPuerto = new int[MAX_CLIENTES];
-    private final boolean[] clientesListos = new boolean[MAX_CLIENTES];
-    private final boolean[] clientesResetReady = new boolean[MAX_CLIENTES];
+    // Etapas de red y las colas que las unen con la simulación
+    private final ColaDatagramas entrada;
+    private final ColaDatagramas salida;
+    private final HiloReceptor receptor;
+    private final HiloEmisor emisor;
+
+    // Paso fijo de la simulación
+    private final PlanificadorTicks planificador;
+    private final int ticksPorSegundo;
+
+    // Snapshots por segundo que recibe un cliente hasta que pida otra tasa
+    private final int snapshotsPorSegundo;
+
+    // Lugares de cada sala (y dinosaurios de cada partida)
+    private final int jugadoresPorSala;
+
+    // Bots que completan las salas: espera en ticks (0 = nunca), dificultad y presupuesto de búsqueda
+    private final int esperaBots;
+    private final int dificultadBots;
+    private final int presupuestoBots;
+
+    // Simulación paralela de las salas
+    private final MotorTicks motor;
+
+    // Salas y sesiones
+    private final GestorSalas gestorSalas;
 
-    private int cantidadClientes = 0;
-    private boolean juegoIniciado = false;
+    // Buffer donde las salas codifican sus snapshots antes de encolarlos
+    private final ByteBuffer bufferSalida;
 
-    // Inputs de los jugadores (acumulados entre frames)
-    private boolean j1Saltar = false;
-    private boolean j1Agachar = false;
-    private boolean j2Saltar = false;
-    private boolean j2Agachar = false;
+    // Paquete de input reutilizado al decodificar
+    private final PaqueteInput paqueteInput = new PaqueteInput();
 
-    // Simulación del juego
-    private final GameSimulacion simulacion = new GameSimulacion();
-    private int tick = 0;
+    // Mensaje que se está interpretando (un lugar de la cola de entrada) y su cursor
+    private ByteBuffer mensaje;
+    private int posLectura;
+    private int finLectura;
 
     public HiloServidor() {
+        this(new ConfiguracionServidor());
+    }
+
+    public HiloServidor(ConfiguracionServidor config) {
+        super("HiloServidor");
+        planificador = new PlanificadorTicks(config.ticksPorSegundo, config.maxTicksPonerseAlDia);
+        ticksPorSegundo = config.ticksPorSegundo;
+        snapshotsPorSegundo = Math.min(config.snapshotsPorSegundo, config.ticksPorSegundo);
+        jugadoresPorSala = config.jugadoresPorSala;
+        esperaBots = config.esperaBots * config.ticksPorSegundo;
+        dificultadBots = config.dificultadBots;
+        presupuestoBots = config.presupuestoBots;
+        motor = new MotorTicks(config.hilosSimulacion, jugadoresPorSala, config.jugadoresPorTarea);
+        gestorSalas = new GestorSalas(this, config.maxSalas);
+
+        // La salida tiene que alcanzar para un tick completo: un snapshot por jugador de cada sala,
+        // con lugares del tamaño que puede ocupar un snapshot de esta cantidad de jugadores
+        long jugadores = (long) config.maxSalas * jugadoresPorSala;
+        int tamanoSnapshot = CodificadorSnapshot.tamanoMaximo(jugadoresPorSala);
+        entrada = new ColaDatagramas(CAPACIDAD_ENTRADA, TAMANO_ENTRADA);
+        salida = new ColaDatagramas((int) Math.min(jugadores * 2, CAPACIDAD_SALIDA_MAXIMA), tamanoSnapshot);
+        bufferSalida = ByteBuffer.allocateDirect(tamanoSnapshot);
+
         try {
-            socket = new DatagramSocket(PUERTO);
-            socket.setSoTimeout(5); // Timeout corto para el loop
-            System.out.println("🟢 Servidor UDP iniciado en puerto " + PUERTO);
+            canal = DatagramChannel.open();
+            canal.bind(new InetSocketAddress(config.puerto));
+            // Margen en el kernel para ráfagas mientras el receptor no alcanza a vaciar el canal
+            canal.setOption(StandardSocketOptions.SO_RCVBUF, TAMANO_BUFFER_SOCKET);
+            canal.setOption(StandardSocketOptions.SO_SNDBUF, TAMANO_BUFFER_SOCKET);
+            System.out.println("🟢 Servidor UDP iniciado en puerto " + config.puerto);
         } catch (Exception e) {
             throw new RuntimeException("Error al crear servidor: " + e.getMessage(), e);
         }
+        receptor = new HiloReceptor(canal, entrada, TAMANO_ENTRADA);
+        emisor = new HiloEmisor(canal, salida);
     }
 
     @Override
     public void run() {
-        long ultimoTick = System.currentTimeMillis();
+        receptor.start();
+        emisor.start();
+        planificador.iniciar();
 
         while (running) {
-            // Recibir mensajes de clientes
-            recibirMensajes();
-
-            // Simular juego si está iniciado
-            if (juegoIniciado) {
-                long ahora = System.currentTimeMillis();
-                if (ahora - ultimoTick >= TICK_MS) {
-                    // Simular un frame
-                    if (!simulacion.terminado) {
-                        simulacion.actualizar(
-                                TICK_MS / 1000f,
-                                j1Saltar, j1Agachar,
-                                j2Saltar, j2Agachar
-                        );
-                    }
-
-                    // Reset los inputs "just pressed"
-                    j1Saltar = false;
-                    j2Saltar = false;
-
-                    // Verificar reset
-                    if (simulacion.terminado && contarResetReady() == 2) {
-                        reiniciarJuego();
-                    }
-
-                    tick++;
-                    enviarSnapshot();
-
-                    ultimoTick = ahora;
+            // Simular los ticks vencidos en cada sala (más de uno si hay que ponerse al día)
+            int ticks = planificador.ticksPendientes();
+            for (int t = 0; t < ticks; t++) {
+                // Todo lo que llegó desde el tick anterior (conexiones, inputs, acks) entra en este
+                procesarEntrada();
+                gestorSalas.completarConBots();
+
+                Sala[] salas = gestorSalas.getSalas();
+                int creadas = gestorSalas.getSalasCreadas();
+                motor.simular(salas, creadas, planificador.getDeltaTiempo());
+
+                // Fase de snapshots, en este hilo y con todas las salas ya simuladas;
+                // cada sala decide a cuáles de sus clientes les toca uno en este tick
+                for (int i = 0; i < creadas; i++) {
+                    salas[i].enviarSnapshot(bufferSalida);
                 }
+                emisor.despertar();
             }
+            planificador.marcarFinTrabajo();
+
+            // La red la atienden los otros hilos; este se duerme estacionado hasta el próximo tick
+            planificador.esperarSiguienteTick();
         }
 
+        motor.cerrar();
+        receptor.cerrar();
+        emisor.cerrar();
         cerrarSocket();
         System.out.println("🔴 Servidor detenido");
     }
 
     /**
-     * Recibe mensajes de los clientes
+     * Consume todos los mensajes encolados por el receptor
      */
-    private void recibirMensajes() {
-        try {
-            byte[] buffer = new byte[512];
-            DatagramPacket paquete = new DatagramPacket(buffer, buffer.length);
-            socket.receive(paquete);
-
-            String mensaje = new String(paquete.getData(), 0, paquete.getLength(),
-                    StandardCharsets.UTF_8).trim();
-            procesarMensaje(mensaje, paquete.getAddress(), paquete.getPort());
-
-        } catch (Exception ignored) {
-            // Timeout es normal, no hacer nada
+    private void procesarEntrada() {
+        while ((mensaje = entrada.tomar()) != null) {
+            procesarMensaje(entrada.getDireccion());
+            entrada.liberar();
         }
     }
 
     /**
-     * Procesa un mensaje recibido
+     * Interpreta en el lugar el mensaje actual y lo enruta a la sala de su sesión
      */
-    private void procesarMensaje(String mensaje, InetAddress ip, int puerto) {
-        int indiceCliente = buscarIndiceCliente(ip, puerto);
-
-        // Mensaje de conexión
-        if (mensaje.equals("Conexion")) {
-            manejarConexion(ip, puerto);
+    private void procesarMensaje(SocketAddress origen) {
+        if (CodificadorInput.esInput(mensaje)) {
+            procesarPaqueteInput(origen);
             return;
         }
 
-        // Si el cliente no está registrado, ignorar
-        if (indiceCliente == -1) {
-            return;
+        posLectura = 0;
+        finLectura = mensaje.limit();
+        // Ignorar espacios y saltos de línea finales
+        while (finLectura > 0 && mensaje.get(finLectura - 1) <= ' ') {
+            finLectura--;
         }
-
-        // Mensaje de listo
-        if (mensaje.equals("Listo")) {
-            clientesListos[indiceCliente] = true;
-            System.out.println("✅ Cliente " + (indiceCliente + 1) + " listo");
-
-            if (clientesListos[0] && clientesListos[1] && !juegoIniciado) {
-                iniciarJuego();
-            }
+        if (finLectura == 0) {
             return;
         }
 
-        // Mensaje de reset
-        if (mensaje.equals("RESET")) {
-            if (simulacion.terminado) {
-                clientesResetReady[indiceCliente] = true;
-                System.out.println("🔄 Cliente " + (indiceCliente + 1) +
-                        " listo para reset (" + contarResetReady() + "/2)");
-            }
+        // Mensaje de conexión
+        if (finLectura == COMANDO_CONEXION.length && coincide(COMANDO_CONEXION)) {
+            manejarConexion(origen);
             return;
         }
 
-        // Mensaje de input
-        if (mensaje.startsWith("INPUT;")) {
-            procesarInput(mensaje, indiceCliente);
+        byte[] comando = leerComando();
+        if (comando == null) {
+            return;
         }
-    }
 
-    /**
-     * Procesa los inputs de un jugador
-     */
-    private void procesarInput(String mensaje, int indiceCliente) {
-        if (simulacion.terminado) {
+        int sesion = leerEntero();
+        if (sesion == LECTURA_INVALIDA) {
             return;
         }
 
-        String[] partes = mensaje.split(";");
-        if (partes.length < 3) {
+        // Si la sesión no existe o no es de esta dirección, ignorar
+        Sala sala = gestorSalas.resolver(sesion, origen);
+        if (sala == null) {
             return;
         }
-
-        boolean saltar = partes[1].equals("1");
-        boolean agachar = partes[2].equals("1");
-
-        if (indiceCliente == 0) {
-            j1Saltar = j1Saltar || saltar; // OR para no perder inputs
-            j1Agachar = agachar;
-        } else {
-            j2Saltar = j2Saltar || saltar;
-            j2Agachar = agachar;
+        int lugar = gestorSalas.getLugar(sesion);
+
+        if (comando == COMANDO_LISTO) {
+            sala.marcarListo(lugar);
+        } else if (comando == COMANDO_RESET) {
+            sala.marcarReset(lugar);
+        } else if (comando == COMANDO_ACK) {
+            int tick = leerEntero();
+            if (tick != LECTURA_INVALIDA) {
+                sala.registrarAck(lugar, tick);
+            }
+        } else if (comando == COMANDO_INPUT) {
+            int saltar = leerEntero();
+            int agachar = leerEntero();
+            if (saltar != LECTURA_INVALIDA && agachar != LECTURA_INVALIDA) {
+                sala.registrarInput(lugar, saltar == 1, agachar == 1);
+            }
+        } else if (comando == COMANDO_TASA) {
+            int tasa = leerEntero();
+            if (tasa != LECTURA_INVALIDA) {
+                sala.setSnapshotsPorSegundo(lugar, tasa);
+            }
+        } else if (comando == COMANDO_MODO) {
+            int modo = leerEntero();
+            if (modo >= CodificadorSnapshot.MODO_SNAPSHOTS && modo <= CodificadorSnapshot.MODO_SEMILLA) {
+                sala.setModo(lugar, modo);
+            }
+        } else if (comando == COMANDO_SALIR) {
+            gestorSalas.desconectar(sesion);
+            System.out.println("👋 Sesión " + sesion + " desconectada");
         }
     }
 
     /**
-     * Maneja una nueva conexión
+     * Decodifica un paquete de inputs binario y lo entrega a la sala de su sesión
      */
-    private void manejarConexion(InetAddress ip, int puerto) {
-        // Verificar si ya está conectado
-        for (int i = 0; i < cantidadClientes; i++) {
-            if (clientesIP[i].equals(ip) && clientesPuerto[i] == puerto) {
-                enviarMensaje("OK", ip, puerto);
-                return;
-            }
-        }
-
-        // Verificar si hay espacio
-        if (cantidadClientes >= MAX_CLIENTES) {
-            enviarMensaje("Full", ip, puerto);
+    private void procesarPaqueteInput(SocketAddress origen) {
+        if (!CodificadorInput.decodificar(mensaje, paqueteInput)) {
             return;
         }
-
-        // Registrar nuevo cliente
-        clientesIP[cantidadClientes] = ip;
-        clientesPuerto[cantidadClientes] = puerto;
-        clientesListos[cantidadClientes] = false;
-        clientesResetReady[cantidadClientes] = false;
-
-        enviarMensaje("OK", ip, puerto);
-        cantidadClientes++;
-
-        System.out.println("✅ Cliente conectado: " + ip.getHostAddress() + ":" + puerto +
-                " (total: " + cantidadClientes + "/2)");
+        Sala sala = gestorSalas.resolver(paqueteInput.sesion, origen);
+        if (sala != null) {
+            sala.registrarInputs(gestorSalas.getLugar(paqueteInput.sesion), paqueteInput);
+        }
     }
 
     /**
-     * Inicia el juego cuando ambos clientes están listos
+     * Reconoce el comando al inicio del mensaje (incluido su ';') y deja el cursor después de él
+     * @return la constante del comando, o null si no es ninguno conocido
      */
-    private void iniciarJuego() {
-        juegoIniciado = true;
-        simulacion.reset();
-        tick = 0;
-        clientesResetReady[0] = false;
-        clientesResetReady[1] = false;
+    private byte[] leerComando() {
+        byte[] comando;
+        switch (mensaje.get(0)) {
+            case 'L': comando = COMANDO_LISTO; break;
+            case 'R': comando = COMANDO_RESET; break;
+            case 'A': comando = COMANDO_ACK; break;
+            case 'I': comando = COMANDO_INPUT; break;
+            case 'S': comando = COMANDO_SALIR; break;
+            case 'T': comando = COMANDO_TASA; break;
+            case 'M': comando = COMANDO_MODO; break;
+            default: return null;
+        }
+        if (!coincide(comando)) {
+            return null;
+        }
+        posLectura = comando.length;
+        return comando;
+    }
 
-        broadcast("Empieza");
-        System.out.println("🎮 ¡JUEGO INICIADO!");
+    private boolean coincide(byte[] palabra) {
+        if (finLectura < palabra.length) {
+            return false;
+        }
+        for (int i = 0; i < palabra.length; i++) {
+            if (mensaje.get(i) != palabra[i]) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
-     * Reinicia el juego
+     * Lee un entero decimal hasta el próximo ';' o el fin del mensaje y avanza el cursor
+     * @return el número, o LECTURA_INVALIDA si el campo falta o no es numérico
      */
-    private void reiniciarJuego() {
-        System.out.println("🔄 Reiniciando juego...");
+    private int leerEntero() {
+        if (posLectura >= finLectura) {
+            return LECTURA_INVALIDA;
+        }
 
-        simulacion.reset();
-        tick = 0;
-        clientesResetReady[0] = false;
-        clientesResetReady[1] = false;
+        boolean negativo = mensaje.get(posLectura) == '-';
+        if (negativo) {
+            posLectura++;
+        }
+
+        long valor = 0;
+        int digitos = 0;
+        while (posLectura < finLectura) {
+            byte b = mensaje.get(posLectura++);
+            if (b == ';') {
+                break;
+            }
+            if (b < '0' || b > '9' || digitos == 10) {
+                return LECTURA_INVALIDA;
+            }
+            valor = valor * 10 + (b - '0');
+            digitos++;
+        }
 
-        j1Saltar = j2Saltar = false;
-        j1Agachar = j2Agachar = false;
+        if (digitos == 0) {
+            return LECTURA_INVALIDA;
+        }
+        valor = negativo ? -valor : valor;
+        return valor <= Integer.MIN_VALUE || valor > Integer.MAX_VALUE ? LECTURA_INVALIDA : (int) valor;
     }
 
     /**
-     * Envía un snapshot del estado del juego a todos los clientes
+     * Maneja una nueva conexión asignándole sesión y sala
      */
-    private void enviarSnapshot() {
-        StringBuilder sb = new StringBuilder("SNAP;");
-
-        // Información general
-        sb.append(tick).append(";")
-                .append(simulacion.puntuacion).append(";")
-                .append(simulacion.velocidad).append(";")
-                .append(juegoIniciado ? 1 : 0).append(";")
-                .append(simulacion.terminado ? 1 : 0).append(";")
-                .append(seguro(simulacion.mensajeFin)).append(";")
-                .append(contarResetReady()).append(";");
-
-        // Jugador 1
-        sb.append(simulacion.jugador1.y).append(";")
-                .append(simulacion.jugador1.enSuelo ? 1 : 0).append(";")
-                .append(simulacion.jugador1.agachado ? 1 : 0).append(";")
-                .append(simulacion.jugador1.vivo ? 1 : 0).append(";");
-
-        // Jugador 2
-        sb.append(simulacion.jugador2.y).append(";")
-                .append(simulacion.jugador2.enSuelo ? 1 : 0).append(";")
-                .append(simulacion.jugador2.agachado ? 1 : 0).append(";")
-                .append(simulacion.jugador2.vivo ? 1 : 0).append(";");
-
-        // Obstáculos
-        sb.append(simulacion.obstaculos.size()).append(";");
-        for (GameSimulacion.EstadoObstaculo obs : simulacion.obstaculos) {
-            sb.append(obs.tipo).append(";")
-                    .append(obs.variante).append(";")
-                    .append(obs.x).append(";")
-                    .append(obs.y).append(";");
+    private void manejarConexion(SocketAddress origen) {
+        if (!(origen instanceof InetSocketAddress)) {
+            return;
         }
+        InetSocketAddress direccion = (InetSocketAddress) origen;
 
-        broadcast(sb.toString());
-    }
+        int sesion = gestorSalas.conectar(direccion);
+        if (sesion == -1) {
+            enviarMensaje(MENSAJE_FULL, direccion);
+            return;
+        }
 
-    /**
-     * Envía un mensaje a un cliente específico
-     */
-    private void enviarMensaje(String mensaje, InetAddress ip, int puerto) {
-        try {
-            byte[] datos = mensaje.getBytes(StandardCharsets.UTF_8);
-            DatagramPacket paquete = new DatagramPacket(datos, datos.length, ip, puerto);
-            socket.send(paquete);
-        } catch (Exception e) {
-            System.err.println("❌ Error al enviar mensaje: " + e.getMessage());
+        // "OK;sesion;jugador;ticksPorSegundo" escrito directamente en un lugar de la cola de salida
+        ByteBuffer respuesta = salida.reservar();
+        if (respuesta != null) {
+            respuesta.put(PREFIJO_OK);
+            escribirEntero(respuesta, sesion);
+            respuesta.put((byte) ';');
+            escribirEntero(respuesta, gestorSalas.getLugar(sesion));
+            respuesta.put((byte) ';');
+            escribirEntero(respuesta, ticksPorSegundo);
+            salida.publicar(direccion);
         }
+
+        System.out.println("✅ Cliente conectado: " + direccion.getAddress().getHostAddress() + ":" +
+                direccion.getPort() + " (sesión " + sesion + ", salas: " + gestorSalas.getSalasCreadas() +
+                ", jugadores: " + gestorSalas.getCantidadJugadores() + ")");
     }
 
     /**
-     * Envía un mensaje a todos los clientes conectados
+     * Escribe un entero no negativo en decimal ASCII
      */
-    private void broadcast(String mensaje) {
-        for (int i = 0; i < cantidadClientes; i++) {
-            enviarMensaje(mensaje, clientesIP[i], clientesPuerto[i]);
+    private static void escribirEntero(ByteBuffer buffer, int valor) {
+        int divisor = 1;
+        while (valor / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + valor / divisor % 10));
         }
     }
 
     /**
-     * Busca el índice de un cliente por IP y puerto
+     * Encola para un cliente los bytes entre position y limit del buffer
+     * Si la cola de salida está llena el datagrama se descarta (queda contado en sus estadísticas)
      */
-    private int buscarIndiceCliente(InetAddress ip, int puerto) {
-        for (int i = 0; i < cantidadClientes; i++) {
-            if (clientesIP[i].equals(ip) && clientesPuerto[i] == puerto) {
-                return i;
-            }
-        }
-        return -1;
+    void enviarDatos(ByteBuffer datos, SocketAddress destino) {
+        salida.ofrecer(datos, destino);
     }
 
     /**
-     * Cuenta cuántos clientes están listos para reset
+     * Encola un mensaje precodificado para un cliente específico
      */
-    private int contarResetReady() {
-        int count = 0;
-        for (int i = 0; i < MAX_CLIENTES; i++) {
-            if (clientesResetReady[i]) count++;
+    void enviarMensaje(byte[] datos, SocketAddress destino) {
+        ByteBuffer lugar = salida.reservar();
+        if (lugar != null) {
+            lugar.put(datos);
+            salida.publicar(destino);
         }
-        return count;
     }
 
-    /**
-     * Hace seguro un string para el protocolo (evita ; que rompe el split)
-     */
-    private String seguro(String s) {
-        if (s == null) return "";
-        return s.replace(";", ",");
+    private static byte[] ascii(String texto) {
+        return texto.getBytes(StandardCharsets.US_ASCII);
     }
 
     /**
-     * Cierra el socket
+     * Cierra el canal, lo que también desbloquea al receptor
      */
     private void cerrarSocket() {
-        if (socket != null && !socket.isClosed()) {
-            socket.close();
+        try {
+            if (canal != null) {
+                canal.close();
+            }
+        } catch (IOException ignored) {
         }
     }
 
@@ -347,20 +426,83 @@ public class HiloServidor extends Thread {
         interrupt();
     }
 
-    // Getters para la UI
+    // Getters para la UI (muestran la sala observada)
     public GameSimulacion getSimulacion() {
-        return simulacion;
+        return gestorSalas.getSalaObservada().getSimulacion();
     }
 
     public int getCantidadClientes() {
-        return cantidadClientes;
+        return gestorSalas.getSalaObservada().getCantidadClientes();
     }
 
     public boolean isJuegoIniciado() {
-        return juegoIniciado;
+        return gestorSalas.getSalaObservada().isJuegoIniciado();
     }
 
     public int getTick() {
-        return tick;
+        return gestorSalas.getSalaObservada().getTick();
+    }
+
+    public int getJugadoresPorSala() {
+        return jugadoresPorSala;
+    }
+
+    public int getTicksPorSegundo() {
+        return ticksPorSegundo;
+    }
+
+    public int getSnapshotsPorSegundo() {
+        return snapshotsPorSegundo;
+    }
+
+    /**
+     * Ticks que una sala espera a llenarse antes de completarla con bots (0 = nunca)
+     */
+    public int getEsperaBots() {
+        return esperaBots;
+    }
+
+    public int getDificultadBots() {
+        return dificultadBots;
+    }
+
+    public int getPresupuestoBots() {
+        return presupuestoBots;
+    }
+
+    public long getBytesEnviados() {
+        return emisor.getBytesEnviados();
+    }
+
+    public GestorSalas getGestorSalas() {
+        return gestorSalas;
+    }
+
+    public PlanificadorTicks getPlanificador() {
+        return planificador;
+    }
+
+    public MotorTicks getMotor() {
+        return motor;
+    }
+
+    public ColaDatagramas getColaEntrada() {
+        return entrada;
+    }
+
+    public ColaDatagramas getColaSalida() {
+        return salida;
+    }
+
+    /**
+     * Resumen de una línea de las colas del pipeline: profundidad actual, máxima y descartados
+     */
+    public String getResumenColas() {
+        return "entrada: " + entrada.getProfundidad() + "/" + entrada.getProfundidadMaxima() +
+                " (desc. " + entrada.getDescartados() + ")" +
+                " | salida: " + salida.getProfundidad() + "/" + salida.getProfundidadMaxima() +
+                " (desc. " + salida.getDescartados() + ", errores " + emisor.getErrores() + ")" +
+                " | enviados: " + emisor.getDatagramasEnviados() + " datagramas, " +
+                emisor.getBytesEnviados() / 1024 + " KB";
     }
-}
\ No newline at end of file
+}
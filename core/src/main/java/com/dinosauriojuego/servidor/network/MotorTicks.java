@@ -0,0 +1,108 @@
+package com.dinosauriojuego.servidor.network;
+
+import com.dinosauriojuego.servidor.logica.GameSimulacion;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Reparte la simulación de las salas entre los núcleos con un pool fork-join (work-stealing)
+ * Cada tick divide el rango de salas hasta bloques de SALAS_POR_TAREA y espera a que todas
+ * terminen antes de devolver el control, así la fase de snapshots ve un estado consistente
+ *
+ * Si las salas son grandes, cada una además reparte sus jugadores en el mismo pool
+ * (ver {@link GameSimulacion#setParalelismo}); en ese caso el tick pasa siempre por el pool.
+ */
+public class MotorTicks {
+
+    // Por debajo de esta cantidad de salas no vale la pena repartir
+    private static final int SALAS_POR_TAREA = 16;
+
+    private final ForkJoinPool pool;
+
+    // Jugadores por tarea dentro de una sala, y si las salas de este servidor llegan a partirse
+    private final int jugadoresPorTarea;
+    private final boolean repartirJugadores;
+
+    // Estadísticas del último tick
+    private volatile long ultimaSimulacionNanos;
+
+    public MotorTicks(int hilos, int jugadoresPorSala, int jugadoresPorTarea) {
+        this.pool = new ForkJoinPool(hilos);
+        this.jugadoresPorTarea = jugadoresPorTarea;
+        this.repartirJugadores = hilos > 1 && jugadoresPorSala > jugadoresPorTarea;
+    }
+
+    /**
+     * Prepara la simulación de una sala para repartir sus jugadores, si corresponde
+     */
+    public void configurar(GameSimulacion simulacion) {
+        if (repartirJugadores) {
+            simulacion.setParalelismo(pool, jugadoresPorTarea);
+        }
+    }
+
+    /**
+     * Simula un tick de las primeras cantidad salas y vuelve cuando terminaron todas
+     */
+    public void simular(Sala[] salas, int cantidad, float deltaTime) {
+        long inicio = System.nanoTime();
+        if (cantidad <= SALAS_POR_TAREA && !repartirJugadores) {
+            for (int i = 0; i < cantidad; i++) {
+                salas[i].simular(deltaTime);
+            }
+        } else {
+            pool.invoke(new TareaSalas(salas, 0, cantidad, deltaTime));
+        }
+        ultimaSimulacionNanos = System.nanoTime() - inicio;
+    }
+
+    /**
+     * Detiene los hilos del pool
+     */
+    public void cerrar() {
+        pool.shutdown();
+    }
+
+    public int getHilos() {
+        return pool.getParallelism();
+    }
+
+    public long getUltimaSimulacionMicros() {
+        return ultimaSimulacionNanos / 1000;
+    }
+
+    public long getRobos() {
+        return pool.getStealCount();
+    }
+
+    /**
+     * Simula un rango de salas, partiéndolo en dos mientras sea grande
+     */
+    private static class TareaSalas extends RecursiveAction {
+        private final Sala[] salas;
+        private final int desde;
+        private final int hasta;
+        private final float deltaTime;
+
+        TareaSalas(Sala[] salas, int desde, int hasta, float deltaTime) {
+            this.salas = salas;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.deltaTime = deltaTime;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde <= SALAS_POR_TAREA) {
+                for (int i = desde; i < hasta; i++) {
+                    salas[i].simular(deltaTime);
+                }
+                return;
+            }
+
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new TareaSalas(salas, desde, medio, deltaTime),
+                    new TareaSalas(salas, medio, hasta, deltaTime));
+        }
+    }
+}
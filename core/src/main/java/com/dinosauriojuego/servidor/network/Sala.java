@@ -0,0 +1,550 @@
+package com.dinosauriojuego.servidor.network;
+
+import com.badlogic.gdx.math.RandomXS128;
+import com.dinosauriojuego.network.CodificadorLockstep;
+import com.dinosauriojuego.network.CodificadorSnapshot;
+import com.dinosauriojuego.network.EstadoSnapshot;
+import com.dinosauriojuego.network.HistorialInputs;
+import com.dinosauriojuego.network.HistorialSnapshots;
+import com.dinosauriojuego.network.PaqueteInput;
+import com.dinosauriojuego.servidor.logica.GameSimulacion;
+import com.dinosauriojuego.servidor.logica.JugadorBot;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * Una partida dentro del servidor: su simulación, sus lugares de cliente y el estado de listo/reset
+ * Todas las salas comparten el socket de {@link HiloServidor}
+ *
+ * La cantidad de lugares la fija la configuración del servidor; el lugar de cada cliente es
+ * también el índice de su dinosaurio en la simulación y en los snapshots.
+ *
+ * Cada cliente recibe snapshots o, si lo pidió antes de empezar ("MODO;sesion;1"), solo los inputs
+ * que aplicó la simulación en cada tick (ver {@link CodificadorLockstep}) y rehace la partida por su
+ * cuenta a partir de la semilla. Con "MODO;sesion;2" recibe snapshots sin obstáculos y los genera
+ * él con la semilla de la partida. La simulación del servidor sigue siendo la autoritativa en todos
+ * los casos; un cliente lockstep que se atrasa más de lo que guarda el historial de inputs, o que
+ * detecta un hash distinto y lo avisa, vuelve a recibir snapshots.
+ *
+ * Cada partida, también las revanchas, arranca con una semilla nueva.
+ *
+ * Si alguien está listo y la sala no se llena en el tiempo configurado, los lugares libres se completan
+ * con bots ({@link JugadorBot}) y la partida arranca. Los bots deciden su input dentro del tick de la
+ * sala, como si fuera el de un cliente, así que los clientes lockstep también los ven; no cuentan para
+ * las revanchas y se van cuando se va el último cliente.
+ */
+public class Sala {
+
+    private final int id;
+    private final HiloServidor servidor;
+    private final int jugadoresPorSala;
+
+    // Lugares de cliente
+    private final InetSocketAddress[] clientesDireccion;
+    private final boolean[] ocupados;
+    private final boolean[] clientesListos;
+    private final boolean[] clientesResetReady;
+    private final int[] ultimoTickConfirmado;
+    private int cantidadClientes = 0;
+
+    // Inputs del protocolo de texto (acumulados entre ticks, se aplican en el tick en curso)
+    private final boolean[] saltar;
+    private final boolean[] agachar;
+
+    // Inputs binarios con secuencia, ordenados por el tick al que apuntan
+    private final BufferInputs[] buffersInput;
+    private final boolean[] agacharTick;
+
+    // Ticks que se rebobina el mundo al juzgar la colisión de cada jugador (compensación de latencia)
+    private final int[] rebobinado;
+
+    // Tasa de snapshots de cada cliente; se envía uno cuando su acumulador llega a ticksPorSegundo,
+    // así tasas que no dividen a la de simulación (60 / 25) mantienen su promedio exacto
+    private final int ticksPorSegundo;
+    private final int[] snapshotsPorSegundo;
+    private final int[] acumuladorSnapshots;
+    private final boolean[] tocaSnapshot;
+
+    // Simulación de la partida
+    private final GameSimulacion simulacion;
+    private boolean juegoIniciado = false;
+    private int tick = 0;
+
+    // Estados normalizados ya enviados, base común de los deltas de todos los clientes
+    private final HistorialSnapshots historial;
+
+    // Modo de recepción de cada cliente (CodificadorSnapshot.MODO_*), los inputs aplicados por tick
+    // para los lockstep y el generador de las semillas de cada partida
+    private final int[] modo;
+    // Tick del último cambio de modo de cada cliente: las confirmaciones hasta ahí son del modo anterior
+    private final int[] tickCambioModo;
+    private int cantidadLockstep = 0;
+    private final HistorialInputs historialInputs;
+    private final RandomXS128 semillas = new RandomXS128();
+
+    // Bot de cada lugar sin cliente (null si no hay) y ticks que lleva la sala esperando a llenarse
+    private final JugadorBot[] bots;
+    private int cantidadBots = 0;
+    private int ticksEsperando = 0;
+
+    public Sala(int id, HiloServidor servidor) {
+        this.id = id;
+        this.servidor = servidor;
+        this.ticksPorSegundo = servidor.getTicksPorSegundo();
+
+        int n = servidor.getJugadoresPorSala();
+        this.jugadoresPorSala = n;
+        clientesDireccion = new InetSocketAddress[n];
+        ocupados = new boolean[n];
+        clientesListos = new boolean[n];
+        clientesResetReady = new boolean[n];
+        ultimoTickConfirmado = new int[n];
+        saltar = new boolean[n];
+        agachar = new boolean[n];
+        buffersInput = new BufferInputs[n];
+        agacharTick = new boolean[n];
+        rebobinado = new int[n];
+        snapshotsPorSegundo = new int[n];
+        acumuladorSnapshots = new int[n];
+        tocaSnapshot = new boolean[n];
+        simulacion = new GameSimulacion(n);
+        servidor.getMotor().configurar(simulacion);
+        historial = new HistorialSnapshots(n);
+        modo = new int[n];
+        tickCambioModo = new int[n];
+        historialInputs = new HistorialInputs(n, ticksPorSegundo);
+        bots = new JugadorBot[n];
+
+        for (int i = 0; i < jugadoresPorSala; i++) {
+            ultimoTickConfirmado[i] = -1;
+            tickCambioModo[i] = -1;
+            buffersInput[i] = new BufferInputs();
+        }
+    }
+
+    /**
+     * Ocupa el primer lugar libre
+     * @return el lugar asignado, o -1 si la sala no acepta más jugadores
+     */
+    public int agregarCliente(InetSocketAddress direccion) {
+        if (!aceptaJugadores()) {
+            return -1;
+        }
+
+        for (int i = 0; i < jugadoresPorSala; i++) {
+            if (!ocupados[i] && bots[i] == null) {
+                ocupados[i] = true;
+                clientesDireccion[i] = direccion;
+                clientesListos[i] = false;
+                clientesResetReady[i] = false;
+                ultimoTickConfirmado[i] = -1;
+                saltar[i] = false;
+                agachar[i] = false;
+                buffersInput[i].limpiar();
+                modo[i] = CodificadorSnapshot.MODO_SNAPSHOTS;
+                tickCambioModo[i] = -1;
+                snapshotsPorSegundo[i] = servidor.getSnapshotsPorSegundo();
+                // El primero sale en el próximo tick
+                acumuladorSnapshots[i] = ticksPorSegundo;
+                cantidadClientes++;
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Libera un lugar; si la sala queda vacía vuelve a estar disponible
+     */
+    public void quitarCliente(int lugar) {
+        if (!ocupados[lugar]) {
+            return;
+        }
+
+        ocupados[lugar] = false;
+        clientesDireccion[lugar] = null;
+        cantidadClientes--;
+        if (modo[lugar] == CodificadorSnapshot.MODO_LOCKSTEP) {
+            cantidadLockstep--;
+        }
+        modo[lugar] = CodificadorSnapshot.MODO_SNAPSHOTS;
+
+        if (cantidadClientes == 0) {
+            juegoIniciado = false;
+            simulacion.reset();
+            historial.limpiar();
+            quitarBots();
+        }
+    }
+
+    /**
+     * Cuenta un tick de espera; se llama una vez por tick, fuera de la fase de simulación
+     * @return true si la sala tiene a alguien listo, no arrancó y ya esperó lo configurado para los bots
+     */
+    public boolean esperaVencida() {
+        int espera = servidor.getEsperaBots();
+        if (espera == 0 || juegoIniciado || contarListos() == 0) {
+            ticksEsperando = 0;
+            return false;
+        }
+        return ++ticksEsperando >= espera;
+    }
+
+    /**
+     * Pone un bot en cada lugar libre y arranca la partida
+     * Los clientes que no están listos tienen que haberse quitado antes (ver {@link GestorSalas#completarConBots})
+     */
+    public void completarConBots() {
+        for (int i = 0; i < jugadoresPorSala; i++) {
+            if (!ocupados[i] && bots[i] == null) {
+                bots[i] = new JugadorBot(servidor.getDificultadBots(), servidor.getPresupuestoBots(), semillas.nextLong());
+                cantidadBots++;
+            }
+        }
+        ticksEsperando = 0;
+        System.out.println("🤖 Sala " + id + ": " + cantidadBots + " bot(s) de dificultad " +
+                servidor.getDificultadBots() + " completan la partida");
+        iniciarJuego();
+    }
+
+    private void quitarBots() {
+        for (int i = 0; i < jugadoresPorSala; i++) {
+            bots[i] = null;
+        }
+        cantidadBots = 0;
+    }
+
+    /**
+     * Indica si la dirección es la registrada en ese lugar
+     */
+    public boolean esCliente(int lugar, SocketAddress direccion) {
+        return ocupados[lugar] && clientesDireccion[lugar].equals(direccion);
+    }
+
+    /**
+     * Dirección del cliente de ese lugar, o null si está libre
+     */
+    public InetSocketAddress getDireccion(int lugar) {
+        return clientesDireccion[lugar];
+    }
+
+    public boolean aceptaJugadores() {
+        return !juegoIniciado && cantidadClientes < jugadoresPorSala;
+    }
+
+    /**
+     * El cliente avisa que está listo; la partida arranca cuando están todos
+     */
+    public void marcarListo(int lugar) {
+        clientesListos[lugar] = true;
+        System.out.println("✅ Sala " + id + ": cliente " + (lugar + 1) + " listo");
+
+        if (!juegoIniciado && cantidadClientes == jugadoresPorSala && todosListos()) {
+            iniciarJuego();
+        }
+    }
+
+    /**
+     * El cliente pide jugar otra vez tras el fin de la partida
+     */
+    public void marcarReset(int lugar) {
+        if (simulacion.terminado) {
+            clientesResetReady[lugar] = true;
+            System.out.println("🔄 Sala " + id + ": cliente " + (lugar + 1) +
+                    " listo para reset (" + contarResetReady() + "/" + cantidadClientes + ")");
+        }
+    }
+
+    /**
+     * Registra el input de un jugador para el próximo tick
+     */
+    public void registrarInput(int lugar, boolean saltar, boolean agachar) {
+        if (simulacion.terminado) {
+            return;
+        }
+        this.saltar[lugar] = this.saltar[lugar] || saltar; // OR para no perder inputs
+        this.agachar[lugar] = agachar;
+    }
+
+    /**
+     * Registra un paquete de inputs con secuencia en el buffer de jitter del jugador
+     */
+    public void registrarInputs(int lugar, PaqueteInput paquete) {
+        registrarAck(lugar, paquete.ackSnapshot);
+        if (juegoIniciado) {
+            buffersInput[lugar].recibir(paquete, tick);
+        }
+    }
+
+    /**
+     * Registra el tick más nuevo que el cliente decodificó, base de sus próximos deltas
+     * Se ignoran los ticks de antes de su último cambio de modo: los decodificó en el modo anterior
+     * y un delta contra ellos lo rechazaría
+     */
+    public void registrarAck(int lugar, int tickConfirmado) {
+        if (tickConfirmado > ultimoTickConfirmado[lugar] && tickConfirmado > tickCambioModo[lugar]
+                && tickConfirmado <= tick) {
+            ultimoTickConfirmado[lugar] = tickConfirmado;
+        }
+    }
+
+    /**
+     * Cambia cuántos snapshots por segundo recibe el cliente; se limita a la tasa de simulación
+     */
+    public void setSnapshotsPorSegundo(int lugar, int tasa) {
+        tasa = Math.max(1, Math.min(tasa, ticksPorSegundo));
+        if (tasa != snapshotsPorSegundo[lugar]) {
+            snapshotsPorSegundo[lugar] = tasa;
+            System.out.println("📶 Sala " + id + ": cliente " + (lugar + 1) + " recibe " + tasa + " snapshots/s");
+        }
+    }
+
+    /**
+     * Cambia el modo de recepción del cliente (CodificadorSnapshot.MODO_*)
+     * El lockstep solo se acepta antes de empezar: el cliente tiene que ver la partida desde su primer
+     * tick. El mundo por semilla se puede pedir en cualquier momento, el primer snapshot lleva la semilla
+     */
+    public void setModo(int lugar, int nuevo) {
+        if (nuevo == modo[lugar] || (nuevo == CodificadorSnapshot.MODO_LOCKSTEP && juegoIniciado)) {
+            return;
+        }
+        if (modo[lugar] == CodificadorSnapshot.MODO_LOCKSTEP) cantidadLockstep--;
+        if (nuevo == CodificadorSnapshot.MODO_LOCKSTEP) cantidadLockstep++;
+        modo[lugar] = nuevo;
+        // Sus confirmaciones eran de otro modo: lo primero que reciba va completo, y las que siga
+        // mandando del modo anterior no cuentan. Todo lo que se le envió hasta acá es de ticks <= tick
+        ultimoTickConfirmado[lugar] = -1;
+        tickCambioModo[lugar] = tick;
+
+        String prefijo = " Sala " + id + ": cliente " + (lugar + 1);
+        if (nuevo == CodificadorSnapshot.MODO_LOCKSTEP) {
+            System.out.println("🔗" + prefijo + " recibe solo inputs (lockstep)");
+        } else if (nuevo == CodificadorSnapshot.MODO_SEMILLA) {
+            System.out.println("🌱" + prefijo + " recibe snapshots sin obstáculos (mundo por semilla)");
+        } else {
+            System.out.println("📦" + prefijo + " recibe snapshots");
+        }
+    }
+
+    /**
+     * Avanza la partida un tick
+     * Solo toca el estado de esta sala, así que distintas salas pueden simularse en paralelo
+     */
+    public void simular(float deltaTime) {
+        if (!juegoIniciado) {
+            return;
+        }
+
+        // Input de cada jugador para este tick: el del buffer de jitter más el del protocolo de texto
+        for (int i = 0; i < jugadoresPorSala; i++) {
+            int bits = buffersInput[i].tomar(tick);
+            saltar[i] |= (bits & PaqueteInput.SALTAR) != 0;
+            agacharTick[i] = agachar[i] || (bits & PaqueteInput.AGACHAR) != 0;
+            rebobinado[i] = buffersInput[i].getRebobinado(tick);
+            if (bots[i] != null) {
+                bots[i].decidir(simulacion, i, deltaTime, saltar, agacharTick);
+            }
+        }
+
+        if (!simulacion.terminado) {
+            simulacion.actualizar(deltaTime, saltar, agacharTick, rebobinado);
+        }
+        // Tal como los vio la simulación, para los clientes que la rehacen
+        historialInputs.guardar(tick, saltar, agacharTick, rebobinado);
+
+        // Reset los inputs "just pressed"
+        for (int i = 0; i < jugadoresPorSala; i++) {
+            saltar[i] = false;
+        }
+
+        // Verificar reset
+        if (simulacion.terminado && contarResetReady() == cantidadClientes) {
+            reiniciarJuego();
+            historialInputs.marcarReinicio(tick, simulacion.getSemilla());
+        }
+
+        if (cantidadLockstep > 0 && HistorialInputs.tocaHash(tick)) {
+            historialInputs.guardarHash(tick, simulacion.calcularHash());
+        }
+
+        tick++;
+    }
+
+    private void iniciarJuego() {
+        juegoIniciado = true;
+
+        // Semilla nueva por partida: con ella y los inputs de cada tick se puede rehacer la simulación
+        long semilla = semillas.nextLong();
+        simulacion.reset(semilla);
+        limpiarInputs();
+        historialInputs.iniciar(tick, semilla);
+
+        broadcast(HiloServidor.MENSAJE_EMPIEZA);
+        System.out.println("🎮 Sala " + id + ": ¡JUEGO INICIADO!");
+    }
+
+    private void reiniciarJuego() {
+        simulacion.reset(semillas.nextLong());
+        limpiarInputs();
+    }
+
+    private void limpiarInputs() {
+        for (int i = 0; i < jugadoresPorSala; i++) {
+            clientesResetReady[i] = false;
+            saltar[i] = false;
+            agachar[i] = false;
+        }
+    }
+
+    /**
+     * Envía a cada cliente al que le toca según su tasa un delta contra su última base confirmada,
+     * o un completo si no tiene
+     * Se llama desde el hilo de red una vez por tick, después de que terminó la fase de simulación
+     */
+    public void enviarSnapshot(ByteBuffer buffer) {
+        if (!juegoIniciado) {
+            return;
+        }
+
+        boolean alguno = false;
+        for (int i = 0; i < jugadoresPorSala; i++) {
+            tocaSnapshot[i] = false;
+            if (!ocupados[i]) {
+                continue;
+            }
+            acumuladorSnapshots[i] += snapshotsPorSegundo[i];
+            if (acumuladorSnapshots[i] >= ticksPorSegundo) {
+                acumuladorSnapshots[i] -= ticksPorSegundo;
+                if (modo[i] == CodificadorSnapshot.MODO_LOCKSTEP) {
+                    enviarInputs(i, buffer);
+                } else {
+                    tocaSnapshot[i] = true;
+                    alguno = true;
+                }
+            }
+        }
+        // Sin envíos en este tick tampoco hace falta capturar el estado
+        if (!alguno) {
+            return;
+        }
+
+        EstadoSnapshot actual = historial.reservar(tick);
+        actual.capturar(simulacion, tick, juegoIniciado, contarResetReady());
+        actual.ticksPorSegundo = ticksPorSegundo;
+        CodificadorSnapshot.normalizar(actual);
+        historial.confirmar(actual);
+
+        for (int i = 0; i < jugadoresPorSala; i++) {
+            if (!tocaSnapshot[i]) {
+                continue;
+            }
+            EstadoSnapshot base = historial.buscar(ultimoTickConfirmado[i]);
+
+            buffer.clear();
+            CodificadorSnapshot.codificar(actual, base, buffersInput[i].getUltimoTickAplicado(),
+                    modo[i] == CodificadorSnapshot.MODO_SEMILLA, buffer);
+            buffer.flip();
+            servidor.enviarDatos(buffer, clientesDireccion[i]);
+        }
+    }
+
+    /**
+     * Envía al cliente lockstep los inputs aplicados desde el último tick que confirmó
+     */
+    private void enviarInputs(int lugar, ByteBuffer buffer) {
+        int desde = Math.max(ultimoTickConfirmado[lugar] + 1, historialInputs.getTickInicio());
+        if (desde < tick && !historialInputs.tieneTick(desde)) {
+            // Quedó más atrás de lo que guarda el historial: ya no puede rehacer la partida
+            System.out.println("⚠️ Sala " + id + ": cliente " + (lugar + 1) + " perdió el hilo de los inputs");
+            setModo(lugar, CodificadorSnapshot.MODO_SNAPSHOTS);
+            return;
+        }
+
+        buffer.clear();
+        CodificadorLockstep.codificar(historialInputs, desde, tick, contarResetReady(),
+                buffersInput[lugar].getUltimoTickAplicado(), buffer);
+        buffer.flip();
+        servidor.enviarDatos(buffer, clientesDireccion[lugar]);
+    }
+
+    private void broadcast(byte[] mensaje) {
+        for (int i = 0; i < jugadoresPorSala; i++) {
+            if (ocupados[i]) {
+                servidor.enviarMensaje(mensaje, clientesDireccion[i]);
+            }
+        }
+    }
+
+    private int contarListos() {
+        int count = 0;
+        for (int i = 0; i < jugadoresPorSala; i++) {
+            if (ocupados[i] && clientesListos[i]) count++;
+        }
+        return count;
+    }
+
+    private boolean todosListos() {
+        for (int i = 0; i < jugadoresPorSala; i++) {
+            if (ocupados[i] && !clientesListos[i]) return false;
+        }
+        return true;
+    }
+
+    private int contarResetReady() {
+        int count = 0;
+        for (int i = 0; i < jugadoresPorSala; i++) {
+            if (ocupados[i] && clientesResetReady[i]) count++;
+        }
+        return count;
+    }
+
+    // Getters
+    public int getId() {
+        return id;
+    }
+
+    public GameSimulacion getSimulacion() {
+        return simulacion;
+    }
+
+    public int getJugadoresPorSala() {
+        return jugadoresPorSala;
+    }
+
+    public int getCantidadClientes() {
+        return cantidadClientes;
+    }
+
+    public boolean isJuegoIniciado() {
+        return juegoIniciado;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public boolean isOcupado(int lugar) {
+        return ocupados[lugar];
+    }
+
+    public boolean isListo(int lugar) {
+        return ocupados[lugar] && clientesListos[lugar];
+    }
+
+    public int getCantidadBots() {
+        return cantidadBots;
+    }
+
+    public BufferInputs getBufferInputs(int lugar) {
+        return buffersInput[lugar];
+    }
+
+    public int getSnapshotsPorSegundo(int lugar) {
+        return snapshotsPorSegundo[lugar];
+    }
+
+    public int getRebobinado(int lugar) {
+        return rebobinado[lugar];
+    }
+}
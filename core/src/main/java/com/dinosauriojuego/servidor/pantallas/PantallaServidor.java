@@ -15,7 +15,10 @@ import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.utils.viewport.FitViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
 import com.dinosauriojuego.servidor.DinosaurioServerMain;
+import com.dinosauriojuego.servidor.logica.AlmacenObstaculos;
+import com.dinosauriojuego.servidor.logica.EstadoJugadores;
 import com.dinosauriojuego.servidor.logica.GameSimulacion;
+import com.dinosauriojuego.servidor.network.GestorSalas;
 import com.dinosauriojuego.servidor.network.HiloServidor;
 
 /**
@@ -136,14 +139,18 @@ public class PantallaServidor implements Screen {
     @Override
     public void render(float delta) {
         GameSimulacion sim = servidor.getSimulacion();
+        GestorSalas gestor = servidor.getGestorSalas();
 
         // Actualizar labels
-        infoLabel.setText("SERVIDOR - Clientes: " + servidor.getCantidadClientes() + "/2");
+        infoLabel.setText("SERVIDOR - Salas activas: " + gestor.getCantidadSalasActivas() +
+                " | Jugadores: " + gestor.getCantidadJugadores() +
+                " | Sala observada: " + servidor.getCantidadClientes() + "/2");
 
         if (!servidor.isJuegoIniciado()) {
             estadoLabel.setText("Esperando jugadores...");
         } else {
-            estadoLabel.setText("Tick: " + servidor.getTick());
+            estadoLabel.setText("Tick: " + servidor.getTick() + " | " +
+                    servidor.getPlanificador().getResumenEstadisticas());
         }
 
         puntuacionLabel.setText("Puntuación: " + sim.puntuacion);
@@ -206,33 +213,45 @@ public class PantallaServidor implements Screen {
         }
 
         // Obstáculos
-        for (GameSimulacion.EstadoObstaculo obs : sim.obstaculos) {
-            if (obs.tipo == 0 && cactusTexture != null) {
-                batch.draw(cactusTexture, obs.x, obs.y, obs.ancho, obs.alto);
-            } else if (obs.tipo == 1) {
+        AlmacenObstaculos obstaculos = sim.obstaculos;
+        for (int k = 0; k < obstaculos.getCantidad(); k++) {
+            int i = obstaculos.lugar(k);
+            int tipo = obstaculos.tipo[i];
+            float x = obstaculos.x[i];
+            float y = obstaculos.y[i];
+            float ancho = obstaculos.ancho[i];
+            float alto = obstaculos.alto[i];
+
+            if (tipo == 0 && cactusTexture != null) {
+                batch.draw(cactusTexture, x, y, ancho, alto);
+            } else if (tipo == 1) {
                 Texture pajaroTex = (servidor.getTick() % 12 < 6) ? pajaro1Texture : pajaro2Texture;
                 if (pajaroTex != null) {
-                    batch.draw(pajaroTex, obs.x, obs.y, obs.ancho, obs.alto);
+                    batch.draw(pajaroTex, x, y, ancho, alto);
                 }
             }
 
             // Fallback si no hay texturas
-            if ((obs.tipo == 0 && cactusTexture == null) ||
-                    (obs.tipo == 1 && pajaro1Texture == null)) {
+            if ((tipo == 0 && cactusTexture == null) ||
+                    (tipo == 1 && pajaro1Texture == null)) {
                 batch.end();
                 shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
-                shapeRenderer.setColor(obs.tipo == 0 ? Color.RED : Color.BLUE);
-                shapeRenderer.rect(obs.x, obs.y, obs.ancho, obs.alto);
+                shapeRenderer.setColor(tipo == 0 ? Color.RED : Color.BLUE);
+                shapeRenderer.rect(x, y, ancho, alto);
                 shapeRenderer.end();
                 batch.begin();
             }
         }
 
-        // Dinosaurio 1 (Cyan)
-        dibujarDinosaurio(sim.jugador1, 50, Color.CYAN, dinoCyan1, dinoCyan2);
-
-        // Dinosaurio 2 (Orange) - un poco más a la izquierda para ver ambos
-        dibujarDinosaurio(sim.jugador2, 150, Color.ORANGE, dinoOrange1, dinoOrange2);
+        // Dinosaurio 1 (Cyan) y el resto (Orange) un poco más a la derecha para ver todos
+        EstadoJugadores jugadores = sim.jugadores;
+        for (int i = jugadores.cantidad - 1; i >= 0; i--) {
+            if (i == 0) {
+                dibujarDinosaurio(jugadores, i, 50, Color.CYAN, dinoCyan1, dinoCyan2);
+            } else {
+                dibujarDinosaurio(jugadores, i, 150, Color.ORANGE, dinoOrange1, dinoOrange2);
+            }
+        }
 
         batch.end();
 
@@ -241,9 +260,9 @@ public class PantallaServidor implements Screen {
         stage.draw();
     }
 
-    private void dibujarDinosaurio(GameSimulacion.EstadoDino dino, float x, Color color,
+    private void dibujarDinosaurio(EstadoJugadores dinos, int i, float x, Color color,
                                    Texture tex1, Texture tex2) {
-        if (!dino.vivo) {
+        if (!dinos.vivo[i]) {
             // Dinosaurio muerto - dibujar en gris
             batch.setColor(0.5f, 0.5f, 0.5f, 1);
         } else {
@@ -251,20 +270,20 @@ public class PantallaServidor implements Screen {
         }
 
         Texture textura;
-        if (dino.agachado) {
-            textura = (dino.spriteActual == 0) ? dinoAgachado1 : dinoAgachado2;
+        if (dinos.agachado[i]) {
+            textura = (dinos.sprite[i] == 0) ? dinoAgachado1 : dinoAgachado2;
         } else {
-            textura = (dino.spriteActual == 0) ? tex1 : tex2;
+            textura = (dinos.sprite[i] == 0) ? tex1 : tex2;
         }
 
         if (textura != null) {
-            batch.draw(textura, x, dino.y, 50, dino.getAlto());
+            batch.draw(textura, x, dinos.y[i], 50, dinos.getAlto(i));
         } else {
             // Fallback
             batch.end();
             shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
             shapeRenderer.setColor(color);
-            shapeRenderer.rect(x, dino.y, 50, dino.getAlto());
+            shapeRenderer.rect(x, dinos.y[i], 50, dinos.getAlto(i));
             shapeRenderer.end();
             batch.begin();
         }
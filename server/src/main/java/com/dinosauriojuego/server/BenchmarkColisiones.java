@@ -0,0 +1,174 @@
+package com.dinosauriojuego.server;
+
+import com.dinosauriojuego.servidor.logica.AlmacenObstaculos;
+import com.dinosauriojuego.servidor.logica.HistorialMundo;
+
+import java.util.Random;
+
+/**
+ * Mide el costo de resolver las colisiones de un tick según jugadores y obstáculos en pantalla
+ *
+ * Compara tres formas de juzgar a cada dinosaurio contra el mismo mundo guardado:
+ * todos contra todos, recorrido por dinosaurio con corte en x, y el barrido del historial.
+ *
+ * Uso: gradlew server:benchmarkColisiones
+ */
+public class BenchmarkColisiones {
+
+    // Igual que en la simulación
+    private static final float CARRIL_X = 50f;
+    private static final float ANCHO_DINO = 50f;
+    private static final float ALTO_DINO = 60f;
+    private static final float ANCHO_PANTALLA = 1200f;
+    private static final float DESPLAZAMIENTO = 260f / 60f; // Un tick a la velocidad inicial
+
+    private static final int[] JUGADORES = {2, 8, 16, 32, 64};
+    private static final int[] OBSTACULOS = {2, 4, 8, AlmacenObstaculos.CAPACIDAD};
+    private static final int MUNDOS = 64; // Mundos distintos por medición, para no medir siempre el mismo caso
+    private static final int REPETICIONES = 20000;
+    private static final int INTENTOS = 5;
+    private static final int CALENTAMIENTOS = 2;
+
+    // Evita que el JIT descarte los resultados
+    private static int sumidero;
+
+    public static void main(String[] args) {
+        // Calentamiento con la tabla completa, así el JIT ya vio todos los casos antes de medir
+        for (int obstaculos : OBSTACULOS) {
+            for (int jugadores : JUGADORES) {
+                medir(jugadores, obstaculos, false);
+            }
+        }
+
+        System.out.println("📊 Colisiones por tick (ns), guardar el tick incluido");
+        System.out.printf("%9s %10s %16s %16s %10s %10s%n",
+                "jugadores", "obstaculos", "todos c/ todos", "corte en x", "barrido", "candidatos");
+        for (int obstaculos : OBSTACULOS) {
+            for (int jugadores : JUGADORES) {
+                // Si el caso nuevo hace recompilar algo, que pase antes de la medición que se muestra
+                for (int i = 0; i < CALENTAMIENTOS; i++) {
+                    medir(jugadores, obstaculos, false);
+                }
+                medir(jugadores, obstaculos, true);
+            }
+        }
+        System.out.println("resultado: " + sumidero);
+    }
+
+    private static void medir(int jugadores, int cantidadObstaculos, boolean mostrar) {
+        Random random = new Random(jugadores * 31L + cantidadObstaculos);
+        HistorialMundo historial = new HistorialMundo(jugadores, CARRIL_X, ANCHO_DINO);
+        AlmacenObstaculos[] mundos = crearMundos(random, cantidadObstaculos);
+        float[][] alturas = crearAlturas(random, jugadores);
+
+        // Cada variante se mide varias veces y se queda con la mejor, para no contar pausas del sistema
+        long todos = Long.MAX_VALUE, corte = Long.MAX_VALUE, barrido = Long.MAX_VALUE;
+        for (int intento = 0; intento < INTENTOS; intento++) {
+            todos = Math.min(todos, medirTodosContraTodos(historial, mundos, alturas));
+            corte = Math.min(corte, medirCorteEnX(historial, mundos, alturas));
+            barrido = Math.min(barrido, medirBarrido(historial, mundos, alturas));
+        }
+
+        if (mostrar) {
+            long candidatos = contarCandidatos(historial, mundos);
+            System.out.printf("%9d %10d %16.0f %16.0f %10.0f %10.2f%n", jugadores, cantidadObstaculos,
+                    todos / (double) REPETICIONES, corte / (double) REPETICIONES,
+                    barrido / (double) REPETICIONES, candidatos / (double) MUNDOS);
+        }
+    }
+
+    private static long contarCandidatos(HistorialMundo historial, AlmacenObstaculos[] mundos) {
+        long candidatos = 0;
+        for (int m = 0; m < MUNDOS; m++) {
+            historial.guardarObstaculos(m, mundos[m], DESPLAZAMIENTO);
+            candidatos += historial.getCantidadCandidatos(m);
+        }
+        return candidatos;
+    }
+
+    /**
+     * Mundos con los obstáculos repartidos por la pantalla, en x creciente como en la partida
+     */
+    private static AlmacenObstaculos[] crearMundos(Random random, int cantidadObstaculos) {
+        AlmacenObstaculos[] mundos = new AlmacenObstaculos[MUNDOS];
+        float paso = ANCHO_PANTALLA / cantidadObstaculos;
+        for (int m = 0; m < MUNDOS; m++) {
+            mundos[m] = new AlmacenObstaculos();
+            for (int k = 0; k < cantidadObstaculos; k++) {
+                boolean cactus = random.nextFloat() < 0.7f;
+                float x = k * paso + random.nextFloat() * (paso - 50f);
+                mundos[m].agregar(k, cactus ? 0 : 1, 0, x, cactus ? 60f : 80f + random.nextInt(3) * 30f,
+                        cactus ? 30f : 50f, cactus ? 30f : 25f);
+            }
+        }
+        return mundos;
+    }
+
+    /**
+     * Altura de cada dinosaurio en cada mundo, entre el piso y lo más alto de un salto
+     */
+    private static float[][] crearAlturas(Random random, int jugadores) {
+        float[][] alturas = new float[MUNDOS][jugadores];
+        for (int m = 0; m < MUNDOS; m++) {
+            for (int j = 0; j < jugadores; j++) {
+                alturas[m][j] = 60f + random.nextFloat() * 100f;
+            }
+        }
+        return alturas;
+    }
+
+    private static long medirTodosContraTodos(HistorialMundo historial, AlmacenObstaculos[] mundos, float[][] alturas) {
+        long inicio = System.nanoTime();
+        for (int r = 0; r < REPETICIONES; r++) {
+            int m = r % MUNDOS;
+            float[] y = alturas[m];
+            historial.guardarObstaculos(r, mundos[m], DESPLAZAMIENTO);
+            for (int j = 0; j < y.length; j++) {
+                if (todosContraTodos(mundos[m], y[j])) sumidero++;
+            }
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    private static long medirCorteEnX(HistorialMundo historial, AlmacenObstaculos[] mundos, float[][] alturas) {
+        long inicio = System.nanoTime();
+        for (int r = 0; r < REPETICIONES; r++) {
+            int m = r % MUNDOS;
+            float[] y = alturas[m];
+            historial.guardarObstaculos(r, mundos[m], DESPLAZAMIENTO);
+            for (int j = 0; j < y.length; j++) {
+                if (historial.colisiona(r, CARRIL_X, y[j], ANCHO_DINO, ALTO_DINO)) sumidero++;
+            }
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    private static long medirBarrido(HistorialMundo historial, AlmacenObstaculos[] mundos, float[][] alturas) {
+        long inicio = System.nanoTime();
+        for (int r = 0; r < REPETICIONES; r++) {
+            int m = r % MUNDOS;
+            float[] y = alturas[m];
+            historial.guardarObstaculos(r, mundos[m], DESPLAZAMIENTO);
+            for (int j = 0; j < y.length; j++) {
+                if (historial.colisionaEnCarril(r, y[j], y[j], ALTO_DINO)) sumidero++;
+            }
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    /**
+     * Prueba exacta contra cada obstáculo, sin aprovechar el orden en x
+     */
+    private static boolean todosContraTodos(AlmacenObstaculos obstaculos, float y) {
+        boolean choca = false;
+        for (int k = 0; k < obstaculos.getCantidad(); k++) {
+            int i = obstaculos.lugar(k);
+            float ox = obstaculos.x[i] + obstaculos.hitboxDx[i];
+            if (CARRIL_X < ox + obstaculos.hitboxAncho[i] && CARRIL_X + ANCHO_DINO > ox
+                    && y < obstaculos.hitboxY[i] + obstaculos.hitboxAlto[i] && y + ALTO_DINO > obstaculos.hitboxY[i]) {
+                choca = true;
+            }
+        }
+        return choca;
+    }
+}
@@ -0,0 +1,125 @@
+package com.dinosauriojuego.server;
+
+import com.dinosauriojuego.servidor.logica.EstadoGuardado;
+import com.dinosauriojuego.servidor.logica.GameSimulacion;
+
+/**
+ * Mide cuánto cuesta guardar y restaurar el estado de una simulación según la cantidad de jugadores
+ *
+ * Compara la foto compacta ({@link GameSimulacion#guardar} y {@link GameSimulacion#restaurar}) con
+ * la copia completa entre simulaciones ({@link GameSimulacion#copiarDe}), que además lleva el historial.
+ * Las fotos se sacan de una partida larga, con los obstáculos que hay a esa altura del juego.
+ *
+ * Uso: gradlew server:benchmarkEstado
+ */
+public class BenchmarkEstado {
+
+    private static final int[] JUGADORES = {1, 2, 8, 64};
+    private static final int FOTOS = 64; // Momentos distintos de la partida, para no medir siempre el mismo
+    private static final int TICKS_ENTRE_FOTOS = 47;
+    private static final float DELTA = 1f / 60f;
+    private static final int REPETICIONES = 200000;
+    private static final int INTENTOS = 5;
+    private static final int CALENTAMIENTOS = 2;
+
+    // Evita que el JIT descarte los resultados
+    private static int sumidero;
+
+    public static void main(String[] args) {
+        for (int jugadores : JUGADORES) {
+            medir(jugadores, false);
+        }
+
+        System.out.println("📊 Guardar y restaurar el estado (ns por operación)");
+        System.out.printf("%9s %11s %8s %10s %12s%n", "jugadores", "obstaculos", "guardar", "restaurar", "copia entera");
+        for (int jugadores : JUGADORES) {
+            for (int i = 0; i < CALENTAMIENTOS; i++) {
+                medir(jugadores, false);
+            }
+            medir(jugadores, true);
+        }
+        System.out.println("resultado: " + sumidero);
+    }
+
+    private static void medir(int jugadores, boolean mostrar) {
+        GameSimulacion simulacion = new GameSimulacion(jugadores, 42L);
+        GameSimulacion copia = new GameSimulacion(jugadores, 42L);
+        EstadoGuardado[] fotos = crearFotos(simulacion, jugadores);
+
+        // Cada variante se mide varias veces y se queda con la mejor, para no contar pausas del sistema
+        long guardar = Long.MAX_VALUE, restaurar = Long.MAX_VALUE, copiar = Long.MAX_VALUE;
+        for (int intento = 0; intento < INTENTOS; intento++) {
+            guardar = Math.min(guardar, medirGuardar(simulacion, fotos));
+            restaurar = Math.min(restaurar, medirRestaurar(simulacion, fotos));
+            copiar = Math.min(copiar, medirCopiar(simulacion, copia, fotos));
+        }
+
+        if (mostrar) {
+            System.out.printf("%9d %11.2f %8.1f %10.1f %12.1f%n", jugadores, contarObstaculos(simulacion, fotos),
+                    guardar / (double) REPETICIONES, restaurar / (double) REPETICIONES,
+                    copiar / (double) REPETICIONES);
+        }
+    }
+
+    /**
+     * Fotos de una partida larga: el mundo avanza sin colisiones y cada jugador salta cada tanto,
+     * así hay obstáculos de todo tipo en pantalla y no todos los dinosaurios están en el piso
+     */
+    private static EstadoGuardado[] crearFotos(GameSimulacion simulacion, int jugadores) {
+        EstadoGuardado[] fotos = new EstadoGuardado[FOTOS];
+        int tick = 0;
+        for (int f = 0; f < FOTOS; f++) {
+            for (int t = 0; t < TICKS_ENTRE_FOTOS; t++, tick++) {
+                simulacion.actualizarMundo(DELTA);
+                for (int j = 0; j < jugadores; j++) {
+                    GameSimulacion.actualizarDino(simulacion.jugadores, j, DELTA, (tick + j * 13) % 45 == 0, false);
+                }
+            }
+            fotos[f] = new EstadoGuardado(jugadores);
+            simulacion.guardar(fotos[f]);
+        }
+        return fotos;
+    }
+
+    private static double contarObstaculos(GameSimulacion simulacion, EstadoGuardado[] fotos) {
+        long obstaculos = 0;
+        for (EstadoGuardado foto : fotos) {
+            simulacion.restaurar(foto);
+            obstaculos += simulacion.obstaculos.getCantidad();
+        }
+        return obstaculos / (double) fotos.length;
+    }
+
+    private static long medirGuardar(GameSimulacion simulacion, EstadoGuardado[] fotos) {
+        EstadoGuardado destino = new EstadoGuardado(simulacion.jugadores.cantidad);
+        long inicio = System.nanoTime();
+        for (int r = 0; r < REPETICIONES; r++) {
+            // Restaurar cada tanto cambia lo que se guarda sin pesar en la medición
+            if ((r & 1023) == 0) {
+                simulacion.restaurar(fotos[(r >> 10) % FOTOS]);
+            }
+            simulacion.guardar(destino);
+            sumidero += destino.getTick();
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    private static long medirRestaurar(GameSimulacion simulacion, EstadoGuardado[] fotos) {
+        long inicio = System.nanoTime();
+        for (int r = 0; r < REPETICIONES; r++) {
+            simulacion.restaurar(fotos[r % FOTOS]);
+            sumidero += simulacion.puntuacion;
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    private static long medirCopiar(GameSimulacion simulacion, GameSimulacion copia, EstadoGuardado[] fotos) {
+        simulacion.restaurar(fotos[FOTOS - 1]);
+        long inicio = System.nanoTime();
+        for (int r = 0; r < REPETICIONES; r++) {
+            copia.copiarDe(simulacion);
+            sumidero += copia.puntuacion;
+        }
+        return System.nanoTime() - inicio;
+    }
+}
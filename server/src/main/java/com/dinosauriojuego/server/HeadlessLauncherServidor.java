@@ -0,0 +1,30 @@
+package com.dinosauriojuego.server;
+
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.dinosauriojuego.servidor.ConfiguracionServidor;
+import com.dinosauriojuego.servidor.ServidorDedicado;
+
+/**
+ * Lanzador del servidor dedicado (backend headless, sin ventana)
+ *
+ * Uso: java -jar DinosaurioChrome-server.jar [--config=servidor.properties] [--puerto=8999]
+ *      [--maxSalas=2048] [--ticksPorSegundo=60] [--snapshotsPorSegundo=20] [--jugadoresPorSala=2] [--hilosSimulacion=N]
+ *      [--jugadoresPorTarea=64] [--intervaloEstadisticas=10]
+ */
+public class HeadlessLauncherServidor {
+    public static void main(String[] args) {
+        createApplication(ConfiguracionServidor.desdeArgumentos(args));
+    }
+
+    private static HeadlessApplication createApplication(ConfiguracionServidor config) {
+        return new HeadlessApplication(new ServidorDedicado(config), getDefaultConfiguration());
+    }
+
+    private static HeadlessApplicationConfiguration getDefaultConfiguration() {
+        HeadlessApplicationConfiguration configuration = new HeadlessApplicationConfiguration();
+        // La simulación corre en su propio hilo; el bucle de la aplicación solo reporta estadísticas
+        configuration.updatesPerSecond = 1;
+        return configuration;
+    }
+}
@@ -0,0 +1,80 @@
+package com.dinosauriojuego.server;
+
+import com.dinosauriojuego.servidor.logica.SimulacionLote;
+
+/**
+ * Corre un lote de partidas headless lo más rápido posible con una política simple y reporta el rendimiento
+ * Sirve para medir el simulador por lotes y para ver cómo responde la curva de spawn a un jugador fijo
+ *
+ * Uso: gradlew server:simularLote --args="--partidas=4096 --segundos=10 --hilos=N --semilla=1"
+ */
+public class SimuladorLote {
+
+    public static void main(String[] args) {
+        int partidas = leerEntero(args, "partidas", 4096);
+        int segundos = leerEntero(args, "segundos", 10);
+        int hilos = leerEntero(args, "hilos", Runtime.getRuntime().availableProcessors());
+        long semilla = leerEntero(args, "semilla", 1);
+
+        SimulacionLote lote = new SimulacionLote(partidas, 60, semilla, hilos);
+        int[] acciones = new int[partidas];
+        System.out.println("🦖 Lote de " + partidas + " partidas en " + lote.getHilos() + " hilos, " + segundos + " s");
+
+        long inicio = System.nanoTime();
+        long siguienteReporte = inicio + 1_000_000_000L;
+        long fin = inicio + segundos * 1_000_000_000L;
+        float[] observaciones = lote.observaciones;
+        while (System.nanoTime() < fin) {
+            for (int p = 0; p < partidas; p++) {
+                acciones[p] = elegirAccion(observaciones, p * SimulacionLote.TAMANO_OBSERVACION);
+            }
+            observaciones = lote.paso(acciones);
+
+            long ahora = System.nanoTime();
+            if (ahora >= siguienteReporte) {
+                System.out.printf("📊 %.1f M ticks/s | episodios: %d | puntuación media: %.1f%n",
+                        lote.getTicksPorSegundo() / 1e6, lote.getEpisodiosTerminados(), lote.getPuntuacionMedia());
+                siguienteReporte += 1_000_000_000L;
+            }
+        }
+
+        double segundosReales = (System.nanoTime() - inicio) / 1e9;
+        System.out.printf("✅ %d ticks simulados: %.1f M ticks/s dentro de paso, %.1f M ticks/s con la política%n",
+                lote.getTicksSimulados(), lote.getTicksPorSegundo() / 1e6, lote.getTicksSimulados() / segundosReales / 1e6);
+        System.out.printf("🏁 episodios: %d | puntuación media: %.1f | mejor: %d | duración media: %.1f s%n",
+                lote.getEpisodiosTerminados(), lote.getPuntuacionMedia(), lote.getMejorPuntuacion(),
+                lote.getDuracionMedia() / 60.0);
+        lote.cerrar();
+    }
+
+    /**
+     * Política de referencia: salta lo bajo, se agacha ante pájaros a media altura y deja pasar los altos
+     */
+    private static int elegirAccion(float[] observaciones, int o) {
+        float velocidad = observaciones[o + 4];
+        float distancia = observaciones[o + 5];
+        float alturaObstaculo = observaciones[o + 6];
+
+        // Reacciona cuando el obstáculo está a unos 0.2 s
+        if (distancia > velocidad * 0.2f) {
+            return SimulacionLote.ACCION_NADA;
+        }
+        if (alturaObstaculo >= 60f) {
+            return SimulacionLote.ACCION_NADA;
+        }
+        if (alturaObstaculo >= 30f) {
+            return SimulacionLote.ACCION_AGACHAR;
+        }
+        return SimulacionLote.ACCION_SALTAR;
+    }
+
+    private static int leerEntero(String[] args, String clave, int porDefecto) {
+        String prefijo = "--" + clave + "=";
+        for (String arg : args) {
+            if (arg.startsWith(prefijo)) {
+                return Integer.parseInt(arg.substring(prefijo.length()));
+            }
+        }
+        return porDefecto;
+    }
+}